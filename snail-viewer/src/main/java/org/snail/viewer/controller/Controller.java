@@ -5,27 +5,29 @@ import static org.snail.viewer.util.WidgetUtils.createImageIcon;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
-import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Image;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.event.ItemEvent;
-import java.awt.event.ItemListener;
-import java.awt.event.MouseEvent;
-import java.awt.event.MouseMotionListener;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
 import java.awt.geom.Point2D;
 import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.PropertyResourceBundle;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.prefs.Preferences;
 
 import javax.swing.BorderFactory;
@@ -38,44 +40,56 @@ import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JToggleButton;
 import javax.swing.JToolBar;
-import javax.swing.JTree;
-import javax.swing.SwingWorker;
+import javax.swing.SwingUtilities;
+import javax.swing.ToolTipManager;
 import javax.swing.UIManager;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.EtchedBorder;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
 import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.DefaultTreeCellRenderer;
-import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreeNode;
-import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Statement;
-import org.apache.jena.rdf.model.StmtIterator;
-import org.apache.jena.util.FileManager;
 import org.jdesktop.swingx.JXButton;
 import org.jdesktop.swingx.JXLabel;
 import org.jdesktop.swingx.JXMultiSplitPane;
 import org.jdesktop.swingx.MultiSplitLayout;
 import org.pushingpixels.substance.api.SubstanceLookAndFeel;
 import org.pushingpixels.substance.api.skin.BusinessSkin;
+import org.snail.viewer.dialog.MeasuresDialog;
 import org.snail.viewer.dialog.OpenDialog;
-import org.snail.viewer.jung.graph.DirectedModelGraph;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
 import org.snail.viewer.jung.layout.LatticeLayout;
+import org.snail.viewer.jung.layout.LatticeOrderings;
+import org.snail.viewer.jung.layout.LayoutCache;
+import org.snail.viewer.jung.layout.LayoutScheduler;
+import org.snail.viewer.jung.layout.MultilevelLayout;
+import org.snail.viewer.jung.picking.BatchPickedState;
+import org.snail.viewer.jung.picking.LayoutSpatialIndex;
+import org.snail.viewer.jung.picking.SpatialPickSupport;
+import org.snail.viewer.jung.renderers.LevelOfDetailRenderer;
+import org.snail.viewer.jung.visualization.CachedSatelliteViewer;
+import org.snail.viewer.model.ModelLoader;
+import org.snail.viewer.model.ResourceIndex;
 import org.snail.viewer.panel.DistancePanel;
 import org.snail.viewer.util.WidgetUtils.ButtonManager;
 import org.snail.viewer.widget.AboutDialog;
 import org.snail.viewer.widget.DetailDialog;
 import org.snail.viewer.widget.FilteredTree;
 import org.snail.viewer.widget.FilteredTree.NodeListener;
+import org.snail.viewer.widget.ResourceTreeCellRenderer;
+import org.snail.viewer.widget.ResourceTreeModel;
 import org.snail.viewer.widget.GlassPane;
+import org.snail.viewer.widget.StandardDialog;
 
 import com.ezware.dialog.task.TaskDialogs;
 import com.jgoodies.forms.builder.ListViewBuilder;
@@ -84,15 +98,13 @@ import edu.uci.ics.jung.algorithms.layout.CircleLayout;
 import edu.uci.ics.jung.algorithms.layout.ISOMLayout;
 import edu.uci.ics.jung.algorithms.layout.Layout;
 import edu.uci.ics.jung.algorithms.layout.LayoutDecorator;
-import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.algorithms.util.IterativeContext;
 import edu.uci.ics.jung.visualization.GraphZoomScrollPane;
 import edu.uci.ics.jung.visualization.VisualizationViewer;
 import edu.uci.ics.jung.visualization.control.CrossoverScalingControl;
 import edu.uci.ics.jung.visualization.control.DefaultModalGraphMouse;
 import edu.uci.ics.jung.visualization.control.ModalGraphMouse.Mode;
-import edu.uci.ics.jung.visualization.control.SatelliteVisualizationViewer;
 import edu.uci.ics.jung.visualization.control.ScalingControl;
-import edu.uci.ics.jung.visualization.picking.PickedState;
 
 /**
  * Snail Navigator Controller
@@ -139,6 +151,49 @@ public class Controller extends JPanel {
 
 		}
 
+		/*
+		 * Keep the pick index and the satellite in step with dragged vertices,
+		 * and grow the layout when a vertex is dragged past its edge
+		 */
+		@Override
+		public void setLocation(V vertex, Point2D location) {
+
+			delegate.setLocation(vertex, location);
+
+			if (layoutIndex != null && vertex instanceof RDFNode) {
+				layoutIndex.moved((RDFNode) vertex, location);
+			}
+
+			if (satelliteViewer != null) {
+				satelliteViewer.layoutChanged();
+			}
+
+			Dimension size = getSize();
+
+			if (size != null && (location.getX() > size.width || location.getY() > size.height)) {
+
+				setSize(new Dimension((int) Math.max(size.width, location.getX() + 24),
+						(int) Math.max(size.height, location.getY() + 24)));
+
+			}
+
+		}
+
+		/*
+		 * The iterations are run by the layout scheduler - the viewer's own
+		 * relaxer would otherwise start on the Event Dispatch Thread
+		 */
+		@Override
+		public void step() {
+		}
+
+		@Override
+		public boolean done() {
+
+			return true;
+
+		}
+
 	}
 
 	enum GRAPH {
@@ -166,15 +221,37 @@ public class Controller extends JPanel {
 
 	final static public ResourceBundle TEXTS = PropertyResourceBundle.getBundle("locale.Texts");
 
-	Graph<RDFNode, Statement> graph;
+	ModelGraphSnapshot graph;
 	VisualizationViewer<RDFNode, Statement> viewer;
+	BatchPickedState<RDFNode> pickedVertexState;
+	BatchPickedState<Statement> pickedEdgeState;
+	LayoutSpatialIndex layoutIndex;
+	CachedSatelliteViewer<RDFNode, Statement> satelliteViewer;
 	Model model;
 
-	final MutableInt pickedVertexCounter;
-	final MutableInt pickedEdgeCounter;
+	ResourceIndex predicates;
+	ResourceIndex subjects;
+
+	/*
+	 * Details of the picked elements are rendered one selection at a time on
+	 * a single background thread
+	 */
+	final ExecutorService detailExecutor = Executors.newSingleThreadExecutor();
+	Future<?> detailRender = null;
+
+	final static int MAXIMUM_DETAILS = 1000;
 
 	JXButton zoomInButton;
 	JXButton zoomOutButton;
+	JXButton stopButton;
+	JToggleButton bundleButton;
+
+	LayoutScheduler scheduler = null;
+	String status = "Ready";
+
+	final LayoutCache layoutCache = new LayoutCache();
+	String digest = null;
+	long size = -1;
 
 	/**
 	 * Controller
@@ -190,9 +267,6 @@ public class Controller extends JPanel {
 		this.frame = frame;
 		List<Image> images = new LinkedList<Image>();
 
-		pickedVertexCounter = new MutableInt(0);
-		pickedEdgeCounter = new MutableInt(0);
-
 		statusBar = new JXLabel("Ready");
 		statusBar.setBorder(new EmptyBorder(0, 5, 10, 5));
 
@@ -245,77 +319,36 @@ public class Controller extends JPanel {
 		rowPanel.add(scrollPane, BorderLayout.CENTER);
 		graphTree.getTree().putClientProperty("JTree.lineStyle", "None");
 
-		graphTree.getTree().setCellRenderer(new DefaultTreeCellRenderer() {
+		graphTree.getTree().setCellRenderer(new ResourceTreeCellRenderer());
 
-			@Override
-			public Component getTreeCellRendererComponent(JTree tree, Object value, boolean selected, boolean expanded,
-					boolean isLeaf, int row, boolean focused) {
-				Component component = super.getTreeCellRendererComponent(tree, value, selected, expanded, isLeaf, row,
-						focused);
-
-				if (!isLeaf || value.toString().equals("Subjects")) {
-					setIcon(createImageIcon("/images/predicate-icon-16.png"));
-				} else {
-					setIcon(createImageIcon("/images/brkpd_obj.gif"));
-				}
-
-				return component;
-
-			}
-
-		});
+		ToolTipManager.sharedInstance().registerComponent(graphTree.getTree());
 
 		graphTree.getTree().addTreeSelectionListener(new TreeSelectionListener() {
 
 			@Override
 			public void valueChanged(TreeSelectionEvent e) {
+				Object selected = graphTree.getTree().getLastSelectedPathComponent();
 
-				SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
-
-					@Override
-					protected Void doInBackground() throws Exception {
-						DefaultMutableTreeNode node = (DefaultMutableTreeNode) graphTree.getTree()
-								.getLastSelectedPathComponent();
-
-						if (node == null || node.getParent() == null
-								|| node.getParent().toString().equals("Resources")) {
-
-							glassPane.deactivate();
+				if (viewer == null || !(selected instanceof ResourceTreeModel.Node)
+						|| !((ResourceTreeModel.Node) selected).isResource()) {
 
-							return null;
+					return;
 
-						}
-
-						if (node.getParent().toString().equals("Subjects")) {
-
-							for (RDFNode rdfNode : graph.getVertices()) {
-								PickedState<RDFNode> pickedVertexState = viewer.getPickedVertexState();
-
-								pickedVertexState.pick(rdfNode, rdfNode.toString().equals(node.toString()));
-
-							}
-
-						} else if (node.getParent().toString().equals("Predicates")) {
-
-							for (Statement statement : graph.getEdges()) {
-								PickedState<Statement> pickedEdgeState = viewer.getPickedEdgeState();
-
-								pickedEdgeState.pick(statement,
-										statement.getPredicate().toString().equals(node.toString()));
-
-							}
+				}
 
-						}
+				ResourceTreeModel.Node node = (ResourceTreeModel.Node) selected;
 
-						glassPane.deactivate();
+				if (node.getIndex() == subjects) {
+					int id = graph.findVertex(node.getResource());
 
-						return null;
+					pickedVertexState.setPicked((id < 0) ? Collections.<RDFNode> emptyList()
+							: Collections.singletonList(graph.getVertex(id)));
 
-					}
+				} else if (node.getIndex() == predicates) {
 
-				};
+					pickedEdgeState.setPicked(graph.getEdges(node.getResource()));
 
-				worker.execute();
+				}
 
 			}
 
@@ -324,9 +357,11 @@ public class Controller extends JPanel {
 		JXButton graphButton = new JXButton(createImageIcon("/images/graph-icon-16.png"));
 		JXButton circularButton = new JXButton(createImageIcon("/images/circular-icon-16.png"));
 		JXButton latticeButton = new JXButton(createImageIcon("/images/square-icon-16.png"));
+		JXButton forceButton = new JXButton(createImageIcon("/images/curve-icon-16.png"));
 
 		ButtonGroup group = new ButtonGroup();
 
+		group.add(forceButton);
 		group.add(graphButton);
 		group.add(circularButton);
 		group.add(latticeButton);
@@ -336,6 +371,7 @@ public class Controller extends JPanel {
 		actionBar.setFloatable(false);
 		actionBar.setRollover(true);
 
+		actionBar.add(forceButton);
 		actionBar.add(graphButton);
 		actionBar.add(circularButton);
 		actionBar.add(latticeButton);
@@ -348,10 +384,49 @@ public class Controller extends JPanel {
 		viewBar.setFloatable(false);
 		viewBar.setRollover(true);
 
+		stopButton = new JXButton(createImageIcon("/images/hourglass-icon.png"));
+
+		stopButton.setToolTipText("Stop the layout");
+		stopButton.setEnabled(false);
+
+		stopButton.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+
+				if (scheduler != null) {
+					scheduler.stop();
+				}
+
+			}
+
+		});
+
+		bundleButton = new JToggleButton(createImageIcon("/images/line-icon-16.png"));
+
+		bundleButton.setToolTipText("Bundle the edges");
+
+		bundleButton.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+
+				if (viewer != null && viewer.getRenderer() instanceof LevelOfDetailRenderer) {
+					((LevelOfDetailRenderer) viewer.getRenderer()).setEdgeBundling(bundleButton.isSelected());
+
+					viewer.repaint();
+				}
+
+			}
+
+		});
+
 		viewBar.add(zoomInButton);
 		viewBar.add(zoomOutButton);
+		viewBar.add(bundleButton);
+		viewBar.add(stopButton);
 
-		graphButtons = new ButtonManager(graphButton, circularButton, latticeButton, zoomInButton, zoomOutButton);
+		graphButtons = new ButtonManager(forceButton, graphButton, circularButton, latticeButton, zoomInButton, zoomOutButton);
 
 		JPanel emptyPanel = new JPanel();
 
@@ -363,6 +438,17 @@ public class Controller extends JPanel {
 
 		resetGraphContainer();
 
+		forceButton.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+
+				setupViewer(new MultilevelLayout<RDFNode, Statement>(graph));
+
+			}
+
+		});
+
 		graphButton.addActionListener(new ActionListener() {
 
 			@Override
@@ -387,7 +473,11 @@ public class Controller extends JPanel {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				setupViewer(new LatticeLayout<RDFNode, Statement>(graph));
+				LatticeLayout<RDFNode, Statement> lattice = new LatticeLayout<RDFNode, Statement>(graph);
+
+				lattice.setVertexOrder(LatticeOrderings.byType(graph));
+
+				setupViewer(lattice);
 			}
 
 		});
@@ -509,58 +599,47 @@ public class Controller extends JPanel {
 
 							@Override
 							public boolean open(Closeable closeable, String uri) throws Exception {
-								model = FileManager.get().loadModel(uri);
-								graph = new DirectedModelGraph(model);
-
-								graphTree.setRoot(new DefaultMutableTreeNode("Resources"));
-								graphTree.getTree().setRootVisible(false);
+								final ModelLoader loader = new ModelLoader(uri) {
 
-								StmtIterator iStatement = model.listStatements();
+									@Override
+									protected void done() {
 
-								List<String> predicates = new LinkedList<String>();
-								List<String> subjects = new LinkedList<String>();
+										glassPane.deactivate();
 
-								while (iStatement.hasNext()) {
-									Statement statement = iStatement.nextStatement();
+										if (isCancelled()) {
 
-									if (!predicates.contains(statement.getPredicate().toString())) {
+											statusBar.setText("Load cancelled");
 
-										predicates.add(statement.getPredicate().toString());
+											return;
 
-									}
-
-									if (!statement.getSubject().isAnon()
-											&& !subjects.contains(statement.getSubject().toString())) {
+										}
 
-										subjects.add(statement.getSubject().toString());
-
-									}
+										try {
 
-								}
+											get();
 
-								addNodes("Predicates", predicates);
-								addNodes("Subjects", subjects);
+										} catch (Exception e) {
 
-								setupViewer(new ISOMLayout<RDFNode, Statement>(graph));
+											TaskDialogs.showException(e.getCause() != null ? e.getCause() : e);
 
-								((DefaultTreeModel) graphTree.getTree().getModel()).reload();
+											statusBar.setText("Ready");
 
-								Preferences preferences = Preferences.userRoot();
+											return;
 
-								Set<String> sortedUris = new LinkedHashSet<String>(Arrays
-										.asList(StringUtils.split(Preferences.userRoot().get("snail-uris", ""), ",")));
+										}
 
-								sortedUris.remove(uri);
+										opened(this);
 
-								List<String> uris = new LinkedList<String>(sortedUris);
+									}
 
-								uris.add(0, uri);
+								};
 
-								preferences.put("snail-uris", StringUtils.join(uris.toArray(new String[0]), ','));
+								glassPane.activate("Loading - " + uri, loader);
 
-								enableGraphButtons(true);
+								loader.execute();
 
 								return true;
+
 							}
 
 						});
@@ -588,36 +667,33 @@ public class Controller extends JPanel {
 
 					@Override
 					public void actionPerformed(ActionEvent event) {
+						final MeasuresDialog options = new MeasuresDialog(frame, "Measures", graph.getVertexCount());
 
-						SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+						options.setVisible(true);
 
-							@Override
-							protected Void doInBackground() throws Exception {
-
-								try {
-									JDialog dialog = new DetailDialog(frame, "Distance",
-											new DistancePanel(model, graph));
-
-									dialog.setLocationRelativeTo(frame);
+						if (options.getStatus() != StandardDialog.STATUS.OK) {
+							return;
+						}
 
-									glassPane.deactivate();
+						try {
+							DistancePanel panel = new DistancePanel(graph,
+									options.isApproximate() ? options.getPivots() : 0);
 
-									dialog.setVisible(true);
+							JDialog dialog = new DetailDialog(frame, "Distance", panel);
 
-								} catch (Exception e) {
+							dialog.setLocationRelativeTo(frame);
 
-									TaskDialogs.showException(e);
+							panel.start();
 
-								}
+							dialog.setVisible(true);
 
-								return null;
+							panel.cancel();
 
-							}
-						};
+						} catch (Exception e) {
 
-						glassPane.activate("Please Wait");
+							TaskDialogs.showException(e);
 
-						worker.execute();
+						}
 
 					}
 
@@ -699,10 +775,34 @@ public class Controller extends JPanel {
 	private void setupViewer(final Layout<RDFNode, Statement> layout) {
 		final Layout<RDFNode, Statement> layoutDecorator = new ExpandableLayoutDecorator<RDFNode, Statement>(layout);
 
+		if (scheduler != null) {
+			scheduler.stop();
+		}
+
 		viewer = new VisualizationViewer<RDFNode, Statement>(layoutDecorator, new Dimension(960, 780));
 
-		final SatelliteVisualizationViewer<RDFNode, Statement> satelliteViewer = new SatelliteVisualizationViewer<RDFNode, Statement>(
-				viewer, new Dimension(68, 68));
+		layoutIndex = new LayoutSpatialIndex(graph);
+
+		viewer.setPickSupport(new SpatialPickSupport(viewer, layoutIndex));
+		LevelOfDetailRenderer renderer = new LevelOfDetailRenderer(layoutIndex);
+
+		renderer.setEdgeBundling(bundleButton.isSelected());
+
+		viewer.setRenderer(renderer);
+
+		/*
+		 * The pick states are set before the satellite is created - it takes
+		 * (and listens to) the viewer's states when it is constructed
+		 */
+		pickedVertexState = new BatchPickedState<RDFNode>();
+		pickedEdgeState = new BatchPickedState<Statement>();
+
+		viewer.setPickedVertexState(pickedVertexState);
+		viewer.setPickedEdgeState(pickedEdgeState);
+
+		satelliteViewer = new CachedSatelliteViewer<RDFNode, Statement>(viewer, new Dimension(68, 68));
+
+		satelliteViewer.setRenderer(new LevelOfDetailRenderer(layoutIndex));
 
 		final ScalingControl satelliteScaler = new CrossoverScalingControl();
 
@@ -760,175 +860,277 @@ public class Controller extends JPanel {
 
 		});
 
-		final PickedState<RDFNode> pickedVertexState = viewer.getPickedVertexState();
+		pickedVertexState.addChangeListener(new ChangeListener() {
+
+			@Override
+			public void stateChanged(ChangeEvent e) {
+
+				renderVertices(new ArrayList<RDFNode>(pickedVertexState.getPicked()));
+
+			}
+
+		});
 
-		pickedVertexState.addItemListener(new ItemListener() {
+		pickedEdgeState.addChangeListener(new ChangeListener() {
 
 			@Override
-			public void itemStateChanged(ItemEvent e) {
+			public void stateChanged(ChangeEvent e) {
 
-				SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
-					@Override
-					protected Void doInBackground() throws Exception {
+				renderEdges(new ArrayList<Statement>(pickedEdgeState.getPicked()));
 
-						synchronized (cellPane) {
+			}
 
-							pickedVertexCounter.increment();
+		});
 
-							if (pickedVertexCounter.intValue() != pickedVertexState.getPicked().size()) {
+		scheduler = null;
 
-								return null;
+		statusBar.setText(status);
 
-							}
+		if (layout instanceof IterativeContext && layoutCache.restore(digest, size, layout, graph)) {
 
-							String text = "<html><table>";
+			satelliteViewer.layoutChanged();
 
-							for (RDFNode node : pickedVertexState.getPicked()) {
+			statusBar.setText(status + " - layout restored");
 
-								if (node.isResource()) {
-									text += "<tr><td width=\"5\" rowspan=\"2\" bgcolor=\"#D3EAF2\" color=\"#4A4A4A\" align=\"right\"><b><font size=\"1\">";
-								} else if (node.isAnon()) {
-									text += "<tr><td width=\"5\" rowspan=\"2\" bgcolor=\"#C8BFE7\" color=\"#4A4A4A\" align=\"right\"><b><font size=\"1\">";
-								} else {
-									text += "<tr><td width=\"5\" rowspan=\"2\" bgcolor=\"#7092BE\" color=\"#4A4A4A\" align=\"right\"><b><font size=\"1\">";
-								}
+		} else if (layout instanceof IterativeContext) {
+			final LayoutScheduler layoutScheduler = new LayoutScheduler((IterativeContext) layout, viewer);
 
-								text += "&nbsp;</b></font></td></tr>";
+			layoutScheduler.setListener(new LayoutScheduler.Listener() {
 
-								text += "<tr><td>";
-								text += node.toString();
-								text += "</td></tr>";
+				@Override
+				public void progressed(LayoutScheduler source) {
 
-							}
+					if (source == scheduler) {
+						layoutIndex.invalidate();
+						satelliteViewer.layoutChanged();
 
-							text += "</table></html>";
+						statusBar.setText(String.format("%s - layout %s, %,d iterations (%,.1f/s)", status,
+								source.getState().toString().toLowerCase(), source.getIterations(),
+								source.getIterationsPerSecond()));
+					}
 
-							cellPane.setText(text);
+				}
 
-							glassPane.deactivate();
+				@Override
+				public void finished(LayoutScheduler source) {
 
-							pickedVertexCounter.setValue(0);
+					if (source != scheduler) {
+						return;
+					}
 
-						}
+					progressed(source);
+
+					stopButton.setEnabled(false);
+					layoutIndex.setMoving(false);
 
-						return null;
+					viewer.repaint();
 
+					if (source.getState() == LayoutScheduler.STATE.STOPPED) {
+						return;
 					}
 
-				};
+					try {
 
-				if ((pickedVertexState.isPicked((RDFNode) e.getItem())
-						&& (pickedVertexState.getPicked().size() == 1))) {
+						layoutCache.save(digest, size, layout, graph);
 
-					glassPane.activate("Please Wait");
-					pickedVertexCounter.setValue(0);
+					} catch (IOException e) {
 
-				}
+						e.printStackTrace();
+
+					}
 
-				if (pickedVertexState.isPicked((RDFNode) e.getItem())) {
-					worker.execute();
 				}
 
-			}
+			});
 
-		});
+			scheduler = layoutScheduler;
 
-		final PickedState<Statement> pickedEdgeState = viewer.getPickedEdgeState();
+			layoutIndex.setMoving(true);
+			layoutScheduler.start();
 
-		pickedEdgeState.addItemListener(new ItemListener() {
+		}
 
-			@Override
-			public void itemStateChanged(ItemEvent e) {
+		stopButton.setEnabled(scheduler != null);
 
-				SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
-					@Override
-					protected Void doInBackground() throws Exception {
+	}
+
+	/**
+	 * Install a loaded model - build the resource tree, lay out the graph and
+	 * remember the file
+	 *
+	 * @param loader
+	 *            the (completed) model loader
+	 *
+	 */
+	private void opened(ModelLoader loader) {
+		String uri = loader.getUri();
 
-						synchronized (cellPane) {
+		model = loader.getModel();
+		graph = loader.getGraph();
+		predicates = loader.getPredicates();
+		subjects = loader.getSubjects();
 
-							String text = "<html><table>";
+		ResourceTreeModel resources = new ResourceTreeModel("Resources");
 
-							pickedEdgeCounter.increment();
+		resources.addFolder("Predicates", predicates);
+		resources.addFolder("Subjects", subjects);
 
-							if (pickedEdgeCounter.intValue() != pickedEdgeState.getPicked().size()) {
+		graphTree.setModel(resources, resources);
+		graphTree.getTree().setRootVisible(false);
 
-								return null;
+		digest = loader.getDigest();
+		size = loader.getSize();
 
-							}
+		status = String.format("%s - %,d triples", uri, model.size());
 
-							for (Statement statememt : pickedEdgeState.getPicked()) {
+		setupViewer(new MultilevelLayout<RDFNode, Statement>(graph));
 
-								text += "<tr><td width=\"5\" rowspan=\"4\" bgcolor=\"#D3EAF2\" color=\"#4A4A4A\" align=\"right\"><b><font size=\"1\">";
-								text += "&nbsp;</b></font></td></tr>";
+		Preferences preferences = Preferences.userRoot();
 
-								text += "<tr><td>";
-								text += statememt.getSubject().toString();
-								text += "</td></tr><tr><td><b>";
-								text += statememt.getPredicate().toString();
-								text += "</b></td></tr><tr><td>";
-								text += statememt.getObject().toString();
-								text += "</td></tr>";
+		Set<String> sortedUris = new LinkedHashSet<String>(
+				Arrays.asList(StringUtils.split(Preferences.userRoot().get("snail-uris", ""), ",")));
 
-								text += "<tr><td></td></tr>";
+		sortedUris.remove(uri);
 
-							}
+		List<String> uris = new LinkedList<String>(sortedUris);
 
-							text += "</table></html>";
+		uris.add(0, uri);
 
-							cellPane.setText(text);
+		preferences.put("snail-uris", StringUtils.join(uris.toArray(new String[0]), ','));
 
-						}
+		enableGraphButtons(true);
+
+	}
+
+	/**
+	 * Render the details of the picked elements on the detail executor -
+	 * a newer selection cancels a render still in progress
+	 *
+	 * @param task
+	 *            builds the detail HTML
+	 *
+	 */
+	private void renderDetails(final Callable<String> task) {
 
-						glassPane.deactivate();
+		if (detailRender != null) {
+			detailRender.cancel(true);
+		}
 
-						pickedEdgeCounter.setValue(0);
+		detailRender = detailExecutor.submit(new Runnable() {
 
-						return null;
+			@Override
+			public void run() {
 
+				try {
+					final String text = task.call();
+
+					if (Thread.currentThread().isInterrupted()) {
+						return;
 					}
 
-				};
+					SwingUtilities.invokeLater(new Runnable() {
 
-				if ((pickedEdgeState.isPicked((Statement) e.getItem()) && (pickedEdgeState.getPicked().size() == 1))) {
+						@Override
+						public void run() {
 
-					glassPane.activate("Please Wait");
-					pickedEdgeCounter.setValue(0);
+							cellPane.setText(text);
+							cellPane.setCaretPosition(0);
 
-				}
+						}
+
+					});
+
+				} catch (InterruptedException e) {
+				} catch (Exception e) {
+
+					e.printStackTrace();
 
-				if (pickedEdgeState.isPicked((Statement) e.getItem())) {
-					worker.execute();
 				}
 
 			}
 
 		});
 
-		viewer.addMouseMotionListener(new MouseMotionListener() {
+	}
+
+	private void renderVertices(final List<RDFNode> nodes) {
+
+		renderDetails(new Callable<String>() {
 
 			@Override
-			public void mouseMoved(MouseEvent arg0) {
+			public String call() throws Exception {
+				StringBuilder text = new StringBuilder("<html><table>");
+
+				for (int iNode = 0; iNode < nodes.size() && iNode < MAXIMUM_DETAILS; iNode++) {
+					RDFNode node = nodes.get(iNode);
+
+					if (Thread.interrupted()) {
+						throw new InterruptedException();
+					}
+
+					if (node.isResource()) {
+						text.append("<tr><td width=\"5\" rowspan=\"2\" bgcolor=\"#D3EAF2\" color=\"#4A4A4A\" align=\"right\"><b><font size=\"1\">");
+					} else if (node.isAnon()) {
+						text.append("<tr><td width=\"5\" rowspan=\"2\" bgcolor=\"#C8BFE7\" color=\"#4A4A4A\" align=\"right\"><b><font size=\"1\">");
+					} else {
+						text.append("<tr><td width=\"5\" rowspan=\"2\" bgcolor=\"#7092BE\" color=\"#4A4A4A\" align=\"right\"><b><font size=\"1\">");
+					}
+
+					text.append("&nbsp;</b></font></td></tr>");
+
+					text.append("<tr><td>");
+					text.append(node.toString());
+					text.append("</td></tr>");
+
+				}
+
+				appendRemainder(text, nodes.size());
+
+				text.append("</table></html>");
+
+				return text.toString();
+
 			}
 
+		});
+
+	}
+
+	private void renderEdges(final List<Statement> statements) {
+
+		renderDetails(new Callable<String>() {
+
 			@Override
-			public void mouseDragged(MouseEvent arg0) {
-				double width = viewer.getSize().width;
-				double height = viewer.getSize().height;
+			public String call() throws Exception {
+				StringBuilder text = new StringBuilder("<html><table>");
+
+				for (int iStatement = 0; iStatement < statements.size() && iStatement < MAXIMUM_DETAILS; iStatement++) {
+					Statement statement = statements.get(iStatement);
 
-				for (RDFNode node : layout.getGraph().getVertices()) {
+					if (Thread.interrupted()) {
+						throw new InterruptedException();
+					}
+
+					text.append("<tr><td width=\"5\" rowspan=\"4\" bgcolor=\"#D3EAF2\" color=\"#4A4A4A\" align=\"right\"><b><font size=\"1\">");
+					text.append("&nbsp;</b></font></td></tr>");
 
-					Point2D point = layout.transform(node);
+					text.append("<tr><td>");
+					text.append(statement.getSubject().toString());
+					text.append("</td></tr><tr><td><b>");
+					text.append(statement.getPredicate().toString());
+					text.append("</b></td></tr><tr><td>");
+					text.append(statement.getObject().toString());
+					text.append("</td></tr>");
 
-					width = Math.max(width, point.getX());
-					height = Math.max(height, point.getY());
+					text.append("<tr><td></td></tr>");
 
 				}
 
-				if (width > viewer.getSize().width || height > viewer.getSize().height) {
+				appendRemainder(text, statements.size());
 
-					layoutDecorator.setSize(new Dimension((int) width + 24, (int) height + 24));
+				text.append("</table></html>");
 
-				}
+				return text.toString();
 
 			}
 
@@ -936,6 +1138,16 @@ public class Controller extends JPanel {
 
 	}
 
+	private static void appendRemainder(StringBuilder text, int size) {
+
+		if (size > MAXIMUM_DETAILS) {
+			text.append("<tr><td></td><td><i>");
+			text.append(String.format("... and %,d more", size - MAXIMUM_DETAILS));
+			text.append("</i></td></tr>");
+		}
+
+	}
+
 	private void resetGraphContainer() {
 		JPanel panel = new JPanel();
 		panel.setBackground(new Color(255, 255, 255));
@@ -948,21 +1160,6 @@ public class Controller extends JPanel {
 
 	}
 
-	private void addNodes(String label, List<String> resources) {
-		DefaultMutableTreeNode node = new DefaultMutableTreeNode(label);
-
-		for (String resource : resources) {
-			DefaultMutableTreeNode child = new DefaultMutableTreeNode(resource);
-
-			graphTree.getTree().expandPath(new TreePath(child.getPath()));
-			node.add(child);
-
-		}
-
-		((DefaultMutableTreeNode) graphTree.getTree().getModel().getRoot()).add(node);
-
-	}
-
 	/**
 	 * Main Method
 	 *
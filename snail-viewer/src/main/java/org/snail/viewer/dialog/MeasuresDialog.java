@@ -0,0 +1,231 @@
+package org.snail.viewer.dialog;
+
+import static org.snail.viewer.util.WidgetUtils.createImageIcon;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Frame;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.prefs.Preferences;
+
+import javax.swing.ButtonGroup;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JRadioButton;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.border.EmptyBorder;
+
+import org.snail.viewer.widget.StandardDialog;
+
+/**
+ * Measures Dialog - chooses between exact and approximate (pivot sampled)
+ * distance measures
+ *
+ */
+@SuppressWarnings("serial")
+public class MeasuresDialog extends StandardDialog {
+	private static final int DEFAULT_PIVOTS = 256;
+
+	final JRadioButton exactButton;
+	final JRadioButton approximateButton;
+	final JSpinner pivots;
+
+	/**
+	 * Are the measures to be estimated?
+	 *
+	 * @return 'true' approximate, 'false' exact
+	 *
+	 */
+	public boolean isApproximate() {
+
+		return approximateButton.isSelected();
+
+	}
+
+	/**
+	 * Get the number of pivots to sample
+	 *
+	 * @return the sample size
+	 *
+	 */
+	public int getPivots() {
+
+		return (Integer) pivots.getValue();
+
+	}
+
+	public MeasuresDialog(final Frame frame, String title, int vertexCount) {
+		super(frame, title, false);
+
+		status = STATUS.CANCEL;
+
+		final Preferences preferences = Preferences.userRoot();
+
+		JPanel contentPanel = new JPanel(new GridBagLayout());
+
+		contentPanel.setPreferredSize(new Dimension(350, 120));
+		contentPanel.setBackground(Color.white);
+
+		contentPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
+
+		JLabel inputLable = new JLabel(String.format("Distance Measures - %,d vertices:", vertexCount));
+
+		inputLable.setForeground(Color.BLUE.darker().darker());
+
+		exactButton = new JRadioButton("Exact");
+		approximateButton = new JRadioButton("Approximate");
+
+		exactButton.setOpaque(false);
+		approximateButton.setOpaque(false);
+
+		ButtonGroup group = new ButtonGroup();
+
+		group.add(exactButton);
+		group.add(approximateButton);
+
+		if (preferences.getBoolean("snail-approximate", false)) {
+			approximateButton.setSelected(true);
+		} else {
+			exactButton.setSelected(true);
+		}
+
+		JLabel pivotsLabel = new JLabel("Pivots:");
+
+		pivots = new JSpinner(new SpinnerNumberModel(
+				Math.max(1, Math.min(preferences.getInt("snail-pivots", DEFAULT_PIVOTS), Math.max(1, vertexCount))), 1,
+				Math.max(1, vertexCount), 64));
+
+		pivots.setEnabled(approximateButton.isSelected());
+
+		ActionListener modeListener = new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+
+				pivots.setEnabled(approximateButton.isSelected());
+
+			}
+
+		};
+
+		exactButton.addActionListener(modeListener);
+		approximateButton.addActionListener(modeListener);
+
+		GridBagConstraints constraints = new GridBagConstraints();
+
+		constraints.fill = GridBagConstraints.HORIZONTAL;
+		constraints.gridx = 0;
+		constraints.gridy = 0;
+		constraints.gridwidth = 4;
+		constraints.insets = new Insets(5, 5, 5, 10);
+
+		contentPanel.add(inputLable, constraints);
+
+		constraints = new GridBagConstraints();
+		constraints.fill = GridBagConstraints.HORIZONTAL;
+		constraints.gridx = 0;
+		constraints.gridy = 1;
+		constraints.gridwidth = 4;
+		constraints.insets = new Insets(0, 5, 0, 5);
+
+		contentPanel.add(exactButton, constraints);
+
+		constraints = new GridBagConstraints();
+		constraints.fill = GridBagConstraints.HORIZONTAL;
+		constraints.gridx = 0;
+		constraints.gridy = 2;
+		constraints.gridwidth = 2;
+		constraints.insets = new Insets(0, 5, 0, 5);
+
+		contentPanel.add(approximateButton, constraints);
+
+		constraints = new GridBagConstraints();
+		constraints.fill = GridBagConstraints.HORIZONTAL;
+		constraints.gridx = 2;
+		constraints.gridy = 2;
+		constraints.insets = new Insets(0, 5, 0, 5);
+
+		contentPanel.add(pivotsLabel, constraints);
+
+		constraints = new GridBagConstraints();
+		constraints.fill = GridBagConstraints.HORIZONTAL;
+		constraints.gridx = 3;
+		constraints.gridy = 2;
+		constraints.weightx = 1.0;
+		constraints.insets = new Insets(0, 5, 0, 5);
+
+		contentPanel.add(pivots, constraints);
+
+		getContentPane().add(BorderLayout.NORTH, contentPanel);
+
+		JPanel buttonPanel = new JPanel(new GridBagLayout());
+
+		JButton runButton = new JButton("Run", createImageIcon("/images/ok-icon.png"));
+		JButton cancelButton = new JButton("Cancel", createImageIcon("/images/close-icon.png"));
+
+		runButton.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent event) {
+
+				preferences.putBoolean("snail-approximate", isApproximate());
+				preferences.putInt("snail-pivots", getPivots());
+
+				status = STATUS.OK;
+
+				dispose();
+
+			}
+
+		});
+
+		cancelButton.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+
+				dispose();
+
+			}
+
+		});
+
+		constraints = new GridBagConstraints();
+		constraints.fill = GridBagConstraints.HORIZONTAL;
+		constraints.gridwidth = 1;
+		constraints.gridx = 0;
+		constraints.gridy = 0;
+		constraints.insets = new Insets(5, 5, 5, 5);
+
+		buttonPanel.add(runButton, constraints);
+
+		constraints = new GridBagConstraints();
+		constraints.fill = GridBagConstraints.HORIZONTAL;
+		constraints.gridwidth = 1;
+		constraints.gridx = 1;
+		constraints.gridy = 0;
+		constraints.insets = new Insets(5, 5, 5, 5);
+
+		buttonPanel.add(cancelButton, constraints);
+
+		runButton.setPreferredSize(new Dimension(90, 30));
+		cancelButton.setPreferredSize(new Dimension(90, 30));
+
+		getContentPane().add(BorderLayout.SOUTH, buttonPanel);
+
+		pack();
+
+		setSize(350, 190);
+
+		setLocationRelativeTo(frame);
+
+	}
+
+}
@@ -0,0 +1,596 @@
+package org.snail.viewer.jung.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+
+/**
+ * All pairs (unweighted, directed) distance engine over a graph snapshot.
+ *
+ * Sources are processed 64 at a time with a bit parallel multi-source BFS:
+ * each vertex holds a 64 bit mask of the sources that have reached it, so one
+ * sweep over the successor rows advances 64 searches at once. Batches of
+ * sources are spread over a fork-join pool.
+ *
+ * For graphs too large for an exact run the measures can be estimated from a
+ * random sample of pivots (Eppstein and Wang): a BFS from each pivot over the
+ * predecessor rows gives the distance from every vertex to that pivot, and
+ * the average over the pivots estimates the vertex's average distance.
+ *
+ * A {@link Listener} is told as the measures of each batch of vertices
+ * become available, and a run can be cancelled from any thread.
+ *
+ */
+public class DistanceEngine {
+	static final int BATCH = Long.SIZE;
+
+	/**
+	 * The confidence of the reported error bound of an estimate
+	 */
+	public static final double CONFIDENCE = 0.95;
+
+	/**
+	 * Receives the measures as they are computed
+	 */
+	public interface Listener {
+
+		/**
+		 * Called (on a worker thread) once a batch of vertices is measured
+		 *
+		 * @param measures
+		 *            the measures being computed
+		 * @param ids
+		 *            holds the ids of the vertices measured
+		 * @param from
+		 *            the position of the first id
+		 * @param count
+		 *            the number of ids
+		 *
+		 */
+		void measured(DistanceMeasures measures, int[] ids, int from, int count);
+
+	}
+
+	private final ModelGraphSnapshot graph;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	private Listener listener;
+	private volatile boolean cancelled = false;
+
+	public DistanceEngine(ModelGraphSnapshot graph) {
+
+		this.graph = graph;
+
+	}
+
+	/**
+	 * Set the number of worker threads
+	 *
+	 * @param parallelism
+	 *            the number of threads (at least 1)
+	 *
+	 */
+	public void setParallelism(int parallelism) {
+
+		this.parallelism = Math.max(1, parallelism);
+
+	}
+
+	public int getParallelism() {
+
+		return parallelism;
+
+	}
+
+	public void setListener(Listener listener) {
+
+		this.listener = listener;
+
+	}
+
+	/**
+	 * Cancel the run in progress - the batches already started complete and
+	 * the run throws a {@link CancellationException}
+	 */
+	public void cancel() {
+
+		cancelled = true;
+
+	}
+
+	public boolean isCancelled() {
+
+		return cancelled;
+
+	}
+
+	/**
+	 * The per thread BFS work space
+	 */
+	static class Workspace {
+		final long[] seen;
+		final long[] visit;
+		final long[] next;
+		final int[] frontier;
+		final int[] touched;
+		final int[] visited;
+
+		final long[] sums = new long[BATCH];
+		final int[] reached = new int[BATCH];
+		final int[] levels = new int[BATCH];
+
+		final long[] vertexSums;
+		final int[] vertexCounts;
+		final int[] vertexLevels;
+
+		Workspace(int vertexCount, boolean targets) {
+			seen = new long[vertexCount];
+			visit = new long[vertexCount];
+			next = new long[vertexCount];
+			frontier = new int[vertexCount];
+			touched = new int[vertexCount];
+			visited = new int[vertexCount];
+
+			vertexSums = targets ? new long[vertexCount] : null;
+			vertexCounts = targets ? new int[vertexCount] : null;
+			vertexLevels = targets ? new int[vertexCount] : null;
+		}
+
+	}
+
+	/**
+	 * Run a BFS from up to 64 sources at once over a CSR adjacency
+	 *
+	 * @param offsets
+	 *            the adjacency row offsets
+	 * @param rows
+	 *            the adjacent vertex ids
+	 * @param sources
+	 *            the source vertex ids
+	 * @param from
+	 *            the first source to search from
+	 * @param count
+	 *            the number of sources (at most 64)
+	 * @param space
+	 *            the work space, on return {@code sums}, {@code reached} and
+	 *            {@code levels} hold the distance sum, the number of vertices
+	 *            reached and the eccentricity of each source; if the work
+	 *            space has per vertex totals the distances are added to the
+	 *            vertices reached instead
+	 *
+	 */
+	static void search(int[] offsets, int[] rows, int[] sources, int from, int count, Workspace space) {
+		long[] seen = space.seen;
+		long[] visit = space.visit;
+		long[] next = space.next;
+		int[] frontier = space.frontier;
+		int[] touched = space.touched;
+		int[] visited = space.visited;
+
+		Arrays.fill(space.sums, 0);
+		Arrays.fill(space.reached, 0);
+		Arrays.fill(space.levels, 0);
+
+		int frontierSize = 0;
+		int visitedSize = 0;
+
+		for (int iSource = 0; iSource < count; iSource++) {
+			int source = sources[from + iSource];
+
+			if (seen[source] == 0) {
+				frontier[frontierSize++] = source;
+				visited[visitedSize++] = source;
+			}
+
+			seen[source] |= 1L << iSource;
+			visit[source] |= 1L << iSource;
+
+		}
+
+		int level = 0;
+
+		while (frontierSize > 0) {
+			int touchedSize = 0;
+
+			level += 1;
+
+			for (int iFrontier = 0; iFrontier < frontierSize; iFrontier++) {
+				int vertex = frontier[iFrontier];
+				long bits = visit[vertex];
+
+				visit[vertex] = 0;
+
+				for (int iRow = offsets[vertex]; iRow < offsets[vertex + 1]; iRow++) {
+					int adjacent = rows[iRow];
+
+					if (next[adjacent] == 0) {
+						touched[touchedSize++] = adjacent;
+					}
+
+					next[adjacent] |= bits;
+
+				}
+
+			}
+
+			frontierSize = 0;
+
+			for (int iTouched = 0; iTouched < touchedSize; iTouched++) {
+				int vertex = touched[iTouched];
+				long reached = next[vertex] & ~seen[vertex];
+
+				next[vertex] = 0;
+
+				if (reached == 0) {
+					continue;
+				}
+
+				if (seen[vertex] == 0) {
+					visited[visitedSize++] = vertex;
+				}
+
+				seen[vertex] |= reached;
+				visit[vertex] = reached;
+				frontier[frontierSize++] = vertex;
+
+				if (space.vertexSums != null) {
+					int lanes = Long.bitCount(reached);
+
+					space.vertexSums[vertex] += (long) level * lanes;
+					space.vertexCounts[vertex] += lanes;
+					space.vertexLevels[vertex] = Math.max(space.vertexLevels[vertex], level);
+
+					continue;
+
+				}
+
+				while (reached != 0) {
+					int lane = Long.numberOfTrailingZeros(reached);
+
+					reached &= reached - 1;
+
+					space.sums[lane] += level;
+					space.reached[lane] += 1;
+					space.levels[lane] = level;
+
+				}
+
+			}
+
+		}
+
+		for (int iVisited = 0; iVisited < visitedSize; iVisited++) {
+			seen[visited[iVisited]] = 0;
+		}
+
+	}
+
+	/**
+	 * Computes the measures for a range of source batches
+	 */
+	@SuppressWarnings("serial")
+	class Sweep extends RecursiveAction {
+		final int[] sources;
+		final int fromBatch;
+		final int toBatch;
+		final ThreadLocal<Workspace> workspaces;
+		final DistanceMeasures measures;
+		final double[] averages;
+		final int[] eccentricities;
+		final int[] reachable;
+
+		Sweep(int[] sources, int fromBatch, int toBatch, ThreadLocal<Workspace> workspaces, DistanceMeasures measures,
+				double[] averages, int[] eccentricities, int[] reachable) {
+			this.sources = sources;
+			this.fromBatch = fromBatch;
+			this.toBatch = toBatch;
+			this.workspaces = workspaces;
+			this.measures = measures;
+			this.averages = averages;
+			this.eccentricities = eccentricities;
+			this.reachable = reachable;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (cancelled) {
+				return;
+			}
+
+			if (toBatch - fromBatch > 1) {
+				int middle = (fromBatch + toBatch) >>> 1;
+
+				invokeAll(
+						new Sweep(sources, fromBatch, middle, workspaces, measures, averages, eccentricities,
+								reachable),
+						new Sweep(sources, middle, toBatch, workspaces, measures, averages, eccentricities, reachable));
+
+				return;
+
+			}
+
+			int from = fromBatch * BATCH;
+			int count = Math.min(BATCH, sources.length - from);
+			Workspace space = workspaces.get();
+
+			search(graph.getSuccessorOffsets(), graph.getSuccessorIds(), sources, from, count, space);
+
+			for (int iLane = 0; iLane < count; iLane++) {
+				int source = sources[from + iLane];
+
+				reachable[source] = space.reached[iLane];
+				eccentricities[source] = space.levels[iLane];
+				averages[source] = (space.reached[iLane] == 0) ? Double.NaN
+						: (double) space.sums[iLane] / space.reached[iLane];
+
+			}
+
+			if (listener != null) {
+				listener.measured(measures, sources, from, count);
+			}
+
+		}
+
+	}
+
+	/**
+	 * Compute the exact distance measures of every vertex
+	 *
+	 * @return the distance measures
+	 *
+	 * @throws CancellationException
+	 *             if the run is cancelled
+	 *
+	 */
+	public DistanceMeasures compute() {
+		final int vertexCount = graph.getVertexCount();
+
+		int[] sources = new int[vertexCount];
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+			sources[iVertex] = iVertex;
+		}
+
+		double[] averages = new double[vertexCount];
+		int[] eccentricities = new int[vertexCount];
+		int[] reachable = new int[vertexCount];
+
+		ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+
+			@Override
+			protected Workspace initialValue() {
+
+				return new Workspace(vertexCount, false);
+
+			}
+
+		};
+
+		DistanceMeasures measures = new DistanceMeasures(graph, averages, eccentricities, reachable);
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+		try {
+
+			pool.invoke(new Sweep(sources, 0, (vertexCount + BATCH - 1) / BATCH, workspaces, measures, averages,
+					eccentricities, reachable));
+
+		} finally {
+
+			pool.shutdown();
+
+		}
+
+		if (cancelled) {
+			throw new CancellationException();
+		}
+
+		return measures;
+
+	}
+
+
+	/**
+	 * Runs the pivot searches for a range of pivot batches
+	 */
+	@SuppressWarnings("serial")
+	class Sampling extends RecursiveAction {
+		final int[] pivots;
+		final int fromBatch;
+		final int toBatch;
+		final ThreadLocal<Workspace> workspaces;
+
+		Sampling(int[] pivots, int fromBatch, int toBatch, ThreadLocal<Workspace> workspaces) {
+			this.pivots = pivots;
+			this.fromBatch = fromBatch;
+			this.toBatch = toBatch;
+			this.workspaces = workspaces;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (cancelled) {
+				return;
+			}
+
+			if (toBatch - fromBatch > 1) {
+				int middle = (fromBatch + toBatch) >>> 1;
+
+				invokeAll(new Sampling(pivots, fromBatch, middle, workspaces),
+						new Sampling(pivots, middle, toBatch, workspaces));
+
+				return;
+
+			}
+
+			int from = fromBatch * BATCH;
+
+			search(graph.getPredecessorOffsets(), graph.getPredecessorIds(), pivots, from,
+					Math.min(BATCH, pivots.length - from), workspaces.get());
+
+		}
+
+	}
+
+	/**
+	 * Estimate the distance measures of every vertex from a random sample of
+	 * pivots
+	 *
+	 * @param samples
+	 *            the number of pivots, if it covers the graph the exact
+	 *            measures are computed
+	 *
+	 * @return the estimated distance measures
+	 *
+	 */
+	public DistanceMeasures estimate(int samples) {
+
+		return estimate(samples, new Random());
+
+	}
+
+	/**
+	 * Estimate the distance measures of every vertex from a random sample of
+	 * pivots
+	 *
+	 * The average distance of a vertex is the mean of its distances to the
+	 * k pivots it reaches - a uniform sample of the vertices it reaches - so
+	 * by Hoeffding's inequality its error is at most
+	 * D&middot;sqrt(ln(2n/&delta;)/2k), for all the vertices at once at the
+	 * {@link #CONFIDENCE} level, where D is the longest distance found. The
+	 * eccentricity is the longest distance to a pivot (a lower bound) and the
+	 * number of reachable vertices is scaled up from the pivots reached.
+	 *
+	 * @param samples
+	 *            the number of pivots, if it covers the graph the exact
+	 *            measures are computed
+	 * @param random
+	 *            the source of the pivot sample
+	 *
+	 * @return the estimated distance measures
+	 *
+	 * @throws CancellationException
+	 *             if the run is cancelled
+	 *
+	 */
+	public DistanceMeasures estimate(int samples, Random random) {
+		final int vertexCount = graph.getVertexCount();
+
+		if (samples >= vertexCount) {
+			return compute();
+		}
+
+		samples = Math.max(1, samples);
+
+		int[] order = new int[vertexCount];
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+			order[iVertex] = iVertex;
+		}
+
+		for (int iSample = 0; iSample < samples; iSample++) {
+			int pick = iSample + random.nextInt(vertexCount - iSample);
+			int swap = order[iSample];
+
+			order[iSample] = order[pick];
+			order[pick] = swap;
+
+		}
+
+		int[] pivots = Arrays.copyOf(order, samples);
+
+		final List<Workspace> spaces = Collections.synchronizedList(new ArrayList<Workspace>());
+
+		ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+
+			@Override
+			protected Workspace initialValue() {
+				Workspace space = new Workspace(vertexCount, true);
+
+				spaces.add(space);
+
+				return space;
+
+			}
+
+		};
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+		try {
+
+			pool.invoke(new Sampling(pivots, 0, (samples + BATCH - 1) / BATCH, workspaces));
+
+		} finally {
+
+			pool.shutdown();
+
+		}
+
+		if (cancelled) {
+			throw new CancellationException();
+		}
+
+		long[] sums = new long[vertexCount];
+		int[] counts = new int[vertexCount];
+		int[] eccentricities = new int[vertexCount];
+
+		for (Workspace space : spaces) {
+
+			for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+				sums[iVertex] += space.vertexSums[iVertex];
+				counts[iVertex] += space.vertexCounts[iVertex];
+				eccentricities[iVertex] = Math.max(eccentricities[iVertex], space.vertexLevels[iVertex]);
+			}
+
+		}
+
+		boolean[] pivot = new boolean[vertexCount];
+
+		for (int id : pivots) {
+			pivot[id] = true;
+		}
+
+		double[] averages = new double[vertexCount];
+		int[] reachable = new int[vertexCount];
+		int diameter = 0;
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+			int others = pivot[iVertex] ? samples - 1 : samples;
+
+			averages[iVertex] = (counts[iVertex] == 0) ? Double.NaN : (double) sums[iVertex] / counts[iVertex];
+			reachable[iVertex] = (others == 0) ? 0
+					: (int) Math.round((double) counts[iVertex] * (vertexCount - 1) / others);
+			diameter = Math.max(diameter, eccentricities[iVertex]);
+
+		}
+
+		double[] errorBounds = new double[vertexCount];
+		double deviation = Math.log(2.0 * vertexCount / (1 - CONFIDENCE)) / 2.0;
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+			errorBounds[iVertex] = (counts[iVertex] == 0) ? Double.NaN
+					: diameter * Math.sqrt(deviation / counts[iVertex]);
+		}
+
+		DistanceMeasures measures = new DistanceMeasures(graph, averages, eccentricities, reachable, samples,
+				errorBounds);
+
+		if (listener != null) {
+			listener.measured(measures, order, 0, vertexCount);
+		}
+
+		return measures;
+
+	}
+
+}
@@ -0,0 +1,153 @@
+package org.snail.viewer.jung.algorithms;
+
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+
+/**
+ * Per vertex distance measures of a graph snapshot, indexed by vertex id.
+ *
+ * Distances follow the direction of the edges (subject to object) and only
+ * the vertices reachable from a vertex take part in its measures, as in
+ * JUNG's {@code DistanceStatistics}.
+ *
+ * Measures estimated from a sample of pivots report the sample size and a
+ * per vertex bound on the error of the average distances.
+ *
+ */
+public class DistanceMeasures {
+	private final ModelGraphSnapshot graph;
+
+	private final double[] averages;
+	private final int[] eccentricities;
+	private final int[] reachable;
+
+	private final int samples;
+	private final double[] errorBounds;
+
+	DistanceMeasures(ModelGraphSnapshot graph, double[] averages, int[] eccentricities, int[] reachable) {
+
+		this(graph, averages, eccentricities, reachable, 0, null);
+
+	}
+
+	DistanceMeasures(ModelGraphSnapshot graph, double[] averages, int[] eccentricities, int[] reachable, int samples,
+			double[] errorBounds) {
+
+		this.graph = graph;
+		this.averages = averages;
+		this.eccentricities = eccentricities;
+		this.reachable = reachable;
+		this.samples = samples;
+		this.errorBounds = errorBounds;
+
+	}
+
+	/**
+	 * Are the measures estimated from a sample of pivots?
+	 *
+	 * @return 'true' if estimated, 'false' if exact
+	 *
+	 */
+	public boolean isApproximate() {
+
+		return samples > 0;
+
+	}
+
+	/**
+	 * Get the number of pivots the measures were estimated from
+	 *
+	 * @return the sample size, 0 for exact measures
+	 *
+	 */
+	public int getSamples() {
+
+		return samples;
+
+	}
+
+	/**
+	 * Get the bound on the error of a vertex's estimated average distance,
+	 * which holds for every vertex at once at
+	 * {@link DistanceEngine#CONFIDENCE}
+	 *
+	 * @param id
+	 *            the vertex's id
+	 *
+	 * @return the error bound, 0 for exact measures, NaN if the vertex
+	 *         reaches no pivot
+	 *
+	 */
+	public double getErrorBound(int id) {
+
+		return (errorBounds == null) ? 0 : errorBounds[id];
+
+	}
+
+	public ModelGraphSnapshot getGraph() {
+
+		return graph;
+
+	}
+
+	/**
+	 * Get the average distance from a vertex to the vertices it reaches
+	 *
+	 * @param id
+	 *            the vertex's id
+	 *
+	 * @return the average distance, NaN if the vertex reaches no other vertex
+	 *
+	 */
+	public double getAverageDistance(int id) {
+
+		return averages[id];
+
+	}
+
+	/**
+	 * Get the closeness of a vertex - the reciprocal of its average distance,
+	 * as JUNG's {@code DistanceStatistics.averageDistances} reports it
+	 *
+	 * @param id
+	 *            the vertex's id
+	 *
+	 * @return the closeness, NaN if the vertex reaches no other vertex
+	 *
+	 */
+	public double getCloseness(int id) {
+
+		return 1.0 / averages[id];
+
+	}
+
+	/**
+	 * Get the eccentricity of a vertex - the longest of its shortest paths
+	 *
+	 * @param id
+	 *            the vertex's id
+	 *
+	 * @return the eccentricity, 0 if the vertex reaches no other vertex
+	 *
+	 */
+	public int getEccentricity(int id) {
+
+		return eccentricities[id];
+
+	}
+
+	/**
+	 * Get the number of other vertices reachable from a vertex
+	 *
+	 * @param id
+	 *            the vertex's id
+	 *
+	 * @return the number of reachable vertices
+	 *
+	 */
+	public int getReachable(int id) {
+
+		return reachable[id];
+
+	}
+
+}
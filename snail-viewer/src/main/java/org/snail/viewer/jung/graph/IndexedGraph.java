@@ -0,0 +1,33 @@
+package org.snail.viewer.jung.graph;
+
+/**
+ * A graph whose vertices are numbered 0..n-1 in the order of its
+ * {@code getVertices()}, so layouts can keep their state in arrays by vertex
+ * id instead of building their own vertex maps.
+ *
+ */
+public interface IndexedGraph<V> {
+
+	/**
+	 * Get the id of a vertex
+	 *
+	 * @param vertex
+	 *            the vertex
+	 *
+	 * @return the vertex's id or -1 if the vertex is not part of the graph
+	 *
+	 */
+	int getId(V vertex);
+
+	/**
+	 * Get a vertex by id
+	 *
+	 * @param id
+	 *            the vertex's id
+	 *
+	 * @return the vertex
+	 *
+	 */
+	V getVertex(int id);
+
+}
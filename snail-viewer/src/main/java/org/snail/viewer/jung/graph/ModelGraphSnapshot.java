@@ -0,0 +1,1173 @@
+package org.snail.viewer.jung.graph;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.snail.viewer.util.BufferUtils;
+
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * An immutable snapshot of a {@link Model} viewed as a directed graph.
+ *
+ * Every {@link RDFNode} is dictionary encoded to an integer id once, and the
+ * edges, successors and predecessors of each vertex are kept in compressed
+ * sparse row (CSR) arrays. All of the {@code Graph} queries are answered from
+ * those arrays, no Jena query is issued after the snapshot has been built.
+ *
+ * The primitive arrays returned by the {@code get...Offsets()} and
+ * {@code get...Ids()} methods are the internal arrays and must not be
+ * modified. For a vertex {@code v} its row is the range
+ * {@code offsets[v] .. offsets[v + 1]} of the corresponding id array.
+ *
+ * A snapshot can be written out and read back with its terms, edges and CSR
+ * arrays, so reading rebuilds the statements without parsing or indexing:
+ *
+ * <pre>
+ * int vertex count, term per vertex
+ * int property count, string per property
+ * int[] sources, int[] targets, int[] predicates
+ * int[] offsets and ids of the out edges, in edges, successors, predecessors
+ *       and property edges
+ * </pre>
+ *
+ * A term is a kind byte followed by the URI, the blank node label or the
+ * literal's lexical form, language and datatype URI ("" if none); a string
+ * and an int[] are their length followed by the UTF-8 bytes or the ints.
+ *
+ */
+public class ModelGraphSnapshot implements DirectedGraph<RDFNode, Statement>, IndexedGraph<RDFNode> {
+	private static final byte URI = 0;
+	private static final byte BLANK = 1;
+	private static final byte LITERAL = 2;
+
+	private final RDFNode[] vertices;
+	private final Statement[] edges;
+	private final Property[] properties;
+	private final Map<RDFNode, Integer> ids;
+	private final Map<String, Integer> propertyIds;
+	private Map<String, Integer> labels = null;
+
+	private final int[] sources;
+	private final int[] targets;
+
+	private final int[] outOffsets;
+	private final int[] outEdges;
+	private final int[] inOffsets;
+	private final int[] inEdges;
+
+	private final int[] successorOffsets;
+	private final int[] successors;
+	private final int[] predecessorOffsets;
+	private final int[] predecessors;
+
+	private final int[] propertyOffsets;
+	private final int[] propertyEdges;
+
+	/**
+	 * Incrementally dictionary encodes statements, for example while a model
+	 * is being parsed, and then builds the snapshot
+	 */
+	public static class Builder {
+		private final Map<RDFNode, Integer> ids = new HashMap<RDFNode, Integer>();
+		private final Map<String, Integer> propertyIds = new HashMap<String, Integer>();
+
+		private RDFNode[] vertices = new RDFNode[16];
+		private Property[] properties = new Property[16];
+		private Statement[] edges;
+		private int[] sources;
+		private int[] targets;
+		private int[] predicates;
+
+		private int vertexCount = 0;
+		private int propertyCount = 0;
+		private int edgeCount = 0;
+
+		public Builder() {
+
+			this(16);
+
+		}
+
+		/**
+		 * Create a Builder
+		 *
+		 * @param capacity
+		 *            the expected number of statements
+		 *
+		 */
+		public Builder(long capacity) {
+			int size = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, capacity));
+
+			edges = new Statement[size];
+			sources = new int[size];
+			targets = new int[size];
+			predicates = new int[size];
+
+		}
+
+		private int encode(RDFNode node) {
+			Integer id = ids.get(node);
+
+			if (id != null) {
+				return id;
+			}
+
+			if (vertexCount == vertices.length) {
+				vertices = Arrays.copyOf(vertices, vertexCount * 2);
+			}
+
+			ids.put(node, vertexCount);
+			vertices[vertexCount] = node;
+
+			return vertexCount++;
+
+		}
+
+		private int encode(Property property) {
+			Integer id = propertyIds.get(property.toString());
+
+			if (id != null) {
+				return id;
+			}
+
+			if (propertyCount == properties.length) {
+				properties = Arrays.copyOf(properties, propertyCount * 2);
+			}
+
+			propertyIds.put(property.toString(), propertyCount);
+			properties[propertyCount] = property;
+
+			return propertyCount++;
+
+		}
+
+		/**
+		 * Add a statement
+		 *
+		 * @param statement
+		 *            the statement to add
+		 *
+		 */
+		public void add(Statement statement) {
+
+			if (edgeCount == edges.length) {
+				edges = Arrays.copyOf(edges, edgeCount * 2);
+				sources = Arrays.copyOf(sources, edgeCount * 2);
+				targets = Arrays.copyOf(targets, edgeCount * 2);
+				predicates = Arrays.copyOf(predicates, edgeCount * 2);
+			}
+
+			edges[edgeCount] = statement;
+			sources[edgeCount] = encode(statement.getSubject());
+			targets[edgeCount] = encode(statement.getObject());
+			predicates[edgeCount] = encode(statement.getPredicate());
+
+			edgeCount += 1;
+
+		}
+
+		public int getVertexCount() {
+
+			return vertexCount;
+
+		}
+
+		public int getEdgeCount() {
+
+			return edgeCount;
+
+		}
+
+		/**
+		 * Build the snapshot, the builder must not be used afterwards
+		 *
+		 * @return the snapshot
+		 *
+		 */
+		public ModelGraphSnapshot build() {
+
+			return new ModelGraphSnapshot(ids, Arrays.copyOf(vertices, vertexCount), propertyIds,
+					Arrays.copyOf(properties, propertyCount), Arrays.copyOf(edges, edgeCount),
+					Arrays.copyOf(sources, edgeCount), Arrays.copyOf(targets, edgeCount),
+					Arrays.copyOf(predicates, edgeCount));
+
+		}
+
+	}
+
+	/**
+	 * Create a snapshot of a Model
+	 *
+	 * @param model
+	 *            the model to encode
+	 *
+	 * @return the snapshot
+	 *
+	 */
+	public static ModelGraphSnapshot create(Model model) {
+		Builder builder = new Builder(model.size());
+		StmtIterator iterator = model.listStatements();
+
+		try {
+
+			while (iterator.hasNext()) {
+				builder.add(iterator.nextStatement());
+			}
+
+		} finally {
+
+			iterator.close();
+
+		}
+
+		return builder.build();
+
+	}
+
+	private ModelGraphSnapshot(Map<RDFNode, Integer> ids, RDFNode[] vertices, Map<String, Integer> propertyIds,
+			Property[] properties, Statement[] edges, int[] sources, int[] targets, int[] predicates) {
+		int vertexCount = vertices.length;
+		int edgeCount = edges.length;
+
+		this.ids = ids;
+		this.vertices = vertices;
+		this.propertyIds = propertyIds;
+		this.properties = properties;
+		this.edges = edges;
+		this.sources = sources;
+		this.targets = targets;
+
+		outOffsets = new int[vertexCount + 1];
+		outEdges = new int[edgeCount];
+		inOffsets = new int[vertexCount + 1];
+		inEdges = new int[edgeCount];
+
+		index(sources, outOffsets, outEdges);
+		index(targets, inOffsets, inEdges);
+
+		successorOffsets = new int[vertexCount + 1];
+		successors = adjacent(outOffsets, outEdges, targets, successorOffsets);
+		predecessorOffsets = new int[vertexCount + 1];
+		predecessors = adjacent(inOffsets, inEdges, sources, predecessorOffsets);
+
+		propertyOffsets = new int[properties.length + 1];
+		propertyEdges = new int[edgeCount];
+
+		index(predicates, propertyOffsets, propertyEdges);
+
+	}
+
+	private ModelGraphSnapshot(Map<RDFNode, Integer> ids, RDFNode[] vertices, Map<String, Integer> propertyIds,
+			Property[] properties, Statement[] edges, int[] sources, int[] targets, int[][] rows) {
+
+		this.ids = ids;
+		this.vertices = vertices;
+		this.propertyIds = propertyIds;
+		this.properties = properties;
+		this.edges = edges;
+		this.sources = sources;
+		this.targets = targets;
+
+		outOffsets = rows[0];
+		outEdges = rows[1];
+		inOffsets = rows[2];
+		inEdges = rows[3];
+		successorOffsets = rows[4];
+		successors = rows[5];
+		predecessorOffsets = rows[6];
+		predecessors = rows[7];
+		propertyOffsets = rows[8];
+		propertyEdges = rows[9];
+
+	}
+
+	/**
+	 * Write the snapshot
+	 *
+	 * @param output
+	 *            the stream
+	 *
+	 * @throws IOException
+	 *             thrown if the snapshot could not be written
+	 *
+	 */
+	public void write(DataOutputStream output) throws IOException {
+
+		output.writeInt(vertices.length);
+
+		for (RDFNode vertex : vertices) {
+			writeTerm(output, vertex.asNode());
+		}
+
+		output.writeInt(properties.length);
+
+		for (Property property : properties) {
+			BufferUtils.writeString(output, property.toString());
+		}
+
+		int[] predicates = new int[edges.length];
+
+		for (int iProperty = 0; iProperty < properties.length; iProperty++) {
+
+			for (int iEdge = propertyOffsets[iProperty]; iEdge < propertyOffsets[iProperty + 1]; iEdge++) {
+				predicates[propertyEdges[iEdge]] = iProperty;
+			}
+
+		}
+
+		BufferUtils.writeInts(output, sources);
+		BufferUtils.writeInts(output, targets);
+		BufferUtils.writeInts(output, predicates);
+
+		for (int[] row : new int[][] { outOffsets, outEdges, inOffsets, inEdges, successorOffsets, successors,
+				predecessorOffsets, predecessors, propertyOffsets, propertyEdges }) {
+			BufferUtils.writeInts(output, row);
+		}
+
+	}
+
+	/**
+	 * Read a snapshot, adding its statements to a model
+	 *
+	 * @param buffer
+	 *            the buffer, positioned at the snapshot
+	 * @param model
+	 *            the model receiving the statements
+	 *
+	 * @return the snapshot
+	 *
+	 */
+	public static ModelGraphSnapshot read(ByteBuffer buffer, Model model) {
+		RDFNode[] vertices = new RDFNode[buffer.getInt()];
+		Map<RDFNode, Integer> ids = new HashMap<RDFNode, Integer>(vertices.length * 2);
+
+		for (int iVertex = 0; iVertex < vertices.length; iVertex++) {
+			vertices[iVertex] = model.asRDFNode(readTerm(buffer));
+			ids.put(vertices[iVertex], iVertex);
+		}
+
+		Property[] properties = new Property[buffer.getInt()];
+		Map<String, Integer> propertyIds = new HashMap<String, Integer>(properties.length * 2);
+
+		for (int iProperty = 0; iProperty < properties.length; iProperty++) {
+			properties[iProperty] = model.createProperty(BufferUtils.readString(buffer));
+			propertyIds.put(properties[iProperty].toString(), iProperty);
+		}
+
+		int[] sources = BufferUtils.readInts(buffer);
+		int[] targets = BufferUtils.readInts(buffer);
+		int[] predicates = BufferUtils.readInts(buffer);
+
+		Statement[] edges = new Statement[sources.length];
+		Graph graph = model.getGraph();
+
+		for (int iEdge = 0; iEdge < edges.length; iEdge++) {
+			edges[iEdge] = model.createStatement(vertices[sources[iEdge]].asResource(), properties[predicates[iEdge]],
+					vertices[targets[iEdge]]);
+			graph.add(edges[iEdge].asTriple());
+		}
+
+		int[][] rows = new int[10][];
+
+		for (int iRow = 0; iRow < rows.length; iRow++) {
+			rows[iRow] = BufferUtils.readInts(buffer);
+		}
+
+		return new ModelGraphSnapshot(ids, vertices, propertyIds, properties, edges, sources, targets, rows);
+
+	}
+
+	private static void writeTerm(DataOutputStream output, Node node) throws IOException {
+
+		if (node.isURI()) {
+			output.writeByte(URI);
+			BufferUtils.writeString(output, node.getURI());
+		} else if (node.isBlank()) {
+			output.writeByte(BLANK);
+			BufferUtils.writeString(output, node.getBlankNodeLabel());
+		} else {
+			String datatype = node.getLiteralDatatypeURI();
+
+			output.writeByte(LITERAL);
+			BufferUtils.writeString(output, node.getLiteralLexicalForm());
+			BufferUtils.writeString(output, node.getLiteralLanguage());
+			BufferUtils.writeString(output, (datatype == null) ? "" : datatype);
+		}
+
+	}
+
+	private static Node readTerm(ByteBuffer buffer) {
+		byte kind = buffer.get();
+
+		if (kind == URI) {
+			return NodeFactory.createURI(BufferUtils.readString(buffer));
+		}
+
+		if (kind == BLANK) {
+			return NodeFactory.createBlankNode(BufferUtils.readString(buffer));
+		}
+
+		if (kind != LITERAL) {
+			throw new IllegalArgumentException("Unknown term kind " + kind);
+		}
+
+		String lexicalForm = BufferUtils.readString(buffer);
+		String language = BufferUtils.readString(buffer);
+		String datatype = BufferUtils.readString(buffer);
+
+		if (!language.isEmpty() || datatype.isEmpty()) {
+			return NodeFactory.createLiteral(lexicalForm, language);
+		}
+
+		return NodeFactory.createLiteral(lexicalForm, TypeMapper.getInstance().getSafeTypeByName(datatype));
+
+	}
+
+	/**
+	 * Build a CSR index of the edges keyed on one of their end points
+	 *
+	 * @param keys
+	 *            the end point of each edge
+	 * @param offsets
+	 *            the row offsets to fill (vertex count + 1)
+	 * @param rows
+	 *            the edge ids to fill (edge count)
+	 *
+	 */
+	private static void index(int[] keys, int[] offsets, int[] rows) {
+
+		for (int key : keys) {
+			offsets[key + 1] += 1;
+		}
+
+		for (int iVertex = 0; iVertex < offsets.length - 1; iVertex++) {
+			offsets[iVertex + 1] += offsets[iVertex];
+		}
+
+		int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+
+		for (int iEdge = 0; iEdge < keys.length; iEdge++) {
+			rows[next[keys[iEdge]]++] = iEdge;
+		}
+
+	}
+
+	/**
+	 * Build a CSR index of the distinct vertices adjacent to each vertex, each
+	 * row is sorted by vertex id
+	 *
+	 * @param edgeOffsets
+	 *            the edge row offsets
+	 * @param edgeRows
+	 *            the edge ids
+	 * @param ends
+	 *            the opposite end point of each edge
+	 * @param offsets
+	 *            the row offsets to fill (vertex count + 1)
+	 *
+	 * @return the adjacent vertex ids
+	 *
+	 */
+	private static int[] adjacent(int[] edgeOffsets, int[] edgeRows, int[] ends, int[] offsets) {
+		int[] rows = new int[edgeRows.length];
+		int size = 0;
+
+		for (int iVertex = 0; iVertex < offsets.length - 1; iVertex++) {
+			int start = size;
+
+			for (int iEdge = edgeOffsets[iVertex]; iEdge < edgeOffsets[iVertex + 1]; iEdge++) {
+				rows[size++] = ends[edgeRows[iEdge]];
+			}
+
+			Arrays.sort(rows, start, size);
+
+			int distinct = start;
+
+			for (int iRow = start; iRow < size; iRow++) {
+
+				if (iRow == start || rows[iRow] != rows[distinct - 1]) {
+					rows[distinct++] = rows[iRow];
+				}
+
+			}
+
+			size = distinct;
+			offsets[iVertex + 1] = size;
+
+		}
+
+		return Arrays.copyOf(rows, size);
+
+	}
+
+	/**
+	 * Get the id of a vertex
+	 *
+	 * @param vertex
+	 *            the vertex
+	 *
+	 * @return the vertex's id or -1 if the vertex is not part of the snapshot
+	 *
+	 */
+	public int getId(RDFNode vertex) {
+		Integer id = ids.get(vertex);
+
+		return (id == null) ? -1 : id;
+
+	}
+
+	/**
+	 * Get a vertex by id
+	 *
+	 * @param id
+	 *            the vertex's id
+	 *
+	 * @return the vertex
+	 *
+	 */
+	public RDFNode getVertex(int id) {
+
+		return vertices[id];
+
+	}
+
+	/**
+	 * Get an edge by id
+	 *
+	 * @param id
+	 *            the edge's id
+	 *
+	 * @return the edge
+	 *
+	 */
+	public Statement getEdge(int id) {
+
+		return edges[id];
+
+	}
+
+	/**
+	 * Get the id of the source (subject) of an edge
+	 *
+	 * @param edge
+	 *            the edge's id
+	 *
+	 * @return the source's vertex id
+	 *
+	 */
+	public int getSourceId(int edge) {
+
+		return sources[edge];
+
+	}
+
+	/**
+	 * Get the id of the destination (object) of an edge
+	 *
+	 * @param edge
+	 *            the edge's id
+	 *
+	 * @return the destination's vertex id
+	 *
+	 */
+	public int getDestId(int edge) {
+
+		return targets[edge];
+
+	}
+
+	/**
+	 * Find a vertex by its label (the {@code toString()} of the node, for a
+	 * resource its URI); the label lookup table is built on first use
+	 *
+	 * @param label
+	 *            the vertex's label
+	 *
+	 * @return the vertex's id or -1 if there is no such vertex
+	 *
+	 */
+	public synchronized int findVertex(String label) {
+
+		if (labels == null) {
+			labels = new HashMap<String, Integer>(vertices.length * 2);
+
+			for (int iVertex = 0; iVertex < vertices.length; iVertex++) {
+				labels.put(vertices[iVertex].toString(), iVertex);
+			}
+
+		}
+
+		Integer id = labels.get(label);
+
+		return (id == null) ? -1 : id;
+
+	}
+
+	/**
+	 * Get the edges (statements) that use a predicate
+	 *
+	 * @param predicate
+	 *            the predicate's URI
+	 *
+	 * @return the edges, empty if the predicate is not used
+	 *
+	 */
+	public Collection<Statement> getEdges(String predicate) {
+		Integer id = propertyIds.get(predicate);
+
+		return (id == null) ? Collections.<Statement> emptyList()
+				: new EdgeRow(propertyEdges, propertyOffsets[id], propertyOffsets[id + 1]);
+
+	}
+
+	/**
+	 * Get the id of a predicate
+	 *
+	 * @param predicate
+	 *            the predicate's URI
+	 *
+	 * @return the predicate's id or -1 if the predicate is not used
+	 *
+	 */
+	public int getPropertyId(String predicate) {
+		Integer id = propertyIds.get(predicate);
+
+		return (id == null) ? -1 : id;
+
+	}
+
+	public int[] getPropertyEdgeOffsets() {
+
+		return propertyOffsets;
+
+	}
+
+	public int[] getPropertyEdgeIds() {
+
+		return propertyEdges;
+
+	}
+
+	public int getPropertyCount() {
+
+		return properties.length;
+
+	}
+
+	public Property getProperty(int id) {
+
+		return properties[id];
+
+	}
+
+	public int[] getOutEdgeOffsets() {
+
+		return outOffsets;
+
+	}
+
+	public int[] getOutEdgeIds() {
+
+		return outEdges;
+
+	}
+
+	public int[] getInEdgeOffsets() {
+
+		return inOffsets;
+
+	}
+
+	public int[] getInEdgeIds() {
+
+		return inEdges;
+
+	}
+
+	public int[] getSuccessorOffsets() {
+
+		return successorOffsets;
+
+	}
+
+	public int[] getSuccessorIds() {
+
+		return successors;
+
+	}
+
+	public int[] getPredecessorOffsets() {
+
+		return predecessorOffsets;
+
+	}
+
+	public int[] getPredecessorIds() {
+
+		return predecessors;
+
+	}
+
+	/**
+	 * A read only view of a row of edge ids
+	 */
+	private class EdgeRow extends AbstractList<Statement> implements RandomAccess {
+		final int[] rows;
+		final int start;
+		final int end;
+
+		EdgeRow(int[] rows, int start, int end) {
+			this.rows = rows;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Statement get(int index) {
+
+			return edges[rows[start + index]];
+
+		}
+
+		@Override
+		public int size() {
+
+			return end - start;
+
+		}
+
+	}
+
+	/**
+	 * A read only view of a row of vertex ids
+	 */
+	private class VertexRow extends AbstractList<RDFNode> implements RandomAccess {
+		final int[] rows;
+		final int start;
+		final int end;
+
+		VertexRow(int[] rows, int start, int end) {
+			this.rows = rows;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public RDFNode get(int index) {
+
+			return vertices[rows[start + index]];
+
+		}
+
+		@Override
+		public int size() {
+
+			return end - start;
+
+		}
+
+	}
+
+	private static boolean contains(int[] offsets, int[] rows, int vertex, int adjacent) {
+
+		return Arrays.binarySearch(rows, offsets[vertex], offsets[vertex + 1], adjacent) >= 0;
+
+	}
+
+	/**
+	 * Merge the (sorted) successors and predecessors of a vertex
+	 *
+	 * @param id
+	 *            the vertex's id
+	 *
+	 * @return the distinct neighbour ids
+	 *
+	 */
+	private int[] neighbors(int id) {
+		int iSuccessor = successorOffsets[id];
+		int iPredecessor = predecessorOffsets[id];
+		int[] merged = new int[(successorOffsets[id + 1] - iSuccessor) + (predecessorOffsets[id + 1] - iPredecessor)];
+		int size = 0;
+
+		while (iSuccessor < successorOffsets[id + 1] || iPredecessor < predecessorOffsets[id + 1]) {
+			int next;
+
+			if (iPredecessor == predecessorOffsets[id + 1]) {
+				next = successors[iSuccessor++];
+			} else if (iSuccessor == successorOffsets[id + 1]) {
+				next = predecessors[iPredecessor++];
+			} else if (successors[iSuccessor] <= predecessors[iPredecessor]) {
+				next = successors[iSuccessor++];
+			} else {
+				next = predecessors[iPredecessor++];
+			}
+
+			if (size == 0 || merged[size - 1] != next) {
+				merged[size++] = next;
+			}
+
+		}
+
+		return Arrays.copyOf(merged, size);
+
+	}
+
+	public Collection<Statement> getInEdges(RDFNode vertex) {
+		int id = getId(vertex);
+
+		return (id < 0) ? Collections.<Statement> emptyList() : new EdgeRow(inEdges, inOffsets[id], inOffsets[id + 1]);
+
+	}
+
+	public Collection<Statement> getOutEdges(RDFNode vertex) {
+		int id = getId(vertex);
+
+		return (id < 0) ? Collections.<Statement> emptyList()
+				: new EdgeRow(outEdges, outOffsets[id], outOffsets[id + 1]);
+
+	}
+
+	public Collection<RDFNode> getPredecessors(RDFNode vertex) {
+		int id = getId(vertex);
+
+		return (id < 0) ? Collections.<RDFNode> emptyList()
+				: new VertexRow(predecessors, predecessorOffsets[id], predecessorOffsets[id + 1]);
+
+	}
+
+	public Collection<RDFNode> getSuccessors(RDFNode vertex) {
+		int id = getId(vertex);
+
+		return (id < 0) ? Collections.<RDFNode> emptyList()
+				: new VertexRow(successors, successorOffsets[id], successorOffsets[id + 1]);
+
+	}
+
+	public int inDegree(RDFNode vertex) {
+		int id = getId(vertex);
+
+		return (id < 0) ? 0 : inOffsets[id + 1] - inOffsets[id];
+
+	}
+
+	public int outDegree(RDFNode vertex) {
+		int id = getId(vertex);
+
+		return (id < 0) ? 0 : outOffsets[id + 1] - outOffsets[id];
+
+	}
+
+	public boolean isPredecessor(RDFNode v1, RDFNode v2) {
+		int id1 = getId(v1);
+		int id2 = getId(v2);
+
+		return id1 >= 0 && id2 >= 0 && contains(successorOffsets, successors, id1, id2);
+
+	}
+
+	public boolean isSuccessor(RDFNode v1, RDFNode v2) {
+
+		return isPredecessor(v2, v1);
+
+	}
+
+	public int getPredecessorCount(RDFNode vertex) {
+		int id = getId(vertex);
+
+		return (id < 0) ? 0 : predecessorOffsets[id + 1] - predecessorOffsets[id];
+
+	}
+
+	public int getSuccessorCount(RDFNode vertex) {
+		int id = getId(vertex);
+
+		return (id < 0) ? 0 : successorOffsets[id + 1] - successorOffsets[id];
+
+	}
+
+	public RDFNode getSource(Statement directed_edge) {
+
+		return directed_edge.getSubject();
+
+	}
+
+	public RDFNode getDest(Statement directed_edge) {
+
+		return directed_edge.getObject();
+
+	}
+
+	public boolean isSource(RDFNode vertex, Statement edge) {
+
+		return vertex.equals(edge.getSubject());
+
+	}
+
+	public boolean isDest(RDFNode vertex, Statement edge) {
+
+		return vertex.equals(edge.getObject());
+
+	}
+
+	public boolean addEdge(Statement e, RDFNode v1, RDFNode v2) {
+		throw new UnsupportedOperationException("Snapshot is immutable.");
+	}
+
+	public boolean addEdge(Statement e, RDFNode v1, RDFNode v2, EdgeType edgeType) {
+		throw new UnsupportedOperationException("Snapshot is immutable.");
+	}
+
+	public Pair<RDFNode> getEndpoints(Statement edge) {
+
+		return new Pair<RDFNode>(edge.getSubject(), edge.getObject());
+
+	}
+
+	public RDFNode getOpposite(RDFNode vertex, Statement edge) {
+
+		return (edge.getSubject().equals(vertex)) ? edge.getObject() : edge.getSubject();
+
+	}
+
+	public Collection<Statement> getEdges() {
+
+		return Collections.unmodifiableList(Arrays.asList(edges));
+
+	}
+
+	public Collection<RDFNode> getVertices() {
+
+		return Collections.unmodifiableList(Arrays.asList(vertices));
+
+	}
+
+	public boolean containsVertex(RDFNode vertex) {
+
+		return ids.containsKey(vertex);
+
+	}
+
+	public boolean containsEdge(Statement edge) {
+
+		return getOutEdges(edge.getSubject()).contains(edge);
+
+	}
+
+	public int getEdgeCount() {
+
+		return edges.length;
+
+	}
+
+	public int getVertexCount() {
+
+		return vertices.length;
+
+	}
+
+	public Collection<RDFNode> getNeighbors(RDFNode vertex) {
+		int id = getId(vertex);
+
+		if (id < 0) {
+			return Collections.emptyList();
+		}
+
+		int[] neighbors = neighbors(id);
+
+		return new VertexRow(neighbors, 0, neighbors.length);
+
+	}
+
+	public Collection<Statement> getIncidentEdges(RDFNode vertex) {
+		int id = getId(vertex);
+
+		if (id < 0) {
+			return Collections.emptyList();
+		}
+
+		int[] incident = new int[(inOffsets[id + 1] - inOffsets[id]) + (outOffsets[id + 1] - outOffsets[id])];
+		int size = 0;
+
+		for (int iEdge = inOffsets[id]; iEdge < inOffsets[id + 1]; iEdge++) {
+			incident[size++] = inEdges[iEdge];
+		}
+
+		for (int iEdge = outOffsets[id]; iEdge < outOffsets[id + 1]; iEdge++) {
+
+			if (targets[outEdges[iEdge]] != id) {
+				incident[size++] = outEdges[iEdge];
+			}
+
+		}
+
+		return new EdgeRow(incident, 0, size);
+
+	}
+
+	public Collection<RDFNode> getIncidentVertices(Statement edge) {
+
+		return Arrays.asList(edge.getSubject(), edge.getObject());
+
+	}
+
+	public Statement findEdge(RDFNode v1, RDFNode v2) {
+		Collection<Statement> collection = findEdgeSet(v1, v2);
+
+		return (collection.isEmpty()) ? null : collection.iterator().next();
+
+	}
+
+	public Collection<Statement> findEdgeSet(RDFNode v1, RDFNode v2) {
+		int id1 = getId(v1);
+		int id2 = getId(v2);
+
+		if (id1 < 0 || id2 < 0) {
+			return Collections.emptyList();
+		}
+
+		List<Statement> collection = new ArrayList<Statement>();
+
+		for (int iEdge = outOffsets[id1]; iEdge < outOffsets[id1 + 1]; iEdge++) {
+
+			if (targets[outEdges[iEdge]] == id2) {
+				collection.add(edges[outEdges[iEdge]]);
+			}
+
+		}
+
+		if (id1 != id2) {
+
+			for (int iEdge = outOffsets[id2]; iEdge < outOffsets[id2 + 1]; iEdge++) {
+
+				if (targets[outEdges[iEdge]] == id1) {
+					collection.add(edges[outEdges[iEdge]]);
+				}
+
+			}
+
+		}
+
+		return collection;
+
+	}
+
+	public boolean addVertex(RDFNode vertex) {
+		throw new UnsupportedOperationException("Snapshot is immutable.");
+	}
+
+	public boolean addEdge(Statement edge, Collection<? extends RDFNode> vertices) {
+		throw new UnsupportedOperationException("Snapshot is immutable.");
+	}
+
+	public boolean addEdge(Statement edge, Collection<? extends RDFNode> vertices, EdgeType edge_type) {
+		throw new UnsupportedOperationException("Snapshot is immutable.");
+	}
+
+	public boolean removeVertex(RDFNode vertex) {
+		throw new UnsupportedOperationException("Snapshot is immutable.");
+	}
+
+	public boolean removeEdge(Statement edge) {
+		throw new UnsupportedOperationException("Snapshot is immutable.");
+	}
+
+	public boolean isNeighbor(RDFNode v1, RDFNode v2) {
+		int id1 = getId(v1);
+		int id2 = getId(v2);
+
+		return id1 >= 0 && id2 >= 0 && (contains(successorOffsets, successors, id1, id2)
+				|| contains(predecessorOffsets, predecessors, id1, id2));
+
+	}
+
+	public boolean isIncident(RDFNode vertex, Statement edge) {
+
+		return (edge.getSubject().equals(vertex) || edge.getObject().equals(vertex));
+
+	}
+
+	/**
+	 * Get the number of edges incident to a vertex - a loop is counted once, as
+	 * {@link #getIncidentEdges(RDFNode)} lists it once
+	 */
+	public int degree(RDFNode vertex) {
+		int id = getId(vertex);
+
+		if (id < 0) {
+			return 0;
+		}
+
+		int degree = (inOffsets[id + 1] - inOffsets[id]) + (outOffsets[id + 1] - outOffsets[id]);
+
+		for (int iEdge = outOffsets[id]; iEdge < outOffsets[id + 1]; iEdge++) {
+
+			if (targets[outEdges[iEdge]] == id) {
+				degree -= 1;
+			}
+
+		}
+
+		return degree;
+
+	}
+
+	public int getNeighborCount(RDFNode vertex) {
+		int id = getId(vertex);
+
+		return (id < 0) ? 0 : neighbors(id).length;
+
+	}
+
+	public int getIncidentCount(Statement edge) {
+
+		return (edge.getSubject().equals(edge.getObject())) ? 1 : 2;
+
+	}
+
+	public EdgeType getEdgeType(Statement edge) {
+
+		return EdgeType.DIRECTED;
+
+	}
+
+	public EdgeType getDefaultEdgeType() {
+
+		return EdgeType.DIRECTED;
+
+	}
+
+	public Collection<Statement> getEdges(EdgeType edge_type) {
+
+		return (edge_type.equals(EdgeType.DIRECTED)) ? getEdges() : Collections.<Statement> emptyList();
+
+	}
+
+	public int getEdgeCount(EdgeType edge_type) {
+
+		return (edge_type.equals(EdgeType.DIRECTED)) ? edges.length : 0;
+
+	}
+
+}
@@ -0,0 +1,311 @@
+package org.snail.viewer.jung.layout;
+
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.snail.viewer.jung.graph.IndexedGraph;
+
+import edu.uci.ics.jung.algorithms.layout.AbstractLayout;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * A force directed {@code Layout} whose repulsion is approximated with a
+ * Barnes-Hut quadtree, O(n log n) per iteration.
+ *
+ * The graph is numbered once (an {@link IndexedGraph}'s own ids are used as
+ * they are), vertex positions live in primitive arrays indexed by vertex id
+ * (see {@link ForceSimulation}) rather than in a map of points, and the
+ * layout is iterative so a {@link LayoutScheduler} drives it.
+ *
+ */
+public class BarnesHutLayout<V, E> extends AbstractLayout<V, E> implements ScheduledContext {
+	private final int vertexCount;
+	private final IndexedGraph<V> indexed;
+	private final Map<V, Integer> ids;
+
+	protected final int[] offsets;
+	protected final int[] neighbours;
+
+	private long seed = 0;
+
+	protected ForceSimulation simulation;
+
+	/**
+	 * Creates an instance for the specified graph.
+	 */
+	@SuppressWarnings("unchecked")
+	public BarnesHutLayout(Graph<V, E> graph) {
+		super(graph);
+
+		vertexCount = graph.getVertexCount();
+		indexed = (graph instanceof IndexedGraph) ? (IndexedGraph<V>) graph : null;
+		ids = (indexed == null) ? new HashMap<V, Integer>(vertexCount * 2) : null;
+
+		if (ids != null) {
+
+			for (V vertex : graph.getVertices()) {
+				ids.put(vertex, ids.size());
+			}
+
+		}
+
+		/*
+		 * Undirected neighbour rows - count, fill, then drop self loops and
+		 * repeated neighbours
+		 */
+		int[] counts = new int[vertexCount + 1];
+
+		for (E edge : graph.getEdges()) {
+			Pair<V> ends = graph.getEndpoints(edge);
+
+			counts[getId(ends.getFirst())] += 1;
+			counts[getId(ends.getSecond())] += 1;
+
+		}
+
+		int[] starts = new int[vertexCount + 1];
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+			starts[iVertex + 1] = starts[iVertex] + counts[iVertex];
+		}
+
+		int[] rows = new int[starts[vertexCount]];
+		int[] fill = Arrays.copyOf(starts, vertexCount);
+
+		for (E edge : graph.getEdges()) {
+			Pair<V> ends = graph.getEndpoints(edge);
+			int first = getId(ends.getFirst());
+			int second = getId(ends.getSecond());
+
+			rows[fill[first]++] = second;
+			rows[fill[second]++] = first;
+
+		}
+
+		offsets = new int[vertexCount + 1];
+
+		int size = 0;
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+			Arrays.sort(rows, starts[iVertex], starts[iVertex + 1]);
+
+			offsets[iVertex] = size;
+
+			for (int iRow = starts[iVertex]; iRow < starts[iVertex + 1]; iRow++) {
+
+				if (rows[iRow] != iVertex && (size == offsets[iVertex] || rows[size - 1] != rows[iRow])) {
+					rows[size++] = rows[iRow];
+				}
+
+			}
+
+		}
+
+		offsets[vertexCount] = size;
+		neighbours = Arrays.copyOf(rows, size);
+
+	}
+
+	/**
+	 * Set the seed of the initial (random) placement
+	 *
+	 * @param seed
+	 *            the seed
+	 *
+	 */
+	public void setSeed(long seed) {
+
+		this.seed = seed;
+
+	}
+
+	/**
+	 * Create the simulation that runs the iterations
+	 *
+	 * @param vertexCount
+	 *            the number of vertices
+	 * @param offsets
+	 *            the neighbour row offsets
+	 * @param neighbours
+	 *            the neighbour ids
+	 *
+	 * @return the simulation
+	 *
+	 */
+	protected ForceSimulation createSimulation(int vertexCount, int[] offsets, int[] neighbours) {
+
+		return new ForceSimulation(vertexCount, offsets, neighbours);
+
+	}
+
+	public ForceSimulation getSimulation() {
+
+		return simulation;
+
+	}
+
+	/**
+	 * Get the id the layout gives a vertex
+	 *
+	 * @param vertex
+	 *            the vertex
+	 *
+	 * @return the id, or -1 if the vertex is not in the graph
+	 *
+	 */
+	public int getId(V vertex) {
+
+		if (indexed != null) {
+			return indexed.getId(vertex);
+		}
+
+		Integer id = ids.get(vertex);
+
+		return (id == null) ? -1 : id;
+
+	}
+
+	@Override
+	public void initialize() {
+		Dimension size = getSize();
+
+		if (size == null) {
+			return;
+		}
+
+		release();
+
+		simulation = createSimulation(vertexCount, offsets, neighbours);
+
+		simulation.setBounds(size.getWidth(), size.getHeight());
+		simulation.randomize(new Random(seed));
+
+		for (V vertex : getGraph().getVertices()) {
+
+			if (isLocked(vertex)) {
+				simulation.setLocked(getId(vertex), true);
+			}
+
+		}
+
+		initialized = true;
+
+	}
+
+	@Override
+	public void reset() {
+
+		initialize();
+
+	}
+
+	@Override
+	public void step() {
+
+		if (simulation != null) {
+			simulation.step();
+		}
+
+	}
+
+	@Override
+	public boolean done() {
+
+		return simulation == null || simulation.isDone();
+
+	}
+
+	@Override
+	public double getEnergy() {
+
+		return (simulation == null) ? 0 : simulation.getEnergy();
+
+	}
+
+	@Override
+	public void publish() {
+
+		if (simulation != null) {
+			simulation.publish();
+		}
+
+	}
+
+	@Override
+	public void release() {
+
+		if (simulation != null) {
+			simulation.shutdown();
+		}
+
+	}
+
+	@Override
+	public Point2D transform(V vertex) {
+		int id = getId(vertex);
+
+		if (simulation == null || id < 0) {
+			return new Point2D.Double();
+		}
+
+		return simulation.getPublishedPosition(id);
+
+	}
+
+	@Override
+	public double getX(V vertex) {
+
+		return transform(vertex).getX();
+
+	}
+
+	@Override
+	public double getY(V vertex) {
+
+		return transform(vertex).getY();
+
+	}
+
+	@Override
+	public void setLocation(V vertex, double x, double y) {
+		int id = getId(vertex);
+
+		if (simulation != null && id >= 0) {
+			simulation.setPosition(id, x, y);
+		}
+
+	}
+
+	@Override
+	public void setLocation(V vertex, Point2D location) {
+
+		setLocation(vertex, location.getX(), location.getY());
+
+	}
+
+	@Override
+	protected void offsetVertex(V vertex, double xOffset, double yOffset) {
+		Point2D location = transform(vertex);
+
+		setLocation(vertex, location.getX() + xOffset, location.getY() + yOffset);
+
+	}
+
+	@Override
+	public void lock(V vertex, boolean state) {
+		super.lock(vertex, state);
+
+		int id = getId(vertex);
+
+		if (simulation != null && id >= 0) {
+			simulation.setLocked(id, state);
+		}
+
+	}
+
+}
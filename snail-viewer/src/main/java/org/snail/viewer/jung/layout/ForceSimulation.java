@@ -0,0 +1,418 @@
+package org.snail.viewer.jung.layout;
+
+import java.awt.geom.Point2D;
+import java.util.Random;
+
+/**
+ * A Fruchterman-Reingold force simulation over primitive arrays.
+ *
+ * Vertices are numbered 0..n-1 and their (undirected) neighbours are held in
+ * compressed rows. Each iteration builds a {@link QuadTree} over the current
+ * positions, sums the forces on every vertex - Barnes-Hut approximated
+ * repulsion, attraction along its edges and a pull towards the centre that
+ * keeps the layout within its area - and moves each vertex by at most the
+ * current temperature, which cools as the layout settles.
+ *
+ * The force on a vertex only depends on the positions of the previous
+ * iteration, so {@link #computeForces(int, int)} may be run on disjoint ranges
+ * of vertices at once.
+ *
+ * The thread running the iterations may {@link #publish()} a copy of the
+ * positions, which other threads - a viewer painting - then read in place of
+ * the positions still being worked on.
+ *
+ */
+public class ForceSimulation {
+	private static final double THETA = 0.9;
+	private static final double COOLING = 0.95;
+	private static final double MINIMUM_TEMPERATURE = 0.5;
+	private static final double GRAVITY_RADIUS = 0.45;
+
+	protected final int vertexCount;
+	protected final int[] offsets;
+	protected final int[] neighbours;
+
+	protected double[] x;
+	protected double[] y;
+	protected final double[] forceX;
+	protected final double[] forceY;
+	protected final boolean[] locked;
+
+	protected final QuadTree tree = new QuadTree();
+
+	/**
+	 * A published copy of the positions
+	 */
+	static class Snapshot {
+		final double[] x;
+		final double[] y;
+
+		Snapshot(double[] x, double[] y) {
+			this.x = x;
+			this.y = y;
+		}
+
+	}
+
+	private volatile Snapshot snapshot = null;
+
+	private double width;
+	private double height;
+	private double edgeLength;
+	private double gravity;
+	private double temperature;
+
+	private int iteration = 0;
+	private int maximumIterations = 500;
+	private double energy = Double.POSITIVE_INFINITY;
+
+	/**
+	 * Create a simulation
+	 *
+	 * @param vertexCount
+	 *            the number of vertices
+	 * @param offsets
+	 *            the neighbour row offsets (vertexCount + 1 entries)
+	 * @param neighbours
+	 *            the neighbour ids
+	 *
+	 */
+	public ForceSimulation(int vertexCount, int[] offsets, int[] neighbours) {
+
+		this.vertexCount = vertexCount;
+		this.offsets = offsets;
+		this.neighbours = neighbours;
+
+		x = new double[vertexCount];
+		y = new double[vertexCount];
+		forceX = new double[vertexCount];
+		forceY = new double[vertexCount];
+		locked = new boolean[vertexCount];
+
+	}
+
+	/**
+	 * Set the area the layout occupies and restart the cooling schedule
+	 *
+	 * @param width
+	 *            the width
+	 * @param height
+	 *            the height
+	 *
+	 */
+	public void setBounds(double width, double height) {
+
+		this.width = Math.max(1, width);
+		this.height = Math.max(1, height);
+
+		edgeLength = Math.sqrt(this.width * this.height / Math.max(1, vertexCount));
+
+		/*
+		 * The pull towards the centre that balances the total repulsion
+		 * (about area / r) at a radius that fits the layout area
+		 */
+		double radius = Math.min(this.width, this.height) * GRAVITY_RADIUS;
+
+		gravity = this.width * this.height / (radius * radius);
+
+		restart();
+
+	}
+
+	/**
+	 * Restart the cooling schedule from the current positions
+	 */
+	public void restart() {
+
+		temperature = Math.max(width, height) / 10;
+		iteration = 0;
+		energy = Double.POSITIVE_INFINITY;
+
+	}
+
+	/**
+	 * Scatter the vertices at random over the layout area
+	 *
+	 * @param random
+	 *            the random source
+	 *
+	 */
+	public void randomize(Random random) {
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+
+			if (!locked[iVertex]) {
+				x[iVertex] = random.nextDouble() * width;
+				y[iVertex] = random.nextDouble() * height;
+			}
+
+		}
+
+	}
+
+	/**
+	 * Set the number of iterations after which the simulation stops
+	 *
+	 * @param maximumIterations
+	 *            the iteration limit
+	 *
+	 */
+	public void setMaximumIterations(int maximumIterations) {
+
+		this.maximumIterations = maximumIterations;
+
+	}
+
+	/**
+	 * Set the temperature - the furthest a vertex may move in one iteration
+	 *
+	 * @param temperature
+	 *            the temperature
+	 *
+	 */
+	public void setTemperature(double temperature) {
+
+		this.temperature = temperature;
+
+	}
+
+	public double getTemperature() {
+
+		return temperature;
+
+	}
+
+	/**
+	 * Get the natural edge length (k)
+	 *
+	 * @return the edge length
+	 *
+	 */
+	public double getEdgeLength() {
+
+		return edgeLength;
+
+	}
+
+	public int getVertexCount() {
+
+		return vertexCount;
+
+	}
+
+	public int getIteration() {
+
+		return iteration;
+
+	}
+
+	/**
+	 * Get the energy of the last iteration - the sum of the squared vertex
+	 * displacements
+	 *
+	 * @return the energy, infinite before the first iteration
+	 *
+	 */
+	public double getEnergy() {
+
+		return energy;
+
+	}
+
+	public double getX(int vertex) {
+
+		return x[vertex];
+
+	}
+
+	public double getY(int vertex) {
+
+		return y[vertex];
+
+	}
+
+	public void setPosition(int vertex, double positionX, double positionY) {
+		Snapshot published = snapshot;
+
+		x[vertex] = positionX;
+		y[vertex] = positionY;
+
+		if (published != null) {
+			published.x[vertex] = positionX;
+			published.y[vertex] = positionY;
+		}
+
+	}
+
+	/**
+	 * Publish a copy of the current positions - called between iterations by
+	 * the thread running them
+	 */
+	public void publish() {
+
+		snapshot = new Snapshot(x.clone(), y.clone());
+
+	}
+
+	/**
+	 * Get the published position of a vertex
+	 *
+	 * @param vertex
+	 *            the vertex
+	 *
+	 * @return the position, or the current one if nothing has been published
+	 *
+	 */
+	public Point2D getPublishedPosition(int vertex) {
+		Snapshot published = snapshot;
+
+		if (published == null) {
+			return new Point2D.Double(x[vertex], y[vertex]);
+		}
+
+		return new Point2D.Double(published.x[vertex], published.y[vertex]);
+
+	}
+
+	public void setLocked(int vertex, boolean state) {
+
+		locked[vertex] = state;
+
+	}
+
+	public boolean isLocked(int vertex) {
+
+		return locked[vertex];
+
+	}
+
+	/**
+	 * Stop any threads the iterations run on - this simulation runs them on
+	 * the calling thread, so there are none
+	 */
+	public void shutdown() {
+	}
+
+	/**
+	 * Has the simulation cooled down (or run out of iterations)?
+	 *
+	 * @return 'true' if done
+	 *
+	 */
+	public boolean isDone() {
+
+		return vertexCount == 0 || temperature < MINIMUM_TEMPERATURE || iteration >= maximumIterations;
+
+	}
+
+	/**
+	 * Run one iteration
+	 */
+	public void step() {
+
+		tree.build(x, y, vertexCount);
+
+		computeForces();
+
+		energy = move();
+
+		temperature *= COOLING;
+		iteration += 1;
+
+	}
+
+	/**
+	 * Compute the forces on all the vertices
+	 */
+	protected void computeForces() {
+
+		computeForces(0, vertexCount);
+
+	}
+
+	/**
+	 * Compute the forces on a range of vertices (the quadtree must be built)
+	 *
+	 * @param from
+	 *            the first vertex
+	 * @param to
+	 *            the vertex after the last
+	 *
+	 */
+	protected void computeForces(int from, int to) {
+		double strength = edgeLength * edgeLength;
+		double centerX = width / 2;
+		double centerY = height / 2;
+
+		for (int iVertex = from; iVertex < to; iVertex++) {
+			forceX[iVertex] = gravity * (centerX - x[iVertex]);
+			forceY[iVertex] = gravity * (centerY - y[iVertex]);
+
+			tree.repulse(iVertex, THETA, strength, forceX, forceY);
+
+			for (int iRow = offsets[iVertex]; iRow < offsets[iVertex + 1]; iRow++) {
+				int neighbour = neighbours[iRow];
+				double deltaX = x[iVertex] - x[neighbour];
+				double deltaY = y[iVertex] - y[neighbour];
+				double distance = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+
+				forceX[iVertex] -= deltaX * distance / edgeLength;
+				forceY[iVertex] -= deltaY * distance / edgeLength;
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Move the vertices along their forces, limited by the temperature and
+	 * the layout area
+	 *
+	 * @return the sum of the squared displacements
+	 *
+	 */
+	protected double move() {
+
+		return move(x, y, x, y);
+
+	}
+
+	/**
+	 * Move the vertices along their forces from one set of positions to
+	 * another (which may be the same arrays)
+	 *
+	 * @return the sum of the squared displacements
+	 *
+	 */
+	protected double move(double[] fromX, double[] fromY, double[] toX, double[] toY) {
+		double sum = 0;
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+
+			if (locked[iVertex]) {
+
+				toX[iVertex] = fromX[iVertex];
+				toY[iVertex] = fromY[iVertex];
+
+				continue;
+
+			}
+
+			double length = Math.sqrt(forceX[iVertex] * forceX[iVertex] + forceY[iVertex] * forceY[iVertex]);
+			double scale = (length > temperature) ? temperature / length : 1;
+			double moveX = forceX[iVertex] * scale;
+			double moveY = forceY[iVertex] * scale;
+
+			toX[iVertex] = Math.min(width, Math.max(0, fromX[iVertex] + moveX));
+			toY[iVertex] = Math.min(height, Math.max(0, fromY[iVertex] + moveY));
+
+			sum += moveX * moveX + moveY * moveY;
+
+		}
+
+		return sum;
+
+	}
+
+}
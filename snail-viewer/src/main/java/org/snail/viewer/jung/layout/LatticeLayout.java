@@ -3,9 +3,14 @@ package org.snail.viewer.jung.layout;
 import java.awt.Dimension;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import org.snail.viewer.jung.graph.IndexedGraph;
 
 import edu.uci.ics.jung.algorithms.layout.AbstractLayout;
 import edu.uci.ics.jung.graph.Graph;
@@ -15,18 +20,94 @@ import edu.uci.ics.jung.graph.Graph;
 /**
  * A {@code Layout} implementation that positions vertices equally spaced on a regular rectangle.
  *
+ * The vertices are read from the graph once and numbered in the graph's
+ * order (an {@link IndexedGraph}'s own ids are used as they are); their
+ * positions are held in arrays by that number and placed row by row in a
+ * single pass. Orderings are applied as ranks, packed with the
+ * vertex numbers into longs and sorted as primitives. Unless a cell size is
+ * set, the cells are sized so the grid fills the layout area, within
+ * {@code MINIMUM_CELL} and {@code MAXIMUM_CELL} pixels.
+ *
  * @author Neil Brittliff
- * 
+ *
  */
 public class LatticeLayout<V, E> extends AbstractLayout<V,E> {
+	private static final double MINIMUM_CELL = 12;
+	private static final double MAXIMUM_CELL = 50;
+
+	private final List<V> vertices;
+	private final IndexedGraph<V> indexed;
+	private final Map<V, Integer> indices;
 
-	private List<V> vertex_ordered_list;
+	private int[] order;
+
+	private final double[] x;
+	private final double[] y;
+
+	private double cellSize = 0;
 
 	/**
 	 * Creates an instance for the specified graph.
 	 */
+	@SuppressWarnings("unchecked")
 	public LatticeLayout(Graph<V,E> g) {
 		super(g);
+
+		vertices = new ArrayList<V>(g.getVertices());
+		indexed = (g instanceof IndexedGraph) ? (IndexedGraph<V>) g : null;
+		indices = (indexed == null) ? new HashMap<V, Integer>(vertices.size() * 2) : null;
+
+		order = new int[vertices.size()];
+
+		for (int iVertex = 0; iVertex < order.length; iVertex++) {
+
+			if (indices != null) {
+				indices.put(vertices.get(iVertex), iVertex);
+			}
+
+			order[iVertex] = iVertex;
+
+		}
+
+		x = new double[order.length];
+		y = new double[order.length];
+
+	}
+
+	/**
+	 * Set the size of the cells
+	 *
+	 * @param cellSize
+	 *            the cell size in pixels, 0 to fit the grid to the layout area
+	 *
+	 */
+	public void setCellSize(double cellSize) {
+
+		this.cellSize = cellSize;
+
+	}
+
+	/**
+	 * Get the size of the cells for the layout area
+	 *
+	 * @return the cell size in pixels
+	 *
+	 */
+	public double getCellSize() {
+		Dimension d = getSize();
+
+		if (cellSize > 0) {
+			return cellSize;
+		}
+
+		if (d == null) {
+			return MAXIMUM_CELL;
+		}
+
+		double fit = Math.sqrt(d.getWidth() * d.getHeight() / Math.max(1, order.length));
+
+		return Math.max(MINIMUM_CELL, Math.min(MAXIMUM_CELL, fit));
+
 	}
 
 	/**
@@ -34,11 +115,12 @@ public class LatticeLayout<V, E> extends AbstractLayout<V,E> {
 	 * specified by {@code comparator}.
 	 */
 	public void setVertexOrder(Comparator<V> comparator) {
-	    if (vertex_ordered_list == null) {
-	        vertex_ordered_list = new ArrayList<V>(getGraph().getVertices());
-	    }
-	    
-	    Collections.sort(vertex_ordered_list, comparator);
+		List<V> ordered = new ArrayList<V>(vertices);
+
+		Collections.sort(ordered, comparator);
+
+		setVertexOrder(ordered);
+
 	}
 
     /**
@@ -46,54 +128,160 @@ public class LatticeLayout<V, E> extends AbstractLayout<V,E> {
      * of {@code vertex_list}.
      */
 	public void setVertexOrder(List<V> vertex_list) {
-		
-	    if (!vertex_list.containsAll(getGraph().getVertices())) 
+		int[] ordered = new int[order.length];
+		boolean[] placed = new boolean[order.length];
+		int size = 0;
+
+		for (V vertex : vertex_list) {
+			int index = index(vertex);
+
+			if (index >= 0 && !placed[index] && size < ordered.length) {
+				placed[index] = true;
+				ordered[size++] = index;
+			}
+
+		}
+
+	    if (size < ordered.length)
 	        throw new IllegalArgumentException("Supplied list must include " +
 	        		"all vertices of the graph");
-	    
-	    this.vertex_ordered_list = vertex_list;
-	
+
+	    order = ordered;
+
 	}
-	
+
+	/**
+	 * Sets the order of the vertices by rank - lower ranks are placed first
+	 * and equal ranks keep the graph's order
+	 *
+	 * @param ranks
+	 *            the rank of each vertex, in the order of the graph's
+	 *            {@code getVertices()}
+	 *
+	 */
+	public void setVertexOrder(int[] ranks) {
+		long[] keys = new long[order.length];
+
+		for (int iVertex = 0; iVertex < keys.length; iVertex++) {
+			keys[iVertex] = ((long) ranks[iVertex] << 32) | iVertex;
+		}
+
+		Arrays.sort(keys);
+
+		for (int iSlot = 0; iSlot < keys.length; iSlot++) {
+			order[iSlot] = (int) keys[iSlot];
+		}
+
+	}
+
+	/**
+	 * Sets the order of the vertices by descending degree
+	 */
+	public void setVertexOrderByDegree() {
+		int[] ranks = new int[order.length];
+
+		for (int iVertex = 0; iVertex < ranks.length; iVertex++) {
+			ranks[iVertex] = -getGraph().degree(vertices.get(iVertex));
+		}
+
+		setVertexOrder(ranks);
+
+	}
+
 	public void reset() {
 		initialize();
 	}
 
 	public void initialize() {
 		Dimension d = getSize();
-		
-		if (d != null) {
-			
-		    if (vertex_ordered_list == null) {
-		        setVertexOrder(new ArrayList<V>(getGraph().getVertices()));
-		    }
-
-			int iVertex = 0;
-			
-			int columns =  (int)((d.getWidth() - 10)/50);
-			int row =  (int)(d.getHeight()/(getGraph().getVertices().size()/columns));
-			int iRow = 20;
-			
-			for (V v : vertex_ordered_list) {
-				
-				Point2D coord = transform(v);
-
-				if (iVertex >= columns) {
-					
-					iVertex = 0;
-					
-					iRow += row;
-					
-				} 
-				
-				coord.setLocation(iVertex * 50 + 30, iRow);
-				
-				iVertex += 1;
-				
+
+		if (d == null) {
+			return;
+		}
+
+		double cell = getCellSize();
+		int columns = Math.max(1, (int) (d.getWidth() / cell));
+
+		for (int iSlot = 0; iSlot < order.length; iSlot++) {
+			int index = order[iSlot];
+
+			if (!isLocked(vertices.get(index))) {
+				x[index] = (iSlot % columns + 0.5) * cell;
+				y[index] = (iSlot / columns + 0.5) * cell;
 			}
-			
+
+		}
+
+	}
+
+	/**
+	 * Get the number of a vertex
+	 *
+	 * @param vertex
+	 *            the vertex
+	 *
+	 * @return the vertex's number, -1 if it is not in the graph
+	 *
+	 */
+	private int index(V vertex) {
+
+		if (indexed != null) {
+			return indexed.getId(vertex);
+		}
+
+		Integer index = indices.get(vertex);
+
+		return (index == null) ? -1 : index;
+
+	}
+
+	@Override
+	public Point2D transform(V vertex) {
+		int index = index(vertex);
+
+		return (index < 0) ? new Point2D.Double() : new Point2D.Double(x[index], y[index]);
+
+	}
+
+	@Override
+	public double getX(V vertex) {
+		int index = index(vertex);
+
+		return (index < 0) ? 0 : x[index];
+
+	}
+
+	@Override
+	public double getY(V vertex) {
+		int index = index(vertex);
+
+		return (index < 0) ? 0 : y[index];
+
+	}
+
+	@Override
+	public void setLocation(V vertex, double locationX, double locationY) {
+		int index = index(vertex);
+
+		if (index >= 0) {
+			x[index] = locationX;
+			y[index] = locationY;
 		}
-		
+
+	}
+
+	@Override
+	public void setLocation(V vertex, Point2D location) {
+
+		setLocation(vertex, location.getX(), location.getY());
+
+	}
+
+	@Override
+	protected void offsetVertex(V vertex, double xOffset, double yOffset) {
+
+		setLocation(vertex, getX(vertex) + xOffset, getY(vertex) + yOffset);
+
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package org.snail.viewer.jung.layout;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.vocabulary.RDF;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+
+/**
+ * {@link LatticeLayout} orderings for RDF graphs.
+ *
+ * Each ordering ranks the vertices by id - which is the order of the
+ * snapshot's {@code getVertices()} - for {@link LatticeLayout#setVertexOrder(int[])}.
+ * A string is turned into a rank by its position among the sorted distinct
+ * strings, so the lattice sort itself only compares primitives.
+ *
+ */
+public class LatticeOrderings {
+
+	/**
+	 * Orders the vertices by namespace - resources by their URI up to the last
+	 * '#' or '/', literals by their datatype; blank nodes come last
+	 *
+	 * @param graph
+	 *            the graph
+	 *
+	 * @return the ranks by vertex id
+	 *
+	 */
+	public static int[] byNamespace(ModelGraphSnapshot graph) {
+		String[] namespaces = new String[graph.getVertexCount()];
+
+		for (int iVertex = 0; iVertex < namespaces.length; iVertex++) {
+			RDFNode vertex = graph.getVertex(iVertex);
+
+			if (vertex.isURIResource()) {
+				String uri = vertex.asResource().getURI();
+
+				namespaces[iVertex] = uri.substring(0, Math.max(uri.lastIndexOf('#'), uri.lastIndexOf('/')) + 1);
+			} else if (vertex.isLiteral()) {
+				namespaces[iVertex] = vertex.asLiteral().getDatatypeURI();
+			}
+
+		}
+
+		return rank(namespaces);
+
+	}
+
+	/**
+	 * Orders the vertices by their (first) rdf:type; untyped vertices come
+	 * last
+	 *
+	 * @param graph
+	 *            the graph
+	 *
+	 * @return the ranks by vertex id
+	 *
+	 */
+	public static int[] byType(ModelGraphSnapshot graph) {
+		String[] types = new String[graph.getVertexCount()];
+		int property = graph.getPropertyId(RDF.type.getURI());
+
+		if (property >= 0) {
+			int[] offsets = graph.getPropertyEdgeOffsets();
+			int[] edges = graph.getPropertyEdgeIds();
+			String[] labels = new String[types.length];
+
+			for (int iRow = offsets[property]; iRow < offsets[property + 1]; iRow++) {
+				int subject = graph.getSourceId(edges[iRow]);
+				int type = graph.getDestId(edges[iRow]);
+
+				if (types[subject] == null) {
+
+					if (labels[type] == null) {
+						labels[type] = graph.getVertex(type).toString();
+					}
+
+					types[subject] = labels[type];
+
+				}
+
+			}
+
+		}
+
+		return rank(types);
+
+	}
+
+	/**
+	 * Rank strings by their sorted order - nulls rank last
+	 *
+	 * @param values
+	 *            the strings by vertex id
+	 *
+	 * @return the ranks by vertex id
+	 *
+	 */
+	static int[] rank(String[] values) {
+		Map<String, Integer> ranks = new HashMap<String, Integer>();
+
+		for (String value : values) {
+
+			if (value != null) {
+				ranks.put(value, 0);
+			}
+
+		}
+
+		String[] distinct = ranks.keySet().toArray(new String[0]);
+
+		Arrays.sort(distinct);
+
+		for (int iValue = 0; iValue < distinct.length; iValue++) {
+			ranks.put(distinct[iValue], iValue);
+		}
+
+		int[] result = new int[values.length];
+
+		for (int iVertex = 0; iVertex < values.length; iVertex++) {
+			result[iVertex] = (values[iVertex] == null) ? Integer.MAX_VALUE : ranks.get(values[iVertex]);
+		}
+
+		return result;
+
+	}
+
+}
@@ -0,0 +1,191 @@
+package org.snail.viewer.jung.layout;
+
+import java.awt.geom.Point2D;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Statement;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+
+import edu.uci.ics.jung.algorithms.layout.Layout;
+
+/**
+ * A cache of the final vertex coordinates of layouts, so reopening a file
+ * restores its layout rather than recomputing it.
+ *
+ * A layout is keyed by the content hash and size of the RDF source and by the
+ * layout's class. The snapshot numbers the vertices in the order the parser
+ * meets them, so the same content always numbers them the same way and the
+ * coordinates are stored as a plain array in vertex id order:
+ *
+ * <pre>
+ * int magic, int version, int vertex count, (float x, float y) per vertex
+ * </pre>
+ *
+ */
+public class LayoutCache {
+	private static final int MAGIC = 0x534e4c43;
+	private static final int VERSION = 1;
+
+	private final File directory;
+
+	/**
+	 * Create a cache in the user's ~/.snail/layouts directory
+	 */
+	public LayoutCache() {
+
+		this(new File(new File(System.getProperty("user.home"), ".snail"), "layouts"));
+
+	}
+
+	/**
+	 * Create a cache
+	 *
+	 * @param directory
+	 *            the directory holding the cached layouts
+	 *
+	 */
+	public LayoutCache(File directory) {
+
+		this.directory = directory;
+
+	}
+
+	private File getFile(String digest, long size, Layout<RDFNode, Statement> layout) {
+
+		return new File(directory, String.format("%s-%d-%s.layout", digest, size, layout.getClass().getSimpleName()));
+
+	}
+
+	/**
+	 * Restore a layout's coordinates
+	 *
+	 * @param digest
+	 *            the content hash of the source
+	 * @param size
+	 *            the content size of the source
+	 * @param layout
+	 *            the (initialized) layout
+	 * @param graph
+	 *            the graph being laid out
+	 *
+	 * @return 'true' if the coordinates were restored, 'false' if they were
+	 *         not cached (or the cache was unreadable)
+	 *
+	 */
+	public boolean restore(String digest, long size, Layout<RDFNode, Statement> layout, ModelGraphSnapshot graph) {
+		File file = getFile(digest, size, layout);
+
+		if (digest == null || !file.isFile()) {
+			return false;
+		}
+
+		int vertexCount = graph.getVertexCount();
+		float[] coordinates = new float[vertexCount * 2];
+
+		try {
+			DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+			try {
+
+				if (input.readInt() != MAGIC || input.readInt() != VERSION || input.readInt() != vertexCount) {
+					return false;
+				}
+
+				for (int iCoordinate = 0; iCoordinate < coordinates.length; iCoordinate++) {
+					coordinates[iCoordinate] = input.readFloat();
+				}
+
+			} finally {
+
+				input.close();
+
+			}
+
+		} catch (IOException e) {
+
+			return false;
+
+		}
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+			layout.setLocation(graph.getVertex(iVertex),
+					new Point2D.Double(coordinates[iVertex * 2], coordinates[iVertex * 2 + 1]));
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Save a layout's coordinates - written to a temporary file first, so a
+	 * failed save never leaves a truncated entry
+	 *
+	 * @param digest
+	 *            the content hash of the source
+	 * @param size
+	 *            the content size of the source
+	 * @param layout
+	 *            the layout
+	 * @param graph
+	 *            the graph being laid out
+	 *
+	 * @throws IOException
+	 *             thrown if the layout could not be written
+	 *
+	 */
+	public void save(String digest, long size, Layout<RDFNode, Statement> layout, ModelGraphSnapshot graph)
+			throws IOException {
+
+		if (digest == null) {
+			return;
+		}
+
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create " + directory);
+		}
+
+		File file = getFile(digest, size, layout);
+		File temporary = new File(directory, file.getName() + ".tmp");
+
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+
+		try {
+			int vertexCount = graph.getVertexCount();
+
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(vertexCount);
+
+			for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+				Point2D location = layout.transform(graph.getVertex(iVertex));
+
+				output.writeFloat((float) location.getX());
+				output.writeFloat((float) location.getY());
+
+			}
+
+		} finally {
+
+			output.close();
+
+		}
+
+		if (file.exists() && !file.delete() || !temporary.renameTo(file)) {
+
+			temporary.delete();
+
+			throw new IOException("Unable to write " + file);
+
+		}
+
+	}
+
+}
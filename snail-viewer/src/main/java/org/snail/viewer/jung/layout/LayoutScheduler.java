@@ -0,0 +1,266 @@
+package org.snail.viewer.jung.layout;
+
+import java.awt.Component;
+
+import javax.swing.SwingUtilities;
+
+import edu.uci.ics.jung.algorithms.util.IterativeContext;
+
+/**
+ * Runs the iterations of a layout on a worker thread.
+ *
+ * Positions are published and the view repainted at most {@code frameRate}
+ * times a second, however fast the iterations run. The layout stops when it
+ * is done, when its energy has settled (the relative change stays within the
+ * tolerance for several iterations - only a {@link ScheduledContext} reports
+ * energy) or when stopped; a {@link ScheduledContext} is then told to release
+ * its threads.
+ *
+ */
+public class LayoutScheduler implements Runnable {
+	private static final int PATIENCE = 5;
+
+	public enum STATE {
+
+		RUNNING, CONVERGED, COMPLETE, STOPPED
+
+	}
+
+	/**
+	 * Told of the progress on the Event Dispatch Thread
+	 */
+	public interface Listener {
+
+		/**
+		 * A frame has been published
+		 *
+		 * @param scheduler
+		 *            the scheduler
+		 *
+		 */
+		void progressed(LayoutScheduler scheduler);
+
+		/**
+		 * The layout has stopped (called once, after the last frame)
+		 *
+		 * @param scheduler
+		 *            the scheduler
+		 *
+		 */
+		void finished(LayoutScheduler scheduler);
+
+	}
+
+	private final IterativeContext context;
+	private final Component view;
+
+	private Listener listener = null;
+
+	private int frameRate = 30;
+	private double tolerance = 0.005;
+
+	private volatile STATE state = STATE.RUNNING;
+	private volatile boolean stopped = false;
+	private volatile int iterations = 0;
+	private volatile double iterationsPerSecond = 0;
+
+	private volatile boolean notifying = false;
+
+	/**
+	 * Create a scheduler
+	 *
+	 * @param context
+	 *            the layout
+	 * @param view
+	 *            the component showing the layout
+	 *
+	 */
+	public LayoutScheduler(IterativeContext context, Component view) {
+
+		this.context = context;
+		this.view = view;
+
+	}
+
+	public void setListener(Listener listener) {
+
+		this.listener = listener;
+
+	}
+
+	/**
+	 * Set the most frames published per second
+	 *
+	 * @param frameRate
+	 *            the frame rate
+	 *
+	 */
+	public void setFrameRate(int frameRate) {
+
+		this.frameRate = Math.max(1, frameRate);
+
+	}
+
+	/**
+	 * Set the relative energy change under which the layout has converged
+	 *
+	 * @param tolerance
+	 *            the tolerance
+	 *
+	 */
+	public void setTolerance(double tolerance) {
+
+		this.tolerance = tolerance;
+
+	}
+
+	public STATE getState() {
+
+		return state;
+
+	}
+
+	public int getIterations() {
+
+		return iterations;
+
+	}
+
+	public double getIterationsPerSecond() {
+
+		return iterationsPerSecond;
+
+	}
+
+	/**
+	 * Start the iterations on a new thread
+	 */
+	public void start() {
+		Thread thread = new Thread(this, "Layout Scheduler");
+
+		thread.setDaemon(true);
+		thread.setPriority(Thread.NORM_PRIORITY - 1);
+
+		thread.start();
+
+	}
+
+	/**
+	 * Stop after the current iteration
+	 */
+	public void stop() {
+
+		stopped = true;
+
+	}
+
+	@Override
+	public void run() {
+		long period = 1000000000L / frameRate;
+		long started = System.nanoTime();
+		long framed = started;
+		double energy = Double.POSITIVE_INFINITY;
+		int settled = 0;
+
+		STATE result = STATE.COMPLETE;
+
+		try {
+
+			while (!context.done()) {
+
+				if (stopped) {
+
+					result = STATE.STOPPED;
+
+					break;
+
+				}
+
+				context.step();
+
+				iterations += 1;
+
+				if (context instanceof ScheduledContext) {
+					double next = ((ScheduledContext) context).getEnergy();
+
+					settled = (!Double.isInfinite(energy) && !Double.isInfinite(next)
+							&& Math.abs(energy - next) <= tolerance * energy) ? settled + 1 : 0;
+
+					energy = next;
+
+					if (settled == PATIENCE) {
+
+						result = STATE.CONVERGED;
+
+						break;
+
+					}
+
+				}
+
+				long now = System.nanoTime();
+
+				if (now - framed >= period) {
+
+					framed = now;
+
+					publish(started, now, false);
+
+				}
+
+			}
+
+		} finally {
+
+			if (context instanceof ScheduledContext) {
+				((ScheduledContext) context).release();
+			}
+
+		}
+
+		state = result;
+
+		publish(started, System.nanoTime(), true);
+
+	}
+
+	/**
+	 * Publish the positions, repaint the view and tell the listener - frames
+	 * are skipped while it has yet to hear of the last one
+	 */
+	private void publish(long started, long now, final boolean last) {
+
+		if (context instanceof ScheduledContext) {
+			((ScheduledContext) context).publish();
+		}
+
+		iterationsPerSecond = (now > started) ? iterations * 1e9 / (now - started) : 0;
+
+		view.repaint();
+
+		if (listener == null || (notifying && !last)) {
+			return;
+		}
+
+		notifying = true;
+
+		SwingUtilities.invokeLater(new Runnable() {
+
+			@Override
+			public void run() {
+
+				notifying = false;
+
+				if (last) {
+					listener.finished(LayoutScheduler.this);
+				} else {
+					listener.progressed(LayoutScheduler.this);
+				}
+
+			}
+
+		});
+
+	}
+
+}
@@ -0,0 +1,387 @@
+package org.snail.viewer.jung.layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * A multilevel (coarsen - layout - refine) force directed {@code Layout}.
+ *
+ * The graph is coarsened into a hierarchy of smaller graphs by repeatedly
+ * matching each vertex with an unmatched neighbour and collapsing the
+ * leaves left over onto their neighbour - which folds the star shaped
+ * neighbourhoods common in RDF into single vertices. The coarsest graph gets
+ * a full force directed layout; each finer level then starts from its
+ * parent's positions (prolongation) and only needs a short, cool refinement.
+ *
+ * The levels are laid out one iteration per {@link #step()}, so the viewer
+ * shows the layout unfolding from coarse to fine.
+ *
+ */
+public class MultilevelLayout<V, E> extends ParallelForceLayout<V, E> {
+	private static final int COARSEST = 64;
+	private static final double MINIMUM_REDUCTION = 0.9;
+	private static final int LEVEL_ITERATIONS = 60;
+
+	/**
+	 * A level of the hierarchy - neighbour rows, and the vertex each vertex
+	 * collapses into on the next coarser level
+	 */
+	static class Level {
+		final int vertexCount;
+		final int[] offsets;
+		final int[] neighbours;
+
+		int[] coarse;
+
+		Level(int vertexCount, int[] offsets, int[] neighbours) {
+			this.vertexCount = vertexCount;
+			this.offsets = offsets;
+			this.neighbours = neighbours;
+		}
+
+		int degree(int vertex) {
+
+			return offsets[vertex + 1] - offsets[vertex];
+
+		}
+
+	}
+
+	private final List<Level> levels = new ArrayList<Level>();
+	private int current = 0;
+
+	private ForceSimulation levelSimulation;
+	private Random random;
+
+	/**
+	 * Creates an instance for the specified graph.
+	 */
+	public MultilevelLayout(Graph<V, E> graph) {
+		super(graph);
+
+	}
+
+	/**
+	 * Creates an instance for the specified graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param parallelism
+	 *            the number of threads
+	 *
+	 */
+	public MultilevelLayout(Graph<V, E> graph, int parallelism) {
+		super(graph, parallelism);
+
+	}
+
+	/**
+	 * Get the number of levels in the hierarchy
+	 *
+	 * @return the number of levels, 1 if the graph was not coarsened
+	 *
+	 */
+	public int getLevelCount() {
+
+		return levels.size();
+
+	}
+
+	/**
+	 * Get the level being laid out
+	 *
+	 * @return the level, 0 being the graph itself
+	 *
+	 */
+	public int getLevel() {
+
+		return current;
+
+	}
+
+	/**
+	 * Coarsen a level
+	 *
+	 * @param fine
+	 *            the level to coarsen, on return its vertices are mapped onto
+	 *            the coarser level
+	 * @param random
+	 *            the order vertices are matched in
+	 *
+	 * @return the coarser level
+	 *
+	 */
+	static Level coarsen(Level fine, Random random) {
+		int vertexCount = fine.vertexCount;
+		int[] group = new int[vertexCount];
+		int[] order = new int[vertexCount];
+
+		Arrays.fill(group, -1);
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+			int swap = random.nextInt(iVertex + 1);
+
+			order[iVertex] = order[swap];
+			order[swap] = iVertex;
+
+		}
+
+		int groups = 0;
+
+		for (int vertex : order) {
+
+			if (group[vertex] != -1) {
+				continue;
+			}
+
+			int match = -1;
+
+			for (int iRow = fine.offsets[vertex]; iRow < fine.offsets[vertex + 1]; iRow++) {
+				int neighbour = fine.neighbours[iRow];
+
+				if (group[neighbour] == -1 && (match == -1 || fine.degree(neighbour) < fine.degree(match))) {
+					match = neighbour;
+				}
+
+			}
+
+			if (match != -1) {
+				group[vertex] = groups;
+				group[match] = groups;
+				groups += 1;
+			} else if (fine.degree(vertex) == 1) {
+				group[vertex] = group[fine.neighbours[fine.offsets[vertex]]];
+			} else {
+				group[vertex] = groups++;
+			}
+
+		}
+
+		/*
+		 * Gather the members of each group, then merge their neighbour rows
+		 */
+		int[] memberOffsets = new int[groups + 1];
+
+		for (int vertex = 0; vertex < vertexCount; vertex++) {
+			memberOffsets[group[vertex] + 1] += 1;
+		}
+
+		for (int iGroup = 0; iGroup < groups; iGroup++) {
+			memberOffsets[iGroup + 1] += memberOffsets[iGroup];
+		}
+
+		int[] members = new int[vertexCount];
+		int[] fill = Arrays.copyOf(memberOffsets, groups);
+
+		for (int vertex = 0; vertex < vertexCount; vertex++) {
+			members[fill[group[vertex]]++] = vertex;
+		}
+
+		int[] offsets = new int[groups + 1];
+		int[] neighbours = new int[Math.max(16, fine.neighbours.length / 2)];
+		int[] mark = new int[groups];
+		int size = 0;
+
+		Arrays.fill(mark, -1);
+
+		for (int iGroup = 0; iGroup < groups; iGroup++) {
+			offsets[iGroup] = size;
+			mark[iGroup] = iGroup;
+
+			for (int iMember = memberOffsets[iGroup]; iMember < memberOffsets[iGroup + 1]; iMember++) {
+				int vertex = members[iMember];
+
+				for (int iRow = fine.offsets[vertex]; iRow < fine.offsets[vertex + 1]; iRow++) {
+					int neighbour = group[fine.neighbours[iRow]];
+
+					if (mark[neighbour] == iGroup) {
+						continue;
+					}
+
+					mark[neighbour] = iGroup;
+
+					if (size == neighbours.length) {
+						neighbours = Arrays.copyOf(neighbours, size * 2);
+					}
+
+					neighbours[size++] = neighbour;
+
+				}
+
+			}
+
+		}
+
+		offsets[groups] = size;
+
+		fine.coarse = group;
+
+		return new Level(groups, offsets, Arrays.copyOf(neighbours, size));
+
+	}
+
+	@Override
+	public void initialize() {
+
+		super.initialize();
+
+		levels.clear();
+
+		current = 0;
+		levelSimulation = null;
+
+		if (simulation == null) {
+			return;
+		}
+
+		random = new Random(simulation.getVertexCount());
+
+		Level level = new Level(simulation.getVertexCount(), offsets, neighbours);
+
+		levels.add(level);
+
+		while (level.vertexCount > COARSEST) {
+			Level coarser = coarsen(level, random);
+
+			if (coarser.vertexCount > level.vertexCount * MINIMUM_REDUCTION) {
+
+				level.coarse = null;
+
+				break;
+
+			}
+
+			levels.add(coarser);
+
+			level = coarser;
+
+		}
+
+		current = levels.size() - 1;
+
+		if (current > 0) {
+			levelSimulation = createSimulation(level.vertexCount, level.offsets, level.neighbours);
+
+			levelSimulation.setBounds(getSize().getWidth(), getSize().getHeight());
+			levelSimulation.randomize(random);
+
+			project();
+
+		}
+
+	}
+
+	/**
+	 * Prolongate the current level onto the next finer one, which starts
+	 * cool as it only needs refining
+	 */
+	private void refine() {
+		Level fine = levels.get(current - 1);
+		ForceSimulation next = (current == 1) ? simulation
+				: createSimulation(fine.vertexCount, fine.offsets, fine.neighbours);
+
+		if (current > 1) {
+			next.setBounds(getSize().getWidth(), getSize().getHeight());
+			next.setMaximumIterations(LEVEL_ITERATIONS);
+		}
+
+		double jitter = next.getEdgeLength() * 0.1;
+
+		for (int vertex = 0; vertex < fine.vertexCount; vertex++) {
+			int parent = fine.coarse[vertex];
+
+			if (!next.isLocked(vertex)) {
+				next.setPosition(vertex, levelSimulation.getX(parent) + (random.nextDouble() - 0.5) * jitter,
+						levelSimulation.getY(parent) + (random.nextDouble() - 0.5) * jitter);
+			}
+
+		}
+
+		next.restart();
+		next.setTemperature(next.getEdgeLength());
+
+		levelSimulation.shutdown();
+
+		current -= 1;
+
+		levelSimulation = (current == 0) ? null : next;
+
+		if (current > 0) {
+			project();
+		}
+
+	}
+
+	/**
+	 * Show the vertices at the position of their ancestor on the current level
+	 */
+	private void project() {
+
+		for (int vertex = 0; vertex < simulation.getVertexCount(); vertex++) {
+			int ancestor = vertex;
+
+			for (int iLevel = 0; iLevel < current; iLevel++) {
+				ancestor = levels.get(iLevel).coarse[ancestor];
+			}
+
+			if (!simulation.isLocked(vertex)) {
+				simulation.setPosition(vertex, levelSimulation.getX(ancestor), levelSimulation.getY(ancestor));
+			}
+
+		}
+
+	}
+
+	@Override
+	public void release() {
+
+		super.release();
+
+		if (levelSimulation != null) {
+			levelSimulation.shutdown();
+		}
+
+	}
+
+	@Override
+	public void step() {
+
+		if (levelSimulation == null) {
+
+			super.step();
+
+			return;
+
+		}
+
+		levelSimulation.step();
+
+		if (levelSimulation.isDone()) {
+			refine();
+		}
+
+	}
+
+	/**
+	 * The energy only settles on the last level, the coarser ones are cut
+	 * short anyway
+	 */
+	@Override
+	public double getEnergy() {
+
+		return (levelSimulation == null) ? super.getEnergy() : Double.POSITIVE_INFINITY;
+
+	}
+
+	@Override
+	public boolean done() {
+
+		return levelSimulation == null && super.done();
+
+	}
+
+}
@@ -0,0 +1,72 @@
+package org.snail.viewer.jung.layout;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * A {@link BarnesHutLayout} whose iterations are spread over several threads.
+ *
+ * The forces on the vertices are computed in parallel on a fork-join pool
+ * and the positions are double buffered (see
+ * {@link ParallelForceSimulation}), so the viewer never paints a half
+ * finished iteration.
+ *
+ */
+public class ParallelForceLayout<V, E> extends BarnesHutLayout<V, E> {
+	private int parallelism;
+
+	/**
+	 * Creates an instance for the specified graph, using a thread per
+	 * processor.
+	 */
+	public ParallelForceLayout(Graph<V, E> graph) {
+		this(graph, Runtime.getRuntime().availableProcessors());
+
+	}
+
+	/**
+	 * Creates an instance for the specified graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param parallelism
+	 *            the number of threads
+	 *
+	 */
+	public ParallelForceLayout(Graph<V, E> graph, int parallelism) {
+		super(graph);
+
+		this.parallelism = Math.max(1, parallelism);
+
+	}
+
+	/**
+	 * Set the number of threads computing the forces
+	 *
+	 * @param parallelism
+	 *            the number of threads (at least 1)
+	 *
+	 */
+	public void setParallelism(int parallelism) {
+
+		this.parallelism = Math.max(1, parallelism);
+
+		if (simulation != null) {
+			((ParallelForceSimulation) simulation).setParallelism(this.parallelism);
+		}
+
+	}
+
+	public int getParallelism() {
+
+		return parallelism;
+
+	}
+
+	@Override
+	protected ForceSimulation createSimulation(int vertexCount, int[] offsets, int[] neighbours) {
+
+		return new ParallelForceSimulation(vertexCount, offsets, neighbours, parallelism);
+
+	}
+
+}
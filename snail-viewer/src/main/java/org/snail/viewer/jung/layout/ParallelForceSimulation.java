@@ -0,0 +1,149 @@
+package org.snail.viewer.jung.layout;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A {@link ForceSimulation} that computes the forces of each iteration on a
+ * fork-join pool, and double buffers the positions.
+ *
+ * An iteration reads the front positions and writes the back ones, then
+ * swaps the two, so no position is moved while another thread still computes
+ * forces from it. Viewers read the published positions (see
+ * {@link #publish()}). The pool is started by the first parallel iteration
+ * and stopped by {@link #shutdown()}.
+ *
+ */
+public class ParallelForceSimulation extends ForceSimulation {
+	private static final int GRAIN = 256;
+
+	private double[] backX;
+	private double[] backY;
+
+	private int parallelism;
+	private ForkJoinPool pool = null;
+
+	/**
+	 * Create a simulation
+	 *
+	 * @param vertexCount
+	 *            the number of vertices
+	 * @param offsets
+	 *            the neighbour row offsets (vertexCount + 1 entries)
+	 * @param neighbours
+	 *            the neighbour ids
+	 * @param parallelism
+	 *            the number of threads
+	 *
+	 */
+	public ParallelForceSimulation(int vertexCount, int[] offsets, int[] neighbours, int parallelism) {
+		super(vertexCount, offsets, neighbours);
+
+		backX = new double[vertexCount];
+		backY = new double[vertexCount];
+
+		setParallelism(parallelism);
+
+	}
+
+	/**
+	 * Set the number of threads computing the forces
+	 *
+	 * @param parallelism
+	 *            the number of threads (at least 1)
+	 *
+	 */
+	public void setParallelism(int parallelism) {
+
+		shutdown();
+
+		this.parallelism = Math.max(1, parallelism);
+
+	}
+
+	/**
+	 * Stop the threads - the next iteration starts a new pool
+	 */
+	@Override
+	public void shutdown() {
+
+		if (pool != null) {
+			pool.shutdown();
+		}
+
+		pool = null;
+
+	}
+
+	public int getParallelism() {
+
+		return parallelism;
+
+	}
+
+	/**
+	 * Computes the forces on a range of vertices
+	 */
+	@SuppressWarnings("serial")
+	class Forces extends RecursiveAction {
+		final int from;
+		final int to;
+
+		Forces(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (to - from <= GRAIN) {
+
+				computeForces(from, to);
+
+				return;
+
+			}
+
+			int middle = (from + to) >>> 1;
+
+			invokeAll(new Forces(from, middle), new Forces(middle, to));
+
+		}
+
+	}
+
+	@Override
+	protected void computeForces() {
+
+		if (parallelism == 1 || vertexCount <= GRAIN) {
+			computeForces(0, vertexCount);
+		} else {
+
+			if (pool == null) {
+				pool = new ForkJoinPool(parallelism);
+			}
+
+			pool.invoke(new Forces(0, vertexCount));
+
+		}
+
+	}
+
+	@Override
+	protected double move() {
+		double energy = move(x, y, backX, backY);
+		double[] frontX = x;
+		double[] frontY = y;
+
+		x = backX;
+		y = backY;
+
+		backX = frontX;
+		backY = frontY;
+
+		return energy;
+
+	}
+
+}
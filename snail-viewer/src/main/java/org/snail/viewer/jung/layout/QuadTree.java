@@ -0,0 +1,312 @@
+package org.snail.viewer.jung.layout;
+
+import java.util.Arrays;
+
+/**
+ * A Barnes-Hut quadtree over points held in primitive arrays.
+ *
+ * The tree is stored in parallel arrays indexed by node (cells are allocated
+ * from a pool that is reused from one build to the next) so rebuilding it on
+ * every layout iteration does not allocate. Each cell holds the number of
+ * points below it and their centre of mass; a distant cell stands in for all
+ * of its points when the repulsive force on a point is summed, giving an
+ * O(log n) force calculation per point.
+ *
+ * Once built the tree is only read, so forces may be computed concurrently.
+ *
+ */
+public class QuadTree {
+	private static final int MAXIMUM_DEPTH = 24;
+	private static final int EMPTY = -1;
+
+	/*
+	 * Cell record layout - centre of mass (x, y), size, mass - interleaved so
+	 * one cell is one cache line; the four children of a cell are allocated
+	 * together
+	 */
+	private static final int CENTER_X = 0;
+	private static final int CENTER_Y = 1;
+	private static final int SIZE = 2;
+	private static final int MASS = 3;
+	private static final int RECORD = 4;
+
+	private int nodeCount = 0;
+
+	private double[] cells = new double[0];
+	private double[] origins = new double[0];
+	private int[] firstChild = new int[0];
+	private int[] bodies = new int[0];
+
+	private int[] nextBody = new int[0];
+
+	private double[] x;
+	private double[] y;
+
+	/**
+	 * Build the tree
+	 *
+	 * @param x
+	 *            the points' x coordinates
+	 * @param y
+	 *            the points' y coordinates
+	 * @param count
+	 *            the number of points
+	 *
+	 */
+	public void build(double[] x, double[] y, int count) {
+
+		this.x = x;
+		this.y = y;
+
+		if (nextBody.length < count) {
+			nextBody = new int[count];
+		}
+
+		double minX = Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE;
+		double maxY = -Double.MAX_VALUE;
+
+		for (int iPoint = 0; iPoint < count; iPoint++) {
+			minX = Math.min(minX, x[iPoint]);
+			minY = Math.min(minY, y[iPoint]);
+			maxX = Math.max(maxX, x[iPoint]);
+			maxY = Math.max(maxY, y[iPoint]);
+		}
+
+		nodeCount = 0;
+
+		ensureCapacity(Math.max(16, count * 4));
+
+		initialize(allocate(1), minX, minY, Math.max(1, Math.max(maxX - minX, maxY - minY)) * 1.0001);
+
+		for (int iPoint = 0; iPoint < count; iPoint++) {
+			insert(iPoint);
+		}
+
+		for (int iNode = 0; iNode < nodeCount; iNode++) {
+			double mass = cells[iNode * RECORD + MASS];
+
+			if (mass > 0) {
+				cells[iNode * RECORD + CENTER_X] /= mass;
+				cells[iNode * RECORD + CENTER_Y] /= mass;
+			}
+
+		}
+
+	}
+
+	private void ensureCapacity(int capacity) {
+
+		if (capacity > firstChild.length) {
+			cells = Arrays.copyOf(cells, capacity * RECORD);
+			origins = Arrays.copyOf(origins, capacity * 2);
+			firstChild = Arrays.copyOf(firstChild, capacity);
+			bodies = Arrays.copyOf(bodies, capacity);
+		}
+
+	}
+
+	/**
+	 * Allocate consecutive cells
+	 */
+	private int allocate(int count) {
+
+		if (nodeCount + count > firstChild.length) {
+			ensureCapacity(Math.max(nodeCount + count, firstChild.length * 2));
+		}
+
+		int node = nodeCount;
+
+		nodeCount += count;
+
+		return node;
+
+	}
+
+	private void initialize(int node, double left, double top, double size) {
+
+		cells[node * RECORD + CENTER_X] = 0;
+		cells[node * RECORD + CENTER_Y] = 0;
+		cells[node * RECORD + SIZE] = size;
+		cells[node * RECORD + MASS] = 0;
+		origins[node * 2] = left;
+		origins[node * 2 + 1] = top;
+		firstChild[node] = EMPTY;
+		bodies[node] = EMPTY;
+
+	}
+
+	/**
+	 * Get the child cell of a node holding a point, splitting the node if it
+	 * is a leaf
+	 */
+	private int child(int node, double px, double py) {
+		double half = cells[node * RECORD + SIZE] / 2;
+		double left = origins[node * 2];
+		double top = origins[node * 2 + 1];
+
+		if (firstChild[node] == EMPTY) {
+			int first = allocate(4);
+
+			for (int iQuadrant = 0; iQuadrant < 4; iQuadrant++) {
+				initialize(first + iQuadrant, left + ((iQuadrant & 1) != 0 ? half : 0),
+						top + ((iQuadrant & 2) != 0 ? half : 0), half);
+			}
+
+			firstChild[node] = first;
+
+		}
+
+		return firstChild[node] + ((px >= left + half) ? 1 : 0) + ((py >= top + half) ? 2 : 0);
+
+	}
+
+	private void add(int node, double px, double py) {
+
+		cells[node * RECORD + CENTER_X] += px;
+		cells[node * RECORD + CENTER_Y] += py;
+		cells[node * RECORD + MASS] += 1;
+
+	}
+
+	private void insert(int point) {
+		double px = x[point];
+		double py = y[point];
+		int node = 0;
+		int depth = 0;
+
+		nextBody[point] = EMPTY;
+
+		while (true) {
+			add(node, px, py);
+
+			if (firstChild[node] == EMPTY) {
+
+				if (bodies[node] == EMPTY) {
+
+					bodies[node] = point;
+
+					return;
+
+				}
+
+				if (depth >= MAXIMUM_DEPTH) {
+
+					nextBody[point] = bodies[node];
+					bodies[node] = point;
+
+					return;
+
+				}
+
+				/*
+				 * Split the leaf - push its point down one level
+				 */
+				int resident = bodies[node];
+				int target = child(node, x[resident], y[resident]);
+
+				bodies[node] = EMPTY;
+				bodies[target] = resident;
+
+				add(target, x[resident], y[resident]);
+
+			}
+
+			node = child(node, px, py);
+			depth += 1;
+
+		}
+
+	}
+
+	/**
+	 * Accumulate the repulsive force (k&sup2;/d, Fruchterman-Reingold) acting
+	 * on a point
+	 *
+	 * @param point
+	 *            the point
+	 * @param theta
+	 *            the opening angle - a cell whose size over distance is below
+	 *            it is treated as a single body
+	 * @param strength
+	 *            the force constant k&sup2;
+	 * @param forceX
+	 *            the x forces, the point's entry is added to
+	 * @param forceY
+	 *            the y forces, the point's entry is added to
+	 *
+	 */
+	public void repulse(int point, double theta, double strength, double[] forceX, double[] forceY) {
+
+		if (nodeCount > 0) {
+			repulse(0, point, x[point], y[point], theta * theta, strength, forceX, forceY);
+		}
+
+	}
+
+	private void repulse(int node, int point, double px, double py, double theta2, double strength,
+			double[] forceX, double[] forceY) {
+		int record = node * RECORD;
+		double mass = cells[record + MASS];
+
+		if (mass == 0) {
+			return;
+		}
+
+		if (firstChild[node] == EMPTY) {
+
+			for (int body = bodies[node]; body != EMPTY; body = nextBody[body]) {
+
+				if (body != point) {
+					push(point, px - x[body], py - y[body], 1, strength, forceX, forceY);
+				}
+
+			}
+
+			return;
+
+		}
+
+		double deltaX = px - cells[record + CENTER_X];
+		double deltaY = py - cells[record + CENTER_Y];
+		double size = cells[record + SIZE];
+
+		if (size * size < theta2 * (deltaX * deltaX + deltaY * deltaY)) {
+
+			push(point, deltaX, deltaY, mass, strength, forceX, forceY);
+
+			return;
+
+		}
+
+		for (int child = firstChild[node]; child < firstChild[node] + 4; child++) {
+			repulse(child, point, px, py, theta2, strength, forceX, forceY);
+		}
+
+	}
+
+	private static void push(int point, double deltaX, double deltaY, double mass, double strength, double[] forceX,
+			double[] forceY) {
+		double distance2 = deltaX * deltaX + deltaY * deltaY;
+
+		if (distance2 < 0.01) {
+
+			/*
+			 * Coincident points - separate them in a direction fixed by the
+			 * point so the force is deterministic
+			 */
+			deltaX = 0.1 * Math.cos(point);
+			deltaY = 0.1 * Math.sin(point);
+			distance2 = 0.01;
+
+		}
+
+		double scale = strength * mass / distance2;
+
+		forceX[point] += deltaX * scale;
+		forceY[point] += deltaY * scale;
+
+	}
+
+}
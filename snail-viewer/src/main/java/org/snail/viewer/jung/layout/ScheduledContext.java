@@ -0,0 +1,33 @@
+package org.snail.viewer.jung.layout;
+
+import edu.uci.ics.jung.algorithms.util.IterativeContext;
+
+/**
+ * An {@code IterativeContext} a {@link LayoutScheduler} can judge the
+ * convergence of, and that publishes snapshots of its positions.
+ *
+ */
+public interface ScheduledContext extends IterativeContext {
+
+	/**
+	 * Get the energy of the last iteration - how far it moved the vertices
+	 *
+	 * @return the energy, infinite if it is not yet meaningful
+	 *
+	 */
+	double getEnergy();
+
+	/**
+	 * Publish the current positions to the viewer - called between
+	 * iterations by the thread running them
+	 */
+	void publish();
+
+	/**
+	 * Release what the iterations hold on to, such as worker threads - called
+	 * by the thread running them once it stops (stepping again takes them
+	 * back)
+	 */
+	void release();
+
+}
@@ -0,0 +1,172 @@
+package org.snail.viewer.jung.picking;
+
+import java.awt.event.ItemEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import edu.uci.ics.jung.visualization.picking.MultiPickedState;
+
+/**
+ * A {@code PickedState} that can pick or unpick many elements at once.
+ *
+ * A batch operation changes the picked set in one go and fires a single
+ * {@link ItemEvent} per state change (one {@code SELECTED}, one
+ * {@code DESELECTED}) whose item is the unmodifiable collection of the
+ * elements that changed; single {@link #pick(Object, boolean)} calls behave as
+ * in {@link MultiPickedState}. Use {@link #getItems(ItemEvent)} to handle both
+ * kinds of event.
+ *
+ * Listeners interested in the selection rather than in individual elements
+ * can register a {@link ChangeListener}: all the changes made during one pass
+ * of the Event Dispatch Thread - a mouse gesture such as a rubber band
+ * selection, or a batch made from another thread - are coalesced into a
+ * single "selection changed" event, delivered on the Event Dispatch Thread.
+ *
+ */
+public class BatchPickedState<T> extends MultiPickedState<T> {
+	private final AtomicBoolean pending = new AtomicBoolean(false);
+
+	private final Runnable notifier = new Runnable() {
+
+		@Override
+		public void run() {
+
+			pending.set(false);
+
+			ChangeEvent event = new ChangeEvent(BatchPickedState.this);
+
+			for (ChangeListener listener : listenerList.getListeners(ChangeListener.class)) {
+				listener.stateChanged(event);
+			}
+
+		}
+
+	};
+
+	public void addChangeListener(ChangeListener listener) {
+
+		listenerList.add(ChangeListener.class, listener);
+
+	}
+
+	public void removeChangeListener(ChangeListener listener) {
+
+		listenerList.remove(ChangeListener.class, listener);
+
+	}
+
+	@Override
+	protected void fireItemStateChanged(ItemEvent event) {
+
+		super.fireItemStateChanged(event);
+
+		if (pending.compareAndSet(false, true)) {
+			SwingUtilities.invokeLater(notifier);
+		}
+
+	}
+
+	/**
+	 * Pick or unpick a collection of elements
+	 *
+	 * @param items
+	 *            the elements
+	 * @param state
+	 *            'true' to pick, 'false' to unpick
+	 *
+	 * @return 'true' if the picked set changed
+	 *
+	 */
+	public boolean pick(Collection<? extends T> items, boolean state) {
+		List<T> changed = new ArrayList<T>();
+
+		for (T item : items) {
+
+			if (state ? picked.add(item) : picked.remove(item)) {
+				changed.add(item);
+			}
+
+		}
+
+		fire(changed, state ? ItemEvent.SELECTED : ItemEvent.DESELECTED);
+
+		return !changed.isEmpty();
+
+	}
+
+	/**
+	 * Replace the picked elements - only the elements whose state actually
+	 * changes are reported
+	 *
+	 * @param items
+	 *            the elements to be picked, all others are unpicked
+	 *
+	 */
+	public void setPicked(Collection<? extends T> items) {
+		Set<T> target = new LinkedHashSet<T>(items);
+		List<T> unpicked = new ArrayList<T>();
+
+		/*
+		 * Removed through the iterator - removeAll() with a list scans the list
+		 * for every picked element when the list is the larger
+		 */
+		for (Iterator<T> iItem = picked.iterator(); iItem.hasNext();) {
+			T item = iItem.next();
+
+			if (!target.contains(item)) {
+				unpicked.add(item);
+				iItem.remove();
+			}
+
+		}
+
+		fire(unpicked, ItemEvent.DESELECTED);
+
+		pick(target, true);
+
+	}
+
+	@Override
+	public void clear() {
+
+		setPicked(Collections.<T> emptyList());
+
+	}
+
+	private void fire(List<T> changed, int stateChange) {
+
+		if (!changed.isEmpty()) {
+			fireItemStateChanged(new ItemEvent(this, ItemEvent.ITEM_STATE_CHANGED,
+					Collections.unmodifiableList(changed), stateChange));
+		}
+
+	}
+
+	/**
+	 * Get the elements an event refers to
+	 *
+	 * @param event
+	 *            a single or a batch event
+	 *
+	 * @return the elements that changed state
+	 *
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Collection<T> getItems(ItemEvent event) {
+
+		return (event.getItem() instanceof Collection) ? (Collection<T>) event.getItem()
+				: Collections.singletonList((T) event.getItem());
+
+	}
+
+}
@@ -0,0 +1,314 @@
+package org.snail.viewer.jung.picking;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Statement;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+
+import edu.uci.ics.jung.algorithms.layout.Layout;
+
+/**
+ * The positions of a graph's vertices and edges in {@link SpatialIndex}
+ * grids, by vertex and edge id, in layout coordinates.
+ *
+ * The grids are built from the layout on the first query after
+ * {@link #invalidate()} (the whole layout moved) - the edge grid only once
+ * edges are asked for, with its cells widened so long edges cross a bounded
+ * number of cells - and updated in place by {@link #moved(RDFNode, Point2D)}
+ * (a vertex was dragged).
+ *
+ * While the layout is running it is marked as moving, and users that query
+ * every frame (rather than on a mouse event) should not rely on the grids.
+ *
+ */
+public class LayoutSpatialIndex {
+	private static final double CELL_SPACING = 2;
+	private static final double EDGE_CELLS = 8;
+
+	private final ModelGraphSnapshot graph;
+
+	private double[] x;
+	private double[] y;
+
+	private Rectangle2D extent;
+	private double cellSize;
+
+	private SpatialIndex vertexIndex = null;
+	private SpatialIndex edgeIndex = null;
+
+	private boolean moving = false;
+
+	/**
+	 * Create the index
+	 *
+	 * @param graph
+	 *            the graph
+	 *
+	 */
+	public LayoutSpatialIndex(ModelGraphSnapshot graph) {
+
+		this.graph = graph;
+
+	}
+
+	public ModelGraphSnapshot getGraph() {
+
+		return graph;
+
+	}
+
+	/**
+	 * The layout has moved - rebuild the grids on the next query
+	 */
+	public void invalidate() {
+
+		vertexIndex = null;
+		edgeIndex = null;
+
+	}
+
+	/**
+	 * Mark the layout as running (or at rest)
+	 *
+	 * @param moving
+	 *            true while the layout is running
+	 *
+	 */
+	public void setMoving(boolean moving) {
+
+		this.moving = moving;
+
+		invalidate();
+
+	}
+
+	public boolean isMoving() {
+
+		return moving;
+
+	}
+
+	/**
+	 * A vertex has been moved - move it and its edges in the grids
+	 *
+	 * @param vertex
+	 *            the vertex
+	 * @param location
+	 *            its new location
+	 *
+	 */
+	public void moved(RDFNode vertex, Point2D location) {
+		int id = graph.getId(vertex);
+
+		if (vertexIndex == null || id < 0) {
+			return;
+		}
+
+		if (edgeIndex != null) {
+			traceEdges(id, false);
+		}
+
+		vertexIndex.remove(id, x[id], y[id], x[id], y[id]);
+
+		x[id] = location.getX();
+		y[id] = location.getY();
+
+		vertexIndex.insert(id, x[id], y[id], x[id], y[id]);
+
+		if (edgeIndex != null) {
+			traceEdges(id, true);
+		}
+
+	}
+
+	/**
+	 * Find the vertices inside an area
+	 *
+	 * @param layout
+	 *            the layout, read if the grids need building
+	 * @param area
+	 *            the area in layout coordinates
+	 *
+	 * @return the candidate vertex ids
+	 *
+	 */
+	public int[] findVertices(Layout<RDFNode, Statement> layout, Rectangle2D area) {
+
+		if (vertexIndex == null) {
+			build(layout);
+		}
+
+		return vertexIndex.query(area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY());
+
+	}
+
+	/**
+	 * Find the edges whose line passes through an area - loops are always
+	 * included if they are in a cell the area overlaps
+	 *
+	 * @param layout
+	 *            the layout, read if the grids need building
+	 * @param area
+	 *            the area in layout coordinates
+	 *
+	 * @return the edge ids
+	 *
+	 */
+	public int[] findEdges(Layout<RDFNode, Statement> layout, Rectangle2D area) {
+
+		if (edgeIndex == null) {
+			buildEdges(layout);
+		}
+
+		int[] ids = edgeIndex.query(area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY());
+		int size = 0;
+
+		for (int id : ids) {
+			int source = graph.getSourceId(id);
+			int target = graph.getDestId(id);
+
+			if (source == target || area.intersectsLine(x[source], y[source], x[target], y[target])) {
+				ids[size++] = id;
+			}
+
+		}
+
+		return (size == ids.length) ? ids : Arrays.copyOf(ids, size);
+
+	}
+
+	/**
+	 * Get the indexed x of a vertex (valid after a query)
+	 */
+	public double getX(int id) {
+
+		return x[id];
+
+	}
+
+	/**
+	 * Get the indexed y of a vertex (valid after a query)
+	 */
+	public double getY(int id) {
+
+		return y[id];
+
+	}
+
+	/**
+	 * Insert or remove the edges of a vertex
+	 */
+	private void traceEdges(int id, boolean insert) {
+		int[] outOffsets = graph.getOutEdgeOffsets();
+		int[] outEdges = graph.getOutEdgeIds();
+		int[] inOffsets = graph.getInEdgeOffsets();
+		int[] inEdges = graph.getInEdgeIds();
+
+		for (int iRow = outOffsets[id]; iRow < outOffsets[id + 1]; iRow++) {
+			traceEdge(outEdges[iRow], insert);
+		}
+
+		for (int iRow = inOffsets[id]; iRow < inOffsets[id + 1]; iRow++) {
+
+			if (graph.getSourceId(inEdges[iRow]) != id) {
+				traceEdge(inEdges[iRow], insert);
+			}
+
+		}
+
+	}
+
+	private void traceEdge(int edge, boolean insert) {
+		int source = graph.getSourceId(edge);
+		int target = graph.getDestId(edge);
+
+		if (insert) {
+			edgeIndex.insert(edge, x[source], y[source], x[target], y[target]);
+		} else {
+			edgeIndex.remove(edge, x[source], y[source], x[target], y[target]);
+		}
+
+	}
+
+	/**
+	 * Build the vertex grid from the layout's current positions
+	 */
+	private void build(Layout<RDFNode, Statement> layout) {
+		int vertexCount = graph.getVertexCount();
+		double minimumX = Double.POSITIVE_INFINITY;
+		double minimumY = Double.POSITIVE_INFINITY;
+		double maximumX = Double.NEGATIVE_INFINITY;
+		double maximumY = Double.NEGATIVE_INFINITY;
+
+		x = new double[vertexCount];
+		y = new double[vertexCount];
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+			Point2D location = layout.transform(graph.getVertex(iVertex));
+
+			x[iVertex] = location.getX();
+			y[iVertex] = location.getY();
+
+			minimumX = Math.min(minimumX, x[iVertex]);
+			minimumY = Math.min(minimumY, y[iVertex]);
+			maximumX = Math.max(maximumX, x[iVertex]);
+			maximumY = Math.max(maximumY, y[iVertex]);
+
+		}
+
+		if (vertexCount == 0) {
+			minimumX = minimumY = maximumX = maximumY = 0;
+		}
+
+		/*
+		 * Cells a little wider than the average vertex spacing
+		 */
+		double area = Math.max(1, (maximumX - minimumX) * (maximumY - minimumY));
+
+		cellSize = Math.max(1, Math.sqrt(area / Math.max(1, vertexCount)) * CELL_SPACING);
+		extent = new Rectangle2D.Double(minimumX, minimumY, maximumX - minimumX, maximumY - minimumY);
+
+		vertexIndex = new SpatialIndex(minimumX, minimumY, maximumX, maximumY, cellSize, vertexCount);
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+			vertexIndex.insert(iVertex, x[iVertex], y[iVertex], x[iVertex], y[iVertex]);
+		}
+
+	}
+
+	/**
+	 * Build the edge grid from the indexed positions. The cells are widened
+	 * until the edges cross no more than {@code EDGE_CELLS} cells each on
+	 * average.
+	 */
+	private void buildEdges(Layout<RDFNode, Statement> layout) {
+
+		if (vertexIndex == null) {
+			build(layout);
+		}
+
+		double crossings = 0;
+
+		for (int iEdge = 0; iEdge < graph.getEdgeCount(); iEdge++) {
+			int source = graph.getSourceId(iEdge);
+			int target = graph.getDestId(iEdge);
+
+			crossings += (Math.abs(x[target] - x[source]) + Math.abs(y[target] - y[source])) / cellSize + 1;
+
+		}
+
+		double edgeCellSize = cellSize * Math.max(1, crossings / Math.max(1, graph.getEdgeCount() * EDGE_CELLS));
+
+		edgeIndex = new SpatialIndex(extent.getMinX(), extent.getMinY(), extent.getMaxX(), extent.getMaxY(),
+				edgeCellSize, graph.getEdgeCount());
+
+		for (int iEdge = 0; iEdge < graph.getEdgeCount(); iEdge++) {
+			traceEdge(iEdge, true);
+		}
+
+	}
+
+}
@@ -0,0 +1,243 @@
+package org.snail.viewer.jung.picking;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over points and line segments, identified by ids
+ * 0..capacity-1.
+ *
+ * Each item is held in every cell it passes through - a point in one cell, a
+ * segment in the cells along it - so a rectangle query only visits the cells
+ * the rectangle overlaps. Items outside the grid's extent are held in the
+ * border cells. An item is moved by removing it with its old geometry and
+ * inserting it with the new one, which only touches the cells involved.
+ *
+ * A query returns candidates: items in the overlapped cells, each once, which
+ * the caller then tests exactly.
+ *
+ */
+public class SpatialIndex {
+	private static final int INITIAL_CELL_CAPACITY = 4;
+
+	private final double originX;
+	private final double originY;
+	private final double cellSize;
+	private final int columns;
+	private final int rows;
+
+	private final int[][] cells;
+	private final int[] counts;
+
+	private final int[] stamps;
+	private int stamp = 0;
+
+	private int[] result = new int[64];
+
+	/**
+	 * Create an index
+	 *
+	 * @param minimumX
+	 *            the left of the extent
+	 * @param minimumY
+	 *            the top of the extent
+	 * @param maximumX
+	 *            the right of the extent
+	 * @param maximumY
+	 *            the bottom of the extent
+	 * @param cellSize
+	 *            the width and height of a cell
+	 * @param capacity
+	 *            the number of ids
+	 *
+	 */
+	public SpatialIndex(double minimumX, double minimumY, double maximumX, double maximumY, double cellSize,
+			int capacity) {
+
+		this.originX = minimumX;
+		this.originY = minimumY;
+		this.cellSize = cellSize;
+
+		columns = Math.max(1, (int) Math.ceil((maximumX - minimumX) / cellSize));
+		rows = Math.max(1, (int) Math.ceil((maximumY - minimumY) / cellSize));
+
+		cells = new int[columns * rows][];
+		counts = new int[columns * rows];
+
+		stamps = new int[capacity];
+
+	}
+
+	private int column(double x) {
+
+		return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - originX) / cellSize)));
+
+	}
+
+	private int row(double y) {
+
+		return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - originY) / cellSize)));
+
+	}
+
+	/**
+	 * Insert an item
+	 *
+	 * @param id
+	 *            the item's id
+	 * @param x1
+	 *            the x of the start (or of the point)
+	 * @param y1
+	 *            the y of the start (or of the point)
+	 * @param x2
+	 *            the x of the end (or of the point)
+	 * @param y2
+	 *            the y of the end (or of the point)
+	 *
+	 */
+	public void insert(int id, double x1, double y1, double x2, double y2) {
+
+		trace(id, x1, y1, x2, y2, true);
+
+	}
+
+	/**
+	 * Remove an item - the geometry must be the one it was inserted with
+	 */
+	public void remove(int id, double x1, double y1, double x2, double y2) {
+
+		trace(id, x1, y1, x2, y2, false);
+
+	}
+
+	/**
+	 * Visit the cells along a segment - for each column it spans, the rows
+	 * between the segment's heights at the column's edges
+	 */
+	private void trace(int id, double x1, double y1, double x2, double y2, boolean insert) {
+
+		if (x2 < x1) {
+			double swap = x1;
+
+			x1 = x2;
+			x2 = swap;
+
+			swap = y1;
+
+			y1 = y2;
+			y2 = swap;
+		}
+
+		int firstColumn = column(x1);
+		int lastColumn = column(x2);
+
+		for (int iColumn = firstColumn; iColumn <= lastColumn; iColumn++) {
+			double left = (iColumn == firstColumn) ? x1 : originX + iColumn * cellSize;
+			double right = (iColumn == lastColumn) ? x2 : originX + (iColumn + 1) * cellSize;
+			double top = y1;
+			double bottom = y2;
+
+			if (x2 > x1) {
+				top = y1 + (y2 - y1) * (left - x1) / (x2 - x1);
+				bottom = y1 + (y2 - y1) * (right - x1) / (x2 - x1);
+			}
+
+			int firstRow = row(Math.min(top, bottom));
+			int lastRow = row(Math.max(top, bottom));
+
+			for (int iRow = firstRow; iRow <= lastRow; iRow++) {
+				int cell = iRow * columns + iColumn;
+
+				if (insert) {
+					add(cell, id);
+				} else {
+					delete(cell, id);
+				}
+
+			}
+
+		}
+
+	}
+
+	private void add(int cell, int id) {
+
+		if (cells[cell] == null) {
+			cells[cell] = new int[INITIAL_CELL_CAPACITY];
+		} else if (counts[cell] == cells[cell].length) {
+			cells[cell] = Arrays.copyOf(cells[cell], counts[cell] * 2);
+		}
+
+		cells[cell][counts[cell]++] = id;
+
+	}
+
+	private void delete(int cell, int id) {
+		int[] items = cells[cell];
+
+		for (int iItem = 0; iItem < counts[cell]; iItem++) {
+
+			if (items[iItem] == id) {
+				items[iItem] = items[--counts[cell]];
+
+				return;
+			}
+
+		}
+
+	}
+
+	/**
+	 * Find the items in the cells a rectangle overlaps
+	 *
+	 * @param minimumX
+	 *            the left of the rectangle
+	 * @param minimumY
+	 *            the top of the rectangle
+	 * @param maximumX
+	 *            the right of the rectangle
+	 * @param maximumY
+	 *            the bottom of the rectangle
+	 *
+	 * @return the candidate ids, each once
+	 *
+	 */
+	public int[] query(double minimumX, double minimumY, double maximumX, double maximumY) {
+		int size = 0;
+
+		if (++stamp == Integer.MAX_VALUE) {
+			Arrays.fill(stamps, 0);
+
+			stamp = 1;
+		}
+
+		for (int iRow = row(minimumY); iRow <= row(maximumY); iRow++) {
+
+			for (int iColumn = column(minimumX); iColumn <= column(maximumX); iColumn++) {
+				int cell = iRow * columns + iColumn;
+
+				for (int iItem = 0; iItem < counts[cell]; iItem++) {
+					int id = cells[cell][iItem];
+
+					if (stamps[id] == stamp) {
+						continue;
+					}
+
+					stamps[id] = stamp;
+
+					if (size == result.length) {
+						result = Arrays.copyOf(result, size * 2);
+					}
+
+					result[size++] = id;
+
+				}
+
+			}
+
+		}
+
+		return Arrays.copyOf(result, size);
+
+	}
+
+}
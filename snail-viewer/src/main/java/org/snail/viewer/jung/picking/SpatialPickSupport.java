@@ -0,0 +1,163 @@
+package org.snail.viewer.jung.picking;
+
+import java.awt.Shape;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Statement;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.visualization.Layer;
+import edu.uci.ics.jung.visualization.MultiLayerTransformer;
+import edu.uci.ics.jung.visualization.VisualizationServer;
+import edu.uci.ics.jung.visualization.picking.ShapePickSupport;
+
+/**
+ * A {@code GraphElementAccessor} that only tests the vertices and edges near
+ * the mouse against their shapes.
+ *
+ * The candidates around the point or inside the rectangle are looked up in a
+ * {@link LayoutSpatialIndex}, and {@link ShapePickSupport} tests just those -
+ * so a pick costs the same however large the graph.
+ *
+ */
+public class SpatialPickSupport extends ShapePickSupport<RDFNode, Statement> {
+	private static final double RADIUS = 24;
+
+	private final LayoutSpatialIndex index;
+
+	private Collection<RDFNode> vertexCandidates = null;
+	private Collection<Statement> edgeCandidates = null;
+
+	/**
+	 * Create the pick support
+	 *
+	 * @param viewer
+	 *            the viewer
+	 * @param index
+	 *            the index of the layout shown by the viewer
+	 *
+	 */
+	public SpatialPickSupport(VisualizationServer<RDFNode, Statement> viewer, LayoutSpatialIndex index) {
+		super(viewer);
+
+		this.index = index;
+
+	}
+
+	/**
+	 * Get the layout area around a point in view coordinates - the point is
+	 * taken into the layer the shapes are tested in and widened there, before
+	 * being taken back to the layout
+	 */
+	private Rectangle2D around(double viewX, double viewY) {
+		MultiLayerTransformer transformer = vv.getRenderContext().getMultiLayerTransformer();
+		Point2D point = transformer.inverseTransform(Layer.VIEW, new Point2D.Double(viewX, viewY));
+		Shape area = new Rectangle2D.Double(point.getX() - RADIUS, point.getY() - RADIUS, RADIUS * 2, RADIUS * 2);
+
+		return transformer.inverseTransform(Layer.LAYOUT, area).getBounds2D();
+
+	}
+
+	private Collection<RDFNode> findVertices(Layout<RDFNode, Statement> layout, Rectangle2D area) {
+		ModelGraphSnapshot graph = index.getGraph();
+		int[] ids = index.findVertices(layout, area);
+		List<RDFNode> vertices = new ArrayList<RDFNode>(ids.length);
+
+		for (int id : ids) {
+			vertices.add(graph.getVertex(id));
+		}
+
+		return vertices;
+
+	}
+
+	@Override
+	public RDFNode getVertex(Layout<RDFNode, Statement> layout, double x, double y) {
+
+		vertexCandidates = findVertices(layout, around(x, y));
+
+		try {
+
+			return super.getVertex(layout, x, y);
+
+		} finally {
+
+			vertexCandidates = null;
+
+		}
+
+	}
+
+	@Override
+	public Collection<RDFNode> getVertices(Layout<RDFNode, Statement> layout, Shape shape) {
+		MultiLayerTransformer transformer = vv.getRenderContext().getMultiLayerTransformer();
+
+		vertexCandidates = findVertices(layout,
+				transformer.inverseTransform(Layer.LAYOUT, transformer.inverseTransform(Layer.VIEW, shape))
+						.getBounds2D());
+
+		try {
+
+			return super.getVertices(layout, shape);
+
+		} finally {
+
+			vertexCandidates = null;
+
+		}
+
+	}
+
+	@Override
+	public Statement getEdge(Layout<RDFNode, Statement> layout, double x, double y) {
+		ModelGraphSnapshot graph = index.getGraph();
+		int[] ids = index.findEdges(layout, around(x, y));
+		List<Statement> edges = new ArrayList<Statement>(ids.length);
+
+		for (int id : ids) {
+			edges.add(graph.getEdge(id));
+		}
+
+		edgeCandidates = edges;
+
+		try {
+
+			return super.getEdge(layout, x, y);
+
+		} finally {
+
+			edgeCandidates = null;
+
+		}
+
+	}
+
+	@Override
+	protected Collection<RDFNode> getFilteredVertices(Layout<RDFNode, Statement> layout) {
+
+		if (vertexCandidates == null || verticesAreFiltered()) {
+			return super.getFilteredVertices(layout);
+		}
+
+		return vertexCandidates;
+
+	}
+
+	@Override
+	protected Collection<Statement> getFilteredEdges(Layout<RDFNode, Statement> layout) {
+
+		if (edgeCandidates == null || edgesAreFiltered()) {
+			return super.getFilteredEdges(layout);
+		}
+
+		return edgeCandidates;
+
+	}
+
+}
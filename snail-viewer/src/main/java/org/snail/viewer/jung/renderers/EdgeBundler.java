@@ -0,0 +1,218 @@
+package org.snail.viewer.jung.renderers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gathers edges that run between the same two clusters into bundles.
+ *
+ * The clusters are the cells of a square grid; an edge falls into the bundle
+ * of the cell its source is in and the cell its target is in, and a bundle
+ * is drawn from the mean source position to the mean target position of its
+ * edges. Edges within one cell, and bundles of fewer than the minimum count,
+ * are left to be drawn on their own.
+ *
+ */
+public class EdgeBundler {
+
+	/**
+	 * A bundle of edges
+	 */
+	public static class Bundle {
+		int count = 0;
+		int first;
+
+		double sourceX = 0;
+		double sourceY = 0;
+		double targetX = 0;
+		double targetY = 0;
+
+		public int getCount() {
+
+			return count;
+
+		}
+
+		/**
+		 * Get the index (in the edges given to the bundler) of the first edge
+		 */
+		public int getFirst() {
+
+			return first;
+
+		}
+
+		public double getSourceX() {
+
+			return sourceX / count;
+
+		}
+
+		public double getSourceY() {
+
+			return sourceY / count;
+
+		}
+
+		public double getTargetX() {
+
+			return targetX / count;
+
+		}
+
+		public double getTargetY() {
+
+			return targetY / count;
+
+		}
+
+	}
+
+	private int minimumCount = 3;
+
+	private final List<Bundle> bundles = new ArrayList<Bundle>();
+	private boolean[] bundled = new boolean[0];
+
+	/**
+	 * Set the fewest edges drawn as a bundle
+	 *
+	 * @param minimumCount
+	 *            the count
+	 *
+	 */
+	public void setMinimumCount(int minimumCount) {
+
+		this.minimumCount = Math.max(2, minimumCount);
+
+	}
+
+	/**
+	 * Bundle edges
+	 *
+	 * @param count
+	 *            the number of edges
+	 * @param sourceX
+	 *            the x of each edge's source
+	 * @param sourceY
+	 *            the y of each edge's source
+	 * @param targetX
+	 *            the x of each edge's target
+	 * @param targetY
+	 *            the y of each edge's target
+	 * @param clusterSize
+	 *            the width and height of a cluster
+	 *
+	 */
+	public void bundle(int count, double[] sourceX, double[] sourceY, double[] targetX, double[] targetY,
+			double clusterSize) {
+		Map<Long, Bundle> clusters = new HashMap<Long, Bundle>();
+		long[] keys = new long[count];
+
+		bundles.clear();
+
+		if (bundled.length < count) {
+			bundled = new boolean[count];
+		}
+
+		for (int iEdge = 0; iEdge < count; iEdge++) {
+			long sourceCell = cell(sourceX[iEdge], sourceY[iEdge], clusterSize);
+			long targetCell = cell(targetX[iEdge], targetY[iEdge], clusterSize);
+
+			bundled[iEdge] = false;
+
+			if (sourceCell == targetCell) {
+				keys[iEdge] = -1;
+
+				continue;
+			}
+
+			keys[iEdge] = (sourceCell << 32) | targetCell;
+
+			Bundle bundle = clusters.get(keys[iEdge]);
+
+			if (bundle == null) {
+				bundle = new Bundle();
+
+				bundle.first = iEdge;
+
+				clusters.put(keys[iEdge], bundle);
+			}
+
+			bundle.count += 1;
+
+			bundle.sourceX += sourceX[iEdge];
+			bundle.sourceY += sourceY[iEdge];
+			bundle.targetX += targetX[iEdge];
+			bundle.targetY += targetY[iEdge];
+
+		}
+
+		for (int iEdge = 0; iEdge < count; iEdge++) {
+
+			if (keys[iEdge] != -1 && clusters.get(keys[iEdge]).count >= minimumCount) {
+				bundled[iEdge] = true;
+			}
+
+		}
+
+		for (Bundle bundle : clusters.values()) {
+
+			if (bundle.count >= minimumCount) {
+				bundles.add(bundle);
+			}
+
+		}
+
+		Collections.sort(bundles, new Comparator<Bundle>() {
+
+			@Override
+			public int compare(Bundle bundle1, Bundle bundle2) {
+
+				return bundle2.count - bundle1.count;
+
+			}
+
+		});
+
+	}
+
+	/**
+	 * Get the bundles found by the last {@code bundle}, largest first
+	 */
+	public List<Bundle> getBundles() {
+
+		return bundles;
+
+	}
+
+	/**
+	 * Is an edge drawn as part of a bundle?
+	 *
+	 * @param index
+	 *            the index of the edge given to the last {@code bundle}
+	 *
+	 * @return true if it is in a bundle
+	 *
+	 */
+	public boolean isBundled(int index) {
+
+		return bundled[index];
+
+	}
+
+	/**
+	 * Get the cell of a position, packed into the low 32 bits
+	 */
+	private static long cell(double x, double y, double clusterSize) {
+		long column = (long) Math.floor(x / clusterSize) & 0xffff;
+		long row = (long) Math.floor(y / clusterSize) & 0xffff;
+
+		return (column << 16) | row;
+
+	}
+
+}
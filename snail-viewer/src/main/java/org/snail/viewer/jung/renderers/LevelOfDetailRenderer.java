@@ -0,0 +1,531 @@
+package org.snail.viewer.jung.renderers;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Composite;
+import java.awt.Dimension;
+import java.awt.Paint;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.collections15.Predicate;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Statement;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+import org.snail.viewer.jung.picking.LayoutSpatialIndex;
+import org.snail.viewer.jung.renderers.EdgeBundler.Bundle;
+
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.Context;
+import edu.uci.ics.jung.visualization.Layer;
+import edu.uci.ics.jung.visualization.MultiLayerTransformer;
+import edu.uci.ics.jung.visualization.RenderContext;
+import edu.uci.ics.jung.visualization.picking.PickedState;
+import edu.uci.ics.jung.visualization.renderers.BasicRenderer;
+import edu.uci.ics.jung.visualization.transform.MutableTransformer;
+import edu.uci.ics.jung.visualization.transform.shape.GraphicsDecorator;
+
+/**
+ * A {@code Renderer} that only draws the vertices and edges in view.
+ *
+ * The visible part of the layout is looked up in a {@link LayoutSpatialIndex}
+ * - or, while the layout is running and the index would be rebuilt every
+ * frame, found by a scan of the positions. Above the detail scale the
+ * elements are drawn by the usual renderers; below it the vertices are drawn
+ * as points and the edges as straight lines, batched into one path per paint
+ * with no labels, arrows or antialiasing.
+ *
+ * With edge bundling on, edges running between the same two clusters (of
+ * {@code CLUSTER_SIZE} pixels) are drawn as one stroke, widening with and
+ * labelled by the number of edges - picked edges are still drawn on their
+ * own.
+ *
+ */
+public class LevelOfDetailRenderer extends BasicRenderer<RDFNode, Statement> {
+	private static final double MARGIN = 24;
+	private static final double POINT_SIZE = 2;
+	private static final double CLUSTER_SIZE = 32;
+	private static final double LABEL_LENGTH = 48;
+	private static final int MAXIMUM_LABELS = 100;
+
+	private final LayoutSpatialIndex index;
+
+	private double detailScale = 0.5;
+
+	private final EdgeBundler bundler = new EdgeBundler();
+	private boolean edgeBundling = false;
+
+	private double[] x = new double[0];
+	private double[] y = new double[0];
+
+	/**
+	 * Create the renderer
+	 *
+	 * @param index
+	 *            the index of the layout being rendered
+	 *
+	 */
+	public LevelOfDetailRenderer(LayoutSpatialIndex index) {
+
+		this.index = index;
+
+	}
+
+	/**
+	 * Set the scale under which the outline is drawn
+	 *
+	 * @param detailScale
+	 *            the scale (layout and view combined)
+	 *
+	 */
+	public void setDetailScale(double detailScale) {
+
+		this.detailScale = detailScale;
+
+	}
+
+	public double getDetailScale() {
+
+		return detailScale;
+
+	}
+
+	/**
+	 * Draw edges between the same clusters as bundles
+	 *
+	 * @param edgeBundling
+	 *            true to bundle the edges
+	 *
+	 */
+	public void setEdgeBundling(boolean edgeBundling) {
+
+		this.edgeBundling = edgeBundling;
+
+	}
+
+	public boolean isEdgeBundling() {
+
+		return edgeBundling;
+
+	}
+
+	@Override
+	public void render(RenderContext<RDFNode, Statement> renderContext, Layout<RDFNode, Statement> layout) {
+		MultiLayerTransformer transformer = renderContext.getMultiLayerTransformer();
+		Rectangle2D area = getVisibleArea(renderContext);
+
+		if (area == null) {
+			super.render(renderContext, layout);
+
+			return;
+		}
+
+		boolean scanned = index.isMoving();
+		int[] edges;
+		int[] vertices;
+
+		if (scanned) {
+			vertices = scanVertices(layout, area);
+			edges = scanEdges(area);
+		} else {
+			vertices = index.findVertices(layout, area);
+			edges = index.findEdges(layout, area);
+		}
+
+		/*
+		 * Draw in the graph's order, so overlapping elements don't change
+		 * places as the view moves
+		 */
+		Arrays.sort(vertices);
+		Arrays.sort(edges);
+
+		double scale = transformer.getTransformer(Layer.VIEW).getScale()
+				* transformer.getTransformer(Layer.LAYOUT).getScale();
+
+		if (edgeBundling) {
+			edges = renderBundles(renderContext, edges, scanned, scale < detailScale);
+		}
+
+		if (scale < detailScale) {
+			renderOutline(renderContext, vertices, edges, scanned);
+		} else {
+			renderDetail(renderContext, layout, vertices, edges);
+		}
+
+	}
+
+	/**
+	 * Get the part of the layout shown by the screen device - widened by the
+	 * reach of the vertex shapes and edge curves
+	 */
+	private Rectangle2D getVisibleArea(RenderContext<RDFNode, Statement> renderContext) {
+
+		if (renderContext.getScreenDevice() == null) {
+			return null;
+		}
+
+		MultiLayerTransformer transformer = renderContext.getMultiLayerTransformer();
+		Dimension size = renderContext.getScreenDevice().getSize();
+		Rectangle2D view = transformer
+				.inverseTransform(Layer.VIEW, new Rectangle2D.Double(0, 0, size.width, size.height)).getBounds2D();
+
+		view.setRect(view.getX() - MARGIN, view.getY() - MARGIN, view.getWidth() + MARGIN * 2,
+				view.getHeight() + MARGIN * 2);
+
+		return transformer.inverseTransform(Layer.LAYOUT, view).getBounds2D();
+
+	}
+
+	/**
+	 * Find the vertices in view from the layout's positions
+	 */
+	private int[] scanVertices(Layout<RDFNode, Statement> layout, Rectangle2D area) {
+		ModelGraphSnapshot graph = index.getGraph();
+		int[] ids = new int[graph.getVertexCount()];
+		int size = 0;
+
+		if (x.length != ids.length) {
+			x = new double[ids.length];
+			y = new double[ids.length];
+		}
+
+		for (int iVertex = 0; iVertex < ids.length; iVertex++) {
+			Point2D location = layout.transform(graph.getVertex(iVertex));
+
+			x[iVertex] = location.getX();
+			y[iVertex] = location.getY();
+
+			if (area.contains(x[iVertex], y[iVertex])) {
+				ids[size++] = iVertex;
+			}
+
+		}
+
+		return Arrays.copyOf(ids, size);
+
+	}
+
+	/**
+	 * Find the edges in view from the positions read by the vertex scan
+	 */
+	private int[] scanEdges(Rectangle2D area) {
+		ModelGraphSnapshot graph = index.getGraph();
+		int[] ids = new int[graph.getEdgeCount()];
+		int size = 0;
+
+		for (int iEdge = 0; iEdge < ids.length; iEdge++) {
+			int source = graph.getSourceId(iEdge);
+			int target = graph.getDestId(iEdge);
+
+			if (area.intersectsLine(x[source], y[source], x[target], y[target])) {
+				ids[size++] = iEdge;
+			}
+
+		}
+
+		return Arrays.copyOf(ids, size);
+
+	}
+
+	/**
+	 * Draw the elements with the usual renderers
+	 */
+	private void renderDetail(RenderContext<RDFNode, Statement> renderContext, Layout<RDFNode, Statement> layout,
+			int[] vertices, int[] edges) {
+		ModelGraphSnapshot graph = index.getGraph();
+
+		for (int id : edges) {
+			Statement edge = graph.getEdge(id);
+
+			renderEdge(renderContext, layout, edge);
+			renderEdgeLabel(renderContext, layout, edge);
+
+		}
+
+		for (int id : vertices) {
+			RDFNode vertex = graph.getVertex(id);
+
+			renderVertex(renderContext, layout, vertex);
+			renderVertexLabel(renderContext, layout, vertex);
+
+		}
+
+	}
+
+	/**
+	 * Get a vertex position in view - from the scan or the index, rather than
+	 * looking the vertex up in the layout
+	 */
+	private Point2D getLocation(MutableTransformer layoutTransformer, int id, boolean scanned) {
+
+		return layoutTransformer.transform(scanned ? new Point2D.Double(x[id], y[id])
+				: new Point2D.Double(index.getX(id), index.getY(id)));
+
+	}
+
+	/**
+	 * Draw the edges as lines and the vertices as points, one path for each
+	 * paint
+	 */
+	private void renderOutline(RenderContext<RDFNode, Statement> renderContext, int[] vertices, int[] edges,
+			boolean scanned) {
+		ModelGraphSnapshot graph = index.getGraph();
+		GraphicsDecorator g = renderContext.getGraphicsContext();
+		MutableTransformer layoutTransformer = renderContext.getMultiLayerTransformer().getTransformer(Layer.LAYOUT);
+		double pointSize = POINT_SIZE / renderContext.getMultiLayerTransformer().getTransformer(Layer.VIEW).getScale();
+		Predicate<Context<Graph<RDFNode, Statement>, RDFNode>> vertexIncluded = renderContext
+				.getVertexIncludePredicate();
+
+		Map<Paint, Path2D> lines = new LinkedHashMap<Paint, Path2D>();
+		Map<Paint, Path2D> points = new LinkedHashMap<Paint, Path2D>();
+
+		for (int id : edges) {
+
+			if (!isIncluded(renderContext, id)) {
+				continue;
+			}
+
+			Point2D start = getLocation(layoutTransformer, graph.getSourceId(id), scanned);
+			Point2D end = getLocation(layoutTransformer, graph.getDestId(id), scanned);
+			Path2D path = getPath(lines, renderContext.getEdgeDrawPaintTransformer().transform(graph.getEdge(id)));
+
+			path.moveTo(start.getX(), start.getY());
+			path.lineTo(end.getX(), end.getY());
+
+		}
+
+		for (int id : vertices) {
+			RDFNode vertex = graph.getVertex(id);
+
+			if (!vertexIncluded.evaluate(Context.<Graph<RDFNode, Statement>, RDFNode> getInstance(graph, vertex))) {
+				continue;
+			}
+
+			Point2D location = getLocation(layoutTransformer, id, scanned);
+			Path2D path = getPath(points, renderContext.getVertexFillPaintTransformer().transform(vertex));
+			double left = location.getX() - pointSize / 2;
+			double top = location.getY() - pointSize / 2;
+
+			path.moveTo(left, top);
+			path.lineTo(left + pointSize, top);
+			path.lineTo(left + pointSize, top + pointSize);
+			path.lineTo(left, top + pointSize);
+			path.closePath();
+
+		}
+
+		Paint oldPaint = g.getPaint();
+		Stroke oldStroke = g.getStroke();
+		Object oldAntialiasing = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+		g.setStroke(new BasicStroke(0));
+
+		for (Map.Entry<Paint, Path2D> line : lines.entrySet()) {
+			g.setPaint(line.getKey());
+			g.draw(line.getValue());
+		}
+
+		for (Map.Entry<Paint, Path2D> point : points.entrySet()) {
+			g.setPaint(point.getKey());
+			g.fill(point.getValue());
+		}
+
+		g.setPaint(oldPaint);
+		g.setStroke(oldStroke);
+
+		if (oldAntialiasing != null) {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, oldAntialiasing);
+		}
+
+	}
+
+	/**
+	 * Is an edge, and both its vertices, included in the rendering?
+	 */
+	private boolean isIncluded(RenderContext<RDFNode, Statement> renderContext, int id) {
+		ModelGraphSnapshot graph = index.getGraph();
+		Predicate<Context<Graph<RDFNode, Statement>, RDFNode>> vertexIncluded = renderContext
+				.getVertexIncludePredicate();
+
+		return renderContext.getEdgeIncludePredicate()
+				.evaluate(Context.<Graph<RDFNode, Statement>, Statement> getInstance(graph, graph.getEdge(id)))
+				&& vertexIncluded.evaluate(Context.<Graph<RDFNode, Statement>, RDFNode> getInstance(graph,
+						graph.getVertex(graph.getSourceId(id))))
+				&& vertexIncluded.evaluate(Context.<Graph<RDFNode, Statement>, RDFNode> getInstance(graph,
+						graph.getVertex(graph.getDestId(id))));
+
+	}
+
+	/**
+	 * Draw the bundles as translucent strokes, with their counts - in outline
+	 * without antialiasing
+	 *
+	 * @return the edges left to draw on their own
+	 */
+	private int[] renderBundles(RenderContext<RDFNode, Statement> renderContext, int[] edges, boolean scanned,
+			boolean outline) {
+		ModelGraphSnapshot graph = index.getGraph();
+		GraphicsDecorator g = renderContext.getGraphicsContext();
+		MutableTransformer layoutTransformer = renderContext.getMultiLayerTransformer().getTransformer(Layer.LAYOUT);
+		double viewScale = renderContext.getMultiLayerTransformer().getTransformer(Layer.VIEW).getScale();
+		PickedState<Statement> picked = renderContext.getPickedEdgeState();
+
+		int[] included = new int[edges.length];
+		int count = 0;
+
+		for (int id : edges) {
+
+			if (isIncluded(renderContext, id)) {
+				included[count++] = id;
+			}
+
+		}
+
+		double[] sourceX = new double[count];
+		double[] sourceY = new double[count];
+		double[] targetX = new double[count];
+		double[] targetY = new double[count];
+
+		for (int iEdge = 0; iEdge < count; iEdge++) {
+			Point2D start = getLocation(layoutTransformer, graph.getSourceId(included[iEdge]), scanned);
+			Point2D end = getLocation(layoutTransformer, graph.getDestId(included[iEdge]), scanned);
+
+			sourceX[iEdge] = start.getX();
+			sourceY[iEdge] = start.getY();
+			targetX[iEdge] = end.getX();
+			targetY[iEdge] = end.getY();
+
+		}
+
+		bundler.bundle(count, sourceX, sourceY, targetX, targetY, CLUSTER_SIZE / viewScale);
+
+		/*
+		 * One path for each paint and stroke width (a whole number of pixels,
+		 * growing with the log of the count)
+		 */
+		Map<Paint, Path2D[]> strokes = new LinkedHashMap<Paint, Path2D[]>();
+
+		for (Bundle bundle : bundler.getBundles()) {
+			Paint paint = renderContext.getEdgeDrawPaintTransformer().transform(graph.getEdge(included[bundle.getFirst()]));
+			int width = 32 - Integer.numberOfLeadingZeros(bundle.getCount());
+			Path2D[] paths = strokes.get(paint);
+
+			if (paths == null) {
+				paths = new Path2D[33];
+
+				strokes.put(paint, paths);
+			}
+
+			if (paths[width] == null) {
+				paths[width] = new Path2D.Float();
+			}
+
+			paths[width].moveTo(bundle.getSourceX(), bundle.getSourceY());
+			paths[width].lineTo(bundle.getTargetX(), bundle.getTargetY());
+
+		}
+
+		Paint oldPaint = g.getPaint();
+		Stroke oldStroke = g.getStroke();
+		Composite oldComposite = g.getComposite();
+		Object oldAntialiasing = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+
+		if (outline) {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+		}
+
+		g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.6f));
+
+		for (Map.Entry<Paint, Path2D[]> stroke : strokes.entrySet()) {
+			g.setPaint(stroke.getKey());
+
+			for (int iWidth = 0; iWidth < stroke.getValue().length; iWidth++) {
+
+				if (stroke.getValue()[iWidth] != null) {
+					g.setStroke(new BasicStroke((float) (iWidth / viewScale), BasicStroke.CAP_ROUND,
+							BasicStroke.JOIN_ROUND));
+					g.draw(stroke.getValue()[iWidth]);
+				}
+
+			}
+
+		}
+
+		g.setComposite(oldComposite);
+
+		/*
+		 * The counts of the largest bundles with room for them are drawn at
+		 * their middles, at the same size whatever the zoom
+		 */
+		int labels = 0;
+
+		for (Bundle bundle : bundler.getBundles()) {
+			double length = Math.hypot(bundle.getTargetX() - bundle.getSourceX(),
+					bundle.getTargetY() - bundle.getSourceY()) * viewScale;
+
+			if (labels == MAXIMUM_LABELS) {
+				break;
+			}
+
+			if (length < LABEL_LENGTH) {
+				continue;
+			}
+
+			AffineTransform transform = g.getTransform();
+
+			g.setPaint(renderContext.getEdgeDrawPaintTransformer().transform(graph.getEdge(included[bundle.getFirst()])));
+			g.translate((bundle.getSourceX() + bundle.getTargetX()) / 2, (bundle.getSourceY() + bundle.getTargetY()) / 2);
+			g.scale(1 / viewScale, 1 / viewScale);
+			g.drawString(String.format("%,d", bundle.getCount()), 2, -2);
+
+			g.setTransform(transform);
+
+			labels += 1;
+
+		}
+
+		g.setPaint(oldPaint);
+		g.setStroke(oldStroke);
+
+		if (oldAntialiasing != null) {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, oldAntialiasing);
+		}
+
+		int[] rest = new int[count];
+		int size = 0;
+
+		for (int iEdge = 0; iEdge < count; iEdge++) {
+
+			if (!bundler.isBundled(iEdge) || picked.isPicked(graph.getEdge(included[iEdge]))) {
+				rest[size++] = included[iEdge];
+			}
+
+		}
+
+		return Arrays.copyOf(rest, size);
+
+	}
+
+	private static Path2D getPath(Map<Paint, Path2D> paths, Paint paint) {
+		Path2D path = paths.get(paint);
+
+		if (path == null) {
+			path = new Path2D.Float();
+
+			paths.put(paint, path);
+		}
+
+		return path;
+
+	}
+
+}
@@ -0,0 +1,269 @@
+package org.snail.viewer.jung.visualization;
+
+import java.awt.AlphaComposite;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.event.ItemEvent;
+import java.awt.event.ItemListener;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.collections15.Transformer;
+
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.visualization.Layer;
+import edu.uci.ics.jung.visualization.VisualizationServer.Paintable;
+import edu.uci.ics.jung.visualization.VisualizationViewer;
+import edu.uci.ics.jung.visualization.control.SatelliteVisualizationViewer;
+import edu.uci.ics.jung.visualization.picking.PickedState;
+import edu.uci.ics.jung.visualization.transform.shape.GraphicsDecorator;
+import edu.uci.ics.jung.visualization.util.Caching;
+
+/**
+ * A {@code SatelliteVisualizationViewer} that renders the graph once into an
+ * image and redraws only the view lens over it.
+ *
+ * The image is rendered again when the layout is reported to have changed
+ * through {@link #layoutChanged()} (a vertex dragged, a layout step), when the
+ * viewer is resized or when the picked elements change. As a cheap extra
+ * check, a sample of the vertices is compared before each paint with where
+ * they were drawn, and the image is rendered again when one has moved by
+ * more than the threshold (in pixels). Panning and zooming the master view
+ * only repaint the lens.
+ *
+ */
+@SuppressWarnings("serial")
+public class CachedSatelliteViewer<V, E> extends SatelliteVisualizationViewer<V, E> implements ItemListener {
+	private static final int SAMPLES = 256;
+
+	private BufferedImage image;
+	private boolean stale = true;
+
+	private List<V> samples;
+	private double[] sampleX;
+	private double[] sampleY;
+
+	private double threshold = 1;
+
+	/**
+	 * Create the viewer
+	 *
+	 * @param master
+	 *            the viewer this one is the satellite of
+	 * @param preferredSize
+	 *            the size of this viewer
+	 *
+	 */
+	public CachedSatelliteViewer(VisualizationViewer<V, E> master, Dimension preferredSize) {
+		super(master, preferredSize);
+
+	}
+
+	/**
+	 * Set how far a vertex may move before the image is rendered again
+	 *
+	 * @param threshold
+	 *            the distance in pixels
+	 *
+	 */
+	public void setThreshold(double threshold) {
+
+		this.threshold = threshold;
+
+	}
+
+	@Override
+	public void setPickedVertexState(PickedState<V> pickedVertexState) {
+		super.setPickedVertexState(pickedVertexState);
+
+		pickedVertexState.addItemListener(this);
+
+	}
+
+	@Override
+	public void setPickedEdgeState(PickedState<E> pickedEdgeState) {
+		super.setPickedEdgeState(pickedEdgeState);
+
+		pickedEdgeState.addItemListener(this);
+
+	}
+
+	/**
+	 * The layout has changed - render the image again on the next paint
+	 */
+	public void layoutChanged() {
+
+		stale = true;
+
+		repaint();
+
+	}
+
+	@Override
+	public void itemStateChanged(ItemEvent event) {
+
+		stale = true;
+
+	}
+
+	@Override
+	protected void renderGraph(Graphics2D g2d) {
+		Layout<V, E> layout = model.getGraphLayout();
+		Dimension d = getSize();
+
+		if (d.width <= 0 || d.height <= 0) {
+			return;
+		}
+
+		if (layout instanceof Caching) {
+			((Caching) layout).clear();
+		}
+
+		if (stale || image == null || image.getWidth() != d.width || image.getHeight() != d.height
+				|| hasMoved(layout)) {
+			render(layout, d);
+		}
+
+		g2d.setRenderingHints(renderingHints);
+
+		g2d.setColor(getBackground());
+		g2d.fillRect(0, 0, d.width, d.height);
+
+		AffineTransform oldXform = g2d.getTransform();
+		AffineTransform newXform = new AffineTransform(oldXform);
+
+		newXform.concatenate(renderContext.getMultiLayerTransformer().getTransformer(Layer.VIEW).getTransform());
+
+		g2d.setTransform(newXform);
+
+		for (Paintable paintable : preRenderers) {
+
+			if (paintable.useTransform()) {
+				paintable.paint(g2d);
+			} else {
+				g2d.setTransform(oldXform);
+				paintable.paint(g2d);
+				g2d.setTransform(newXform);
+			}
+
+		}
+
+		g2d.setTransform(oldXform);
+		g2d.drawImage(image, 0, 0, null);
+		g2d.setTransform(newXform);
+
+		for (Paintable paintable : postRenderers) {
+
+			if (paintable.useTransform()) {
+				paintable.paint(g2d);
+			} else {
+				g2d.setTransform(oldXform);
+				paintable.paint(g2d);
+				g2d.setTransform(newXform);
+			}
+
+		}
+
+		g2d.setTransform(oldXform);
+
+	}
+
+	/**
+	 * Render the graph into the image, on a transparent background so the lens
+	 * shows through
+	 */
+	private void render(Layout<V, E> layout, Dimension d) {
+
+		if (image == null || image.getWidth() != d.width || image.getHeight() != d.height) {
+			image = new BufferedImage(d.width, d.height, BufferedImage.TYPE_INT_ARGB);
+		}
+
+		Graphics2D g = image.createGraphics();
+
+		g.setComposite(AlphaComposite.Clear);
+		g.fillRect(0, 0, d.width, d.height);
+		g.setComposite(AlphaComposite.SrcOver);
+
+		g.setRenderingHints(renderingHints);
+		g.transform(renderContext.getMultiLayerTransformer().getTransformer(Layer.VIEW).getTransform());
+
+		if (renderContext.getGraphicsContext() == null) {
+			renderContext.setGraphicsContext(new GraphicsDecorator(g));
+		} else {
+			renderContext.getGraphicsContext().setDelegate(g);
+		}
+
+		renderContext.setScreenDevice(this);
+
+		renderer.render(renderContext, layout);
+
+		g.dispose();
+
+		sample(layout);
+
+		stale = false;
+
+	}
+
+	/**
+	 * Remember where a spread of the vertices were drawn
+	 */
+	private void sample(Layout<V, E> layout) {
+		int stride = Math.max(1, layout.getGraph().getVertexCount() / SAMPLES);
+		int count = 0;
+
+		samples = new ArrayList<V>(SAMPLES + 1);
+
+		for (V vertex : layout.getGraph().getVertices()) {
+
+			if (count++ % stride == 0) {
+				samples.add(vertex);
+			}
+
+		}
+
+		sampleX = new double[samples.size()];
+		sampleY = new double[samples.size()];
+
+		for (int iSample = 0; iSample < sampleX.length; iSample++) {
+			Point2D location = locate(layout, samples.get(iSample));
+
+			sampleX[iSample] = location.getX();
+			sampleY[iSample] = location.getY();
+
+		}
+
+	}
+
+	/**
+	 * Has a sampled vertex moved by more than the threshold?
+	 */
+	private boolean hasMoved(Layout<V, E> layout) {
+
+		for (int iSample = 0; iSample < sampleX.length; iSample++) {
+			Point2D location = locate(layout, samples.get(iSample));
+
+			if (Math.abs(location.getX() - sampleX[iSample]) > threshold
+					|| Math.abs(location.getY() - sampleY[iSample]) > threshold) {
+				return true;
+			}
+
+		}
+
+		return false;
+
+	}
+
+	/**
+	 * Get where a vertex is drawn in this viewer
+	 */
+	private Point2D locate(Transformer<V, Point2D> layout, V vertex) {
+
+		return renderContext.getMultiLayerTransformer().transform(layout.transform(vertex));
+
+	}
+
+}
@@ -0,0 +1,406 @@
+package org.snail.viewer.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.swing.SwingWorker;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.shared.NotFoundException;
+import org.apache.jena.util.FileManager;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+
+/**
+ * Loads an RDF file on a background thread.
+ *
+ * The file is streamed through the Jena RIOT parser; as each triple arrives it
+ * is added to the model, dictionary encoded into the graph snapshot and
+ * recorded in the predicate/subject index, so all three are ready when the
+ * parse finishes. Progress is reported through the standard "progress"
+ * property (percentage of bytes read) and a "message" property (triples
+ * parsed and bytes read). Cancelling the worker aborts the parse.
+ *
+ * The bytes are hashed (SHA-1) as they are read, so a source can be
+ * recognised by its content when it is opened again.
+ *
+ * Once a local file has been parsed, a {@link ModelSnapshot} of the model,
+ * graph snapshot and indexes is written next to it; later loads of the
+ * unchanged file read the snapshot instead of parsing the file. No snapshot
+ * is written into a directory that cannot be written to, and a write that
+ * fails is not tried again until the file changes.
+ *
+ */
+public class ModelLoader extends SwingWorker<Model, Void> {
+	private static final int REPORT_INTERVAL = 1024;
+
+	/*
+	 * The files whose snapshot could not be written, and their modification
+	 * time when it failed
+	 */
+	private static final Map<String, Long> unwritable = new ConcurrentHashMap<String, Long>();
+
+	private final String uri;
+
+	private Model model = ModelFactory.createDefaultModel();
+	private ModelGraphSnapshot graph;
+
+	private ResourceIndex predicates = new ResourceIndex();
+	private ResourceIndex subjects = new ResourceIndex();
+
+	private long size = -1;
+	private long triples = 0;
+	private String digest = null;
+
+	/**
+	 * Create a loader
+	 *
+	 * @param uri
+	 *            the file name or URL of the RDF source
+	 *
+	 */
+	public ModelLoader(String uri) {
+
+		this.uri = uri;
+
+	}
+
+	/**
+	 * Receives the parsed triples
+	 */
+	private class Sink extends StreamRDFBase {
+		final Graph target = model.getGraph();
+		final ModelGraphSnapshot.Builder builder;
+		final CountingInputStream input;
+
+		Sink(CountingInputStream input, ModelGraphSnapshot.Builder builder) {
+			this.input = input;
+			this.builder = builder;
+		}
+
+		@Override
+		public void triple(Triple triple) {
+
+			if (isCancelled()) {
+				throw new CancellationException();
+			}
+
+			if (target.contains(triple)) {
+				return;
+			}
+
+			target.add(triple);
+
+			Statement statement = model.asStatement(triple);
+
+			builder.add(statement);
+
+			predicates.add(statement.getPredicate().toString());
+
+			if (!statement.getSubject().isAnon()) {
+				subjects.add(statement.getSubject().toString());
+			}
+
+			triples += 1;
+
+			if (triples % REPORT_INTERVAL == 0) {
+				report(input.getByteCount());
+			}
+
+		}
+
+		@Override
+		public void prefix(String prefix, String iri) {
+
+			model.setNsPrefix(prefix, iri);
+
+		}
+
+	}
+
+	@Override
+	protected Model doInBackground() throws Exception {
+		InputStream stream;
+		String base;
+
+		File file = new File(uri);
+
+		if (file.isFile() && restore(file)) {
+			return model;
+		}
+
+		long modified = file.lastModified();
+
+		if (file.exists()) {
+			size = file.length();
+			stream = new FileInputStream(file);
+			base = file.toURI().toString();
+		} else if (isUrl(uri)) {
+			URLConnection connection = new URL(uri).openConnection();
+
+			size = connection.getContentLengthLong();
+			stream = connection.getInputStream();
+			base = uri;
+		} else {
+			/*
+			 * Class path and relative locations, resolved as the FileManager
+			 * always has
+			 */
+			stream = FileManager.get().open(uri);
+			base = uri;
+
+			if (stream == null) {
+				throw new NotFoundException(uri);
+			}
+
+		}
+
+		MessageDigest hash = MessageDigest.getInstance("SHA-1");
+		CountingInputStream input = new CountingInputStream(new DigestInputStream(stream, hash));
+
+		try {
+			ModelGraphSnapshot.Builder builder = new ModelGraphSnapshot.Builder();
+
+			RDFDataMgr.parse(new Sink(input, builder), new CloseShieldInputStream(input), base,
+					RDFLanguages.filenameToLang(uri, Lang.RDFXML));
+
+			/*
+			 * Hash anything the parser left unread (it may stop at the end of
+			 * the document)
+			 */
+			IOUtils.skip(input, Long.MAX_VALUE);
+
+			report(input.getByteCount());
+
+			size = input.getByteCount();
+			digest = String.format("%040x", new BigInteger(1, hash.digest()));
+
+			graph = builder.build();
+
+			predicates.build();
+			subjects.build();
+
+		} finally {
+
+			input.close();
+
+		}
+
+		if (file.isFile() && isSnapshotWritable(file, modified)) {
+
+			firePropertyChange("message", null, String.format("Writing snapshot - %,d triples", triples));
+
+			try {
+
+				ModelSnapshot.write(file, size, modified, digest, model, graph, predicates, subjects);
+
+			} catch (IOException e) {
+
+				unwritable.put(file.getAbsolutePath(), modified);
+
+				e.printStackTrace();
+
+			}
+
+		}
+
+		return model;
+
+	}
+
+	/**
+	 * Load the model, graph snapshot and indexes from the file's snapshot
+	 *
+	 * @param file
+	 *            the RDF file
+	 *
+	 * @return 'true' if they were loaded, 'false' if the file has no (up to
+	 *         date) snapshot
+	 *
+	 */
+	private boolean restore(File file) {
+		ModelSnapshot snapshot = ModelSnapshot.read(file);
+
+		if (snapshot == null) {
+			return false;
+		}
+
+		model = snapshot.getModel();
+		graph = snapshot.getGraph();
+		predicates = snapshot.getPredicates();
+		subjects = snapshot.getSubjects();
+
+		size = file.length();
+		triples = graph.getEdgeCount();
+		digest = snapshot.getDigest();
+
+		report(size);
+
+		return true;
+
+	}
+
+	/**
+	 * Check if a snapshot of a file should be written - not if its directory
+	 * is read only, or if writing one failed since the file last changed
+	 *
+	 * @param file
+	 *            the RDF file
+	 * @param modified
+	 *            the modification time of the file when it was read
+	 *
+	 * @return 'true' if the snapshot should be written
+	 *
+	 */
+	static boolean isSnapshotWritable(File file, long modified) {
+		File directory = file.getAbsoluteFile().getParentFile();
+
+		if (directory == null || !directory.canWrite()) {
+			return false;
+		}
+
+		Long failed = unwritable.get(file.getAbsolutePath());
+
+		return failed == null || failed != modified;
+
+	}
+
+	/**
+	 * Check if a location is a URL (as opposed to a file name or class path
+	 * resource)
+	 *
+	 * @param location
+	 *            the location
+	 *
+	 * @return 'true' if the location is a URL with a known protocol
+	 *
+	 */
+	private static boolean isUrl(String location) {
+
+		try {
+
+			new URL(location);
+
+			return true;
+
+		} catch (MalformedURLException e) {
+
+			return false;
+
+		}
+
+	}
+
+	/**
+	 * Report the load progress
+	 *
+	 * @param bytes
+	 *            the number of bytes read so far
+	 *
+	 */
+	private void report(long bytes) {
+
+		if (size > 0) {
+			setProgress((int) Math.min(100, bytes * 100 / size));
+		}
+
+		firePropertyChange("message", null, String.format("Loading - %,d triples (%,d KB)", triples, bytes / 1024));
+
+	}
+
+	public String getUri() {
+
+		return uri;
+
+	}
+
+	/**
+	 * Get the SHA-1 hash of the source's content, available once the load has
+	 * completed
+	 *
+	 * @return the hash as 40 hexadecimal digits
+	 *
+	 */
+	public String getDigest() {
+
+		return digest;
+
+	}
+
+	/**
+	 * Get the size of the source's content, available once the load has
+	 * completed
+	 *
+	 * @return the size in bytes
+	 *
+	 */
+	public long getSize() {
+
+		return size;
+
+	}
+
+	public Model getModel() {
+
+		return model;
+
+	}
+
+	/**
+	 * Get the graph snapshot, available once the load has completed
+	 *
+	 * @return the graph snapshot
+	 *
+	 */
+	public ModelGraphSnapshot getGraph() {
+
+		return graph;
+
+	}
+
+	/**
+	 * Get the predicate index, available once the load has completed
+	 *
+	 * @return the predicate index
+	 *
+	 */
+	public ResourceIndex getPredicates() {
+
+		return predicates;
+
+	}
+
+	/**
+	 * Get the (named) subject index, available once the load has completed
+	 *
+	 * @return the subject index
+	 *
+	 */
+	public ResourceIndex getSubjects() {
+
+		return subjects;
+
+	}
+
+}
@@ -0,0 +1,270 @@
+package org.snail.viewer.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+import org.snail.viewer.util.BufferUtils;
+
+/**
+ * A binary snapshot of a loaded RDF file, written next to the file (as
+ * {@code <file>.snail}) so opening the file again skips the parse.
+ *
+ * The snapshot holds the dictionary encoded terms, the triples as ids and the
+ * prebuilt CSR arrays of the {@link ModelGraphSnapshot}, and the predicate and
+ * subject {@link ResourceIndex}es. It is memory mapped and read in bulk; the
+ * statements of the model are rebuilt from the terms, nothing is parsed or
+ * indexed. A snapshot is only used while the file's size and modification
+ * time match the ones it was written for. The content digest it holds is not
+ * checked against the file - that would mean reading the whole file again -
+ * so a change that keeps both the size and the modification time (a copy
+ * that preserves the time, or an edit within the file system's time
+ * resolution) goes unnoticed, and the stale snapshot is used. The header is
+ * checked with a plain read before the snapshot is mapped, so an out of date
+ * snapshot is never mapped and can be replaced (a mapped file cannot be
+ * deleted on Windows):
+ *
+ * <pre>
+ * int magic, int version, long size, long modified, string digest,
+ * int prefix count, (string prefix, string uri) per prefix,
+ * graph snapshot, predicate index, subject index
+ * </pre>
+ *
+ */
+public class ModelSnapshot {
+	private static final int MAGIC = 0x534e4d53;
+	private static final int VERSION = 1;
+	private static final int HEADER = 24;
+
+	private final String digest;
+	private final Model model;
+	private final ModelGraphSnapshot graph;
+	private final ResourceIndex predicates;
+	private final ResourceIndex subjects;
+
+	private ModelSnapshot(String digest, Model model, ModelGraphSnapshot graph, ResourceIndex predicates,
+			ResourceIndex subjects) {
+
+		this.digest = digest;
+		this.model = model;
+		this.graph = graph;
+		this.predicates = predicates;
+		this.subjects = subjects;
+
+	}
+
+	/**
+	 * Get the snapshot file of a source
+	 *
+	 * @param source
+	 *            the RDF file
+	 *
+	 * @return the snapshot file
+	 *
+	 */
+	public static File getFile(File source) {
+
+		return new File(source.getPath() + ".snail");
+
+	}
+
+	/**
+	 * Read the snapshot of a source
+	 *
+	 * @param source
+	 *            the RDF file
+	 *
+	 * @return the snapshot, or null if there is none, it is out of date or it
+	 *         is unreadable
+	 *
+	 */
+	public static ModelSnapshot read(File source) {
+		File file = getFile(source);
+
+		if (!file.isFile()) {
+			return null;
+		}
+
+		try {
+			DataInputStream header = new DataInputStream(new BufferedInputStream(new FileInputStream(file), HEADER));
+
+			try {
+
+				if (header.readInt() != MAGIC || header.readInt() != VERSION || header.readLong() != source.length()
+						|| header.readLong() != source.lastModified()) {
+					return null;
+				}
+
+			} finally {
+
+				header.close();
+
+			}
+
+			ByteBuffer buffer;
+			RandomAccessFile input = new RandomAccessFile(file, "r");
+
+			try {
+				FileChannel channel = input.getChannel();
+
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			} finally {
+
+				input.close();
+
+			}
+
+			buffer.position(HEADER);
+
+			String digest = BufferUtils.readString(buffer);
+			Model model = ModelFactory.createDefaultModel();
+			Map<String, String> prefixes = new HashMap<String, String>();
+
+			for (int iPrefix = buffer.getInt(); iPrefix > 0; iPrefix--) {
+				prefixes.put(BufferUtils.readString(buffer), BufferUtils.readString(buffer));
+			}
+
+			model.setNsPrefixes(prefixes);
+
+			ModelGraphSnapshot graph = ModelGraphSnapshot.read(buffer, model);
+			ResourceIndex predicates = ResourceIndex.read(buffer);
+			ResourceIndex subjects = ResourceIndex.read(buffer);
+
+			return new ModelSnapshot(digest, model, graph, predicates, subjects);
+
+		} catch (IOException e) {
+
+			return null;
+
+		} catch (RuntimeException e) {
+
+			/*
+			 * A truncated or corrupt snapshot (or one too large to map)
+			 */
+			return null;
+
+		}
+
+	}
+
+	/**
+	 * Write the snapshot of a source - written to a temporary file first, so a
+	 * failed write never leaves a truncated snapshot
+	 *
+	 * @param source
+	 *            the RDF file
+	 * @param size
+	 *            the size of the file when it was read
+	 * @param modified
+	 *            the modification time of the file when it was read
+	 * @param digest
+	 *            the content hash of the file
+	 * @param model
+	 *            the model read from the file
+	 * @param graph
+	 *            the graph snapshot of the model
+	 * @param predicates
+	 *            the (built) predicate index
+	 * @param subjects
+	 *            the (built) subject index
+	 *
+	 * @throws IOException
+	 *             thrown if the snapshot could not be written
+	 *
+	 */
+	public static void write(File source, long size, long modified, String digest, Model model,
+			ModelGraphSnapshot graph, ResourceIndex predicates, ResourceIndex subjects) throws IOException {
+		File file = getFile(source);
+		File temporary = new File(file.getPath() + ".tmp");
+
+		DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temporary), 64 * 1024));
+
+		try {
+			Map<String, String> prefixes = model.getNsPrefixMap();
+
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeLong(size);
+			output.writeLong(modified);
+
+			BufferUtils.writeString(output, digest);
+
+			output.writeInt(prefixes.size());
+
+			for (Map.Entry<String, String> prefix : prefixes.entrySet()) {
+				BufferUtils.writeString(output, prefix.getKey());
+				BufferUtils.writeString(output, prefix.getValue());
+			}
+
+			graph.write(output);
+			predicates.write(output);
+			subjects.write(output);
+
+		} finally {
+
+			output.close();
+
+		}
+
+		if (file.exists() && !file.delete() || !temporary.renameTo(file)) {
+
+			temporary.delete();
+
+			throw new IOException("Unable to write " + file);
+
+		}
+
+	}
+
+	/**
+	 * Get the SHA-1 hash of the source's content when the snapshot was written
+	 *
+	 * @return the hash as 40 hexadecimal digits
+	 *
+	 */
+	public String getDigest() {
+
+		return digest;
+
+	}
+
+	public Model getModel() {
+
+		return model;
+
+	}
+
+	public ModelGraphSnapshot getGraph() {
+
+		return graph;
+
+	}
+
+	public ResourceIndex getPredicates() {
+
+		return predicates;
+
+	}
+
+	public ResourceIndex getSubjects() {
+
+		return subjects;
+
+	}
+
+}
@@ -0,0 +1,236 @@
+package org.snail.viewer.model;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.snail.viewer.util.BufferUtils;
+import org.snail.viewer.util.SubstringIndex;
+
+/**
+ * Index of the distinct resources (predicates or subjects) of a model with the
+ * number of triples each one appears in.
+ *
+ * Resources are counted in a hash map while the model is read, a single pass
+ * over the statements; {@link #build()} then freezes the index into a sorted
+ * array of names and a parallel array of counts used for the resource tree
+ * and for lookups by binary search. Substring searches go through a
+ * {@link SubstringIndex} of the names, built by the first search.
+ *
+ */
+public class ResourceIndex {
+	private Map<String, int[]> counts = new HashMap<String, int[]>();
+
+	private String[] resources = new String[0];
+	private int[] triples = new int[0];
+
+	private SubstringIndex search = null;
+
+	/**
+	 * Count a resource's occurrence
+	 *
+	 * @param resource
+	 *            the resource's URI
+	 *
+	 */
+	public void add(String resource) {
+
+		if (counts == null) {
+			throw new IllegalStateException("Index has been built");
+		}
+
+		int[] count = counts.get(resource);
+
+		if (count == null) {
+			counts.put(resource, new int[] { 1 });
+		} else {
+			count[0] += 1;
+		}
+
+	}
+
+	/**
+	 * Freeze the index, no more resources can be added
+	 *
+	 * @return the index
+	 *
+	 */
+	public ResourceIndex build() {
+
+		if (counts != null) {
+			resources = counts.keySet().toArray(new String[counts.size()]);
+
+			Arrays.sort(resources);
+
+			triples = new int[resources.length];
+
+			for (int iResource = 0; iResource < resources.length; iResource++) {
+				triples[iResource] = counts.get(resources[iResource])[0];
+			}
+
+			counts = null;
+
+		}
+
+		return this;
+
+	}
+
+	/**
+	 * Write the (built) index - the number of resources, then each resource
+	 * and its count
+	 *
+	 * @param output
+	 *            the stream
+	 *
+	 * @throws IOException
+	 *             thrown if the index could not be written
+	 *
+	 */
+	public void write(DataOutputStream output) throws IOException {
+
+		if (counts != null) {
+			throw new IllegalStateException("Index has not been built");
+		}
+
+		output.writeInt(resources.length);
+
+		for (String resource : resources) {
+			BufferUtils.writeString(output, resource);
+		}
+
+		BufferUtils.writeInts(output, triples);
+
+	}
+
+	/**
+	 * Read a built index
+	 *
+	 * @param buffer
+	 *            the buffer, positioned at the index
+	 *
+	 * @return the index
+	 *
+	 */
+	public static ResourceIndex read(ByteBuffer buffer) {
+		ResourceIndex index = new ResourceIndex();
+
+		index.resources = new String[buffer.getInt()];
+
+		for (int iResource = 0; iResource < index.resources.length; iResource++) {
+			index.resources[iResource] = BufferUtils.readString(buffer);
+		}
+
+		index.triples = BufferUtils.readInts(buffer);
+		index.counts = null;
+
+		return index;
+
+	}
+
+	/**
+	 * Get the number of distinct resources
+	 *
+	 * @return the number of resources
+	 *
+	 */
+	public int size() {
+
+		return resources.length;
+
+	}
+
+	/**
+	 * Get a resource by its (sorted) position
+	 *
+	 * @param index
+	 *            the position
+	 *
+	 * @return the resource's URI
+	 *
+	 */
+	public String get(int index) {
+
+		return resources[index];
+
+	}
+
+	/**
+	 * Get the number of triples a resource appears in
+	 *
+	 * @param index
+	 *            the resource's position
+	 *
+	 * @return the triple count
+	 *
+	 */
+	public int getCount(int index) {
+
+		return triples[index];
+
+	}
+
+	/**
+	 * Find the position of a resource
+	 *
+	 * @param resource
+	 *            the resource's URI
+	 *
+	 * @return the position, or a negative value if not indexed
+	 *
+	 */
+	public int indexOf(String resource) {
+
+		return Arrays.binarySearch(resources, resource);
+
+	}
+
+	/**
+	 * Get the number of triples a resource appears in
+	 *
+	 * @param resource
+	 *            the resource's URI
+	 *
+	 * @return the triple count, 0 if the resource is not indexed
+	 *
+	 */
+	public int getCount(String resource) {
+		int index = indexOf(resource);
+
+		return (index < 0) ? 0 : triples[index];
+
+	}
+
+	/**
+	 * Find the resources whose URI contains a text
+	 *
+	 * @param text
+	 *            the text
+	 *
+	 * @return the positions of the matching resources, in order
+	 *
+	 */
+	public int[] find(String text) {
+
+		return getSearchIndex().find(text);
+
+	}
+
+	private synchronized SubstringIndex getSearchIndex() {
+
+		if (counts != null) {
+			throw new IllegalStateException("Index has not been built");
+		}
+
+		if (search == null) {
+			search = new SubstringIndex(resources);
+		}
+
+		return search;
+
+	}
+
+}
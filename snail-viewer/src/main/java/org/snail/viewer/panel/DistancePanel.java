@@ -1,88 +1,290 @@
 package org.snail.viewer.panel;
 
-import java.awt.Color;
+import static org.snail.viewer.util.WidgetUtils.createImageIcon;
+import static org.snail.viewer.util.WidgetUtils.setColumns;
+import static org.snail.viewer.util.WidgetUtils.setFilter;
+
 import java.awt.Dimension;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.BorderFactory;
-import javax.swing.JEditorPane;
+import javax.swing.JButton;
+import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
-import javax.swing.JTree;
-
-import org.apache.commons.collections15.Transformer;
-import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.RDFNode;
-import org.apache.jena.rdf.model.Statement;
-import org.apache.jena.rdf.model.StmtIterator;
+import javax.swing.RowSorter.SortKey;
+import javax.swing.SwingWorker;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import org.snail.viewer.jung.algorithms.DistanceEngine;
+import org.snail.viewer.jung.algorithms.DistanceMeasures;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
 import org.snail.viewer.swing.layout.RiverLayout;
 import org.snail.viewer.widget.DetailDialog.AbstractDetailPanel;
-
-import edu.uci.ics.jung.algorithms.shortestpath.DistanceStatistics;
-import edu.uci.ics.jung.graph.Graph;
-
+import org.snail.viewer.widget.SearchTextField;
+import org.snail.viewer.widget.TableView;
+
+import com.ezware.dialog.task.TaskDialogs;
+
+/**
+ * Distance Panel - shows the distance measures of the subjects as they are
+ * computed.
+ *
+ * The measures run on a background task that publishes each batch of
+ * measured vertices to the table, with the percentage complete shown above
+ * it; the run can be cancelled at any time, leaving the rows computed so far.
+ * The table only holds vertex ids, so it can be sorted and filtered however
+ * large the graph is.
+ *
+ */
 @SuppressWarnings("serial")
 public class DistancePanel extends JPanel implements AbstractDetailPanel {
-
-	public DistancePanel(Model model, final Graph<RDFNode, Statement> graph) throws Exception {
+	private final ModelGraphSnapshot graph;
+	private final int pivots;
+
+	private final DistanceTableModel tableModel;
+	private final TableView table;
+	private final JProgressBar progressBar = new JProgressBar(0, 100);
+	private final JButton cancelButton = new JButton("Cancel", createImageIcon("/images/close-icon.png"));
+	private final JLabel statusLabel = new JLabel();
+
+	private Measurer measurer;
+
+	/**
+	 * Create the panel
+	 *
+	 * @param graph
+	 *            the graph to measure
+	 * @param pivots
+	 *            the number of pivots to estimate the measures from, 0 for
+	 *            the exact measures
+	 *
+	 */
+	public DistancePanel(final ModelGraphSnapshot graph, int pivots) {
+
+		this.graph = graph;
+		this.pivots = pivots;
 
 		setLayout(new RiverLayout());
 		setBorder(BorderFactory.createEtchedBorder());
 
-		JEditorPane contextView = new JEditorPane("text/html", null);
+		tableModel = new DistanceTableModel(pivots > 0);
+		table = new TableView(tableModel);
 
-		contextView.setEditable(false);
-		contextView.setBackground(new Color(243, 247, 250));
-		contextView.putClientProperty(JEditorPane.HONOR_DISPLAY_PROPERTIES, Boolean.TRUE);
-		contextView.setFont(new JTree().getFont());
+		setColumns(table, 300, 110);
+		setFilter(table, "");
 
-		StringBuilder builder = new StringBuilder();
+		final SearchTextField searchField = new SearchTextField(createImageIcon("/images/filter-icon-16.png"),
+				"Filter");
 
-		builder.append("<html>");
-		builder.append("<table>");
+		searchField.getDocument().addDocumentListener(new DocumentListener() {
 
-		Transformer<RDFNode, Double> transformer = DistanceStatistics.averageDistances(graph);
+			@Override
+			public void insertUpdate(DocumentEvent e) {
 
-		StmtIterator iterator = model.listStatements();
+				filter(searchField.getText());
 
-		Map<String, Double> map = new TreeMap<String, Double>();
+			}
 
-		while (iterator.hasNext()) {
-			Statement statement = iterator.next();
+			@Override
+			public void removeUpdate(DocumentEvent e) {
 
-			map.put(statement.getSubject().toString(), transformer.transform(statement.getSubject()));
+				filter(searchField.getText());
 
-		}
+			}
 
-		for (Entry<String, Double> entry : map.entrySet()) {
-			setItem(builder, entry.getKey(), entry.getValue().toString());
-		}
+			@Override
+			public void changedUpdate(DocumentEvent e) {
 
-		builder.append("</table>");
-		builder.append("</html>");
+				filter(searchField.getText());
 
-		contextView.setText(builder.toString());
-		setLayout(new RiverLayout());
-		setBorder(BorderFactory.createEtchedBorder());
+			}
+
+		});
 
-		JScrollPane scrollPanel = new JScrollPane(contextView);
+		progressBar.setStringPainted(true);
+
+		cancelButton.setPreferredSize(new Dimension(90, 25));
+
+		cancelButton.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+
+				cancel();
+
+			}
+
+		});
+
+		JScrollPane scrollPanel = table.getScrollPane();
 
 		scrollPanel.setPreferredSize(new Dimension(600, 400));
 		scrollPanel.setMinimumSize(new Dimension(600, 400));
 
+		add("hfill", progressBar);
+		add(cancelButton);
+		add("br", statusLabel);
+		add("br hfill", searchField);
 		add("br hfill vfill", scrollPanel);
 
 	}
 
-	private void setItem(StringBuilder builder, String label, String value) {
+	/**
+	 * Computes the measures, publishing the ids of the vertices measured
+	 */
+	private class Measurer extends SwingWorker<DistanceMeasures, int[]> {
+		final DistanceEngine engine = new DistanceEngine(graph);
+		final AtomicInteger measured = new AtomicInteger();
+
+		volatile DistanceMeasures measures;
+
+		@Override
+		protected DistanceMeasures doInBackground() throws Exception {
+
+			engine.setListener(new DistanceEngine.Listener() {
+
+				@Override
+				public void measured(DistanceMeasures measures, int[] ids, int from, int count) {
+
+					if (isCancelled()) {
+
+						engine.cancel();
+
+						return;
+
+					}
+
+					Measurer.this.measures = measures;
+
+					publish(Arrays.copyOfRange(ids, from, from + count));
+
+					setProgress(
+							(int) ((long) measured.addAndGet(count) * 100 / Math.max(1, graph.getVertexCount())));
+
+				}
+
+			});
+
+			return (pivots > 0) ? engine.estimate(pivots) : engine.compute();
+
+		}
+
+		@Override
+		protected void process(List<int[]> batches) {
+			int[] offsets = graph.getOutEdgeOffsets();
+
+			for (int[] ids : batches) {
+				int subjects = 0;
+
+				for (int id : ids) {
+
+					if (offsets[id + 1] > offsets[id]) {
+						ids[subjects++] = id;
+					}
+
+				}
+
+				tableModel.add(measures, ids, subjects);
 
-		builder.append("<tr><td width=\"120\"><b>");
-		builder.append(label);
-		builder.append("</b></td><td><i>");
-		builder.append(value);
-		builder.append("</i></td></tr>");
+			}
+
+		}
+
+		@Override
+		protected void done() {
+
+			cancelButton.setEnabled(false);
+
+			if (isCancelled()) {
+
+				progressBar.setString(String.format("Cancelled - %d%%", getProgress()));
+
+				return;
+
+			}
+
+			try {
+
+				DistanceMeasures measures = get();
+
+				progressBar.setValue(100);
+				progressBar.setString("Complete");
+
+				if (measures.isApproximate()) {
+					statusLabel.setText(String.format("Estimated from %,d pivots - error bounds at %.0f%% confidence",
+							measures.getSamples(), DistanceEngine.CONFIDENCE * 100));
+				}
+
+			} catch (Exception e) {
+
+				progressBar.setString("Failed");
+
+				TaskDialogs.showException(e.getCause() != null ? e.getCause() : e);
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Filter the rows, keeping the current sort order
+	 *
+	 * @param filter
+	 *            the text to filter the rows
+	 *
+	 */
+	private void filter(String filter) {
+		List<? extends SortKey> keys = table.getRowSorter().getSortKeys();
+
+		setFilter(table, filter);
+
+		table.getRowSorter().setSortKeys(keys);
+
+	}
+
+	/**
+	 * Start computing the measures
+	 */
+	public void start() {
+
+		measurer = new Measurer();
+
+		measurer.addPropertyChangeListener(new PropertyChangeListener() {
+
+			@Override
+			public void propertyChange(PropertyChangeEvent event) {
+
+				if ("progress".equals(event.getPropertyName())) {
+					progressBar.setValue((Integer) event.getNewValue());
+				}
+
+			}
+
+		});
+
+		measurer.execute();
+
+	}
+
+	/**
+	 * Cancel the measures still being computed
+	 */
+	public void cancel() {
+
+		if (measurer != null && !measurer.isDone()) {
+			measurer.cancel(false);
+			measurer.engine.cancel();
+		}
 
 	}
 
@@ -0,0 +1,147 @@
+package org.snail.viewer.panel;
+
+import java.util.Arrays;
+
+import javax.swing.table.AbstractTableModel;
+
+import org.snail.viewer.jung.algorithms.DistanceMeasures;
+
+/**
+ * Table model of distance measures.
+ *
+ * A row is just a vertex id held in a growable int array; the cells are read
+ * from the measures' arrays when the table asks for them, so only the rows
+ * being displayed (or sorted, or filtered) are ever turned into objects.
+ *
+ */
+@SuppressWarnings("serial")
+public class DistanceTableModel extends AbstractTableModel {
+	private static final String[] EXACT_COLUMNS = { "Subject", "Average Distance", "Closeness", "Eccentricity" };
+	private static final String[] APPROXIMATE_COLUMNS = { "Subject", "Average Distance", "Error", "Closeness",
+			"Eccentricity" };
+
+	private final boolean approximate;
+
+	private DistanceMeasures measures;
+	private int[] ids = new int[1024];
+	private int size = 0;
+
+	/**
+	 * Create an empty model
+	 *
+	 * @param approximate
+	 *            'true' if the measures are estimated (adds an error column)
+	 *
+	 */
+	public DistanceTableModel(boolean approximate) {
+
+		this.approximate = approximate;
+
+	}
+
+	/**
+	 * Append the rows of a batch of measured vertices
+	 *
+	 * @param measures
+	 *            the measures
+	 * @param batch
+	 *            the vertex ids
+	 * @param count
+	 *            the number of ids
+	 *
+	 */
+	public void add(DistanceMeasures measures, int[] batch, int count) {
+
+		if (count == 0) {
+			return;
+		}
+
+		this.measures = measures;
+
+		if (size + count > ids.length) {
+			ids = Arrays.copyOf(ids, Math.max(size + count, ids.length * 2));
+		}
+
+		System.arraycopy(batch, 0, ids, size, count);
+
+		size += count;
+
+		fireTableRowsInserted(size - count, size - 1);
+
+	}
+
+	/**
+	 * Get the vertex shown in a row
+	 *
+	 * @param row
+	 *            the (model) row
+	 *
+	 * @return the vertex's id
+	 *
+	 */
+	public int getId(int row) {
+
+		return ids[row];
+
+	}
+
+	@Override
+	public int getRowCount() {
+
+		return size;
+
+	}
+
+	@Override
+	public int getColumnCount() {
+
+		return approximate ? APPROXIMATE_COLUMNS.length : EXACT_COLUMNS.length;
+
+	}
+
+	@Override
+	public String getColumnName(int column) {
+
+		return approximate ? APPROXIMATE_COLUMNS[column] : EXACT_COLUMNS[column];
+
+	}
+
+	@Override
+	public Class<?> getColumnClass(int column) {
+
+		if (column == 0) {
+			return String.class;
+		}
+
+		return (column == getColumnCount() - 1) ? Integer.class : Double.class;
+
+	}
+
+	@Override
+	public Object getValueAt(int row, int column) {
+		int id = ids[row];
+
+		if (approximate && column > 1) {
+
+			if (column == 2) {
+				return measures.getErrorBound(id);
+			}
+
+			column -= 1;
+
+		}
+
+		switch (column) {
+		case 0:
+			return measures.getGraph().getVertex(id).toString();
+		case 1:
+			return measures.getAverageDistance(id);
+		case 2:
+			return measures.getCloseness(id);
+		default:
+			return measures.getEccentricity(id);
+		}
+
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.snail.viewer.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Writes strings and int arrays to a stream, and reads them back from a
+ * (memory mapped) buffer. Both are length prefixed, the strings as UTF-8 so
+ * they may be of any length.
+ *
+ */
+public class BufferUtils {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Write a string
+	 *
+	 * @param output
+	 *            the stream
+	 * @param string
+	 *            the string
+	 *
+	 * @throws IOException
+	 *             thrown if the string could not be written
+	 *
+	 */
+	public static void writeString(DataOutputStream output, String string) throws IOException {
+		byte[] bytes = string.getBytes(UTF8);
+
+		output.writeInt(bytes.length);
+		output.write(bytes);
+
+	}
+
+	/**
+	 * Read a string
+	 *
+	 * @param buffer
+	 *            the buffer, positioned at the string
+	 *
+	 * @return the string
+	 *
+	 */
+	public static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+
+		buffer.get(bytes);
+
+		return new String(bytes, UTF8);
+
+	}
+
+	/**
+	 * Write an int array
+	 *
+	 * @param output
+	 *            the stream
+	 * @param values
+	 *            the array
+	 *
+	 * @throws IOException
+	 *             thrown if the array could not be written
+	 *
+	 */
+	public static void writeInts(DataOutputStream output, int[] values) throws IOException {
+
+		output.writeInt(values.length);
+
+		for (int value : values) {
+			output.writeInt(value);
+		}
+
+	}
+
+	/**
+	 * Read an int array in one copy
+	 *
+	 * @param buffer
+	 *            the buffer, positioned at the array
+	 *
+	 * @return the array
+	 *
+	 */
+	public static int[] readInts(ByteBuffer buffer) {
+		int[] values = new int[buffer.getInt()];
+
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + values.length * 4);
+
+		return values;
+
+	}
+
+}
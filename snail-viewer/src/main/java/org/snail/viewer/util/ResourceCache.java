@@ -0,0 +1,152 @@
+package org.snail.viewer.util;
+
+import java.awt.Font;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.swing.ImageIcon;
+
+/**
+ * Shared icons, fonts and labels for the renderers.
+ *
+ * A renderer is called for every cell painted, so anything it creates is
+ * created again on every scroll. Icons are loaded from the class path once
+ * per path, fonts are created once per name, style and size, and labels
+ * formatted from a number are kept in a small table per format - once warm,
+ * none of these allocate.
+ *
+ */
+public class ResourceCache {
+	private static final int MAXIMUM_SIZE = 256;
+
+	private static final Map<String, ImageIcon> icons = new HashMap<String, ImageIcon>();
+	private static final Map<String, Font[]> fonts = new HashMap<String, Font[]>();
+	private static final Map<String, Labels> labels = new HashMap<String, Labels>();
+
+	/**
+	 * Labels formatted from numbers, in a direct mapped table - a label is
+	 * formatted again only when another number has taken its slot
+	 */
+	public static class Labels {
+		private static final int SLOTS = 1024;
+
+		private final String format;
+
+		private final long[] values = new long[SLOTS];
+		private final String[] strings = new String[SLOTS];
+
+		private Labels(String format) {
+
+			this.format = format;
+
+		}
+
+		/**
+		 * Get the label of a number
+		 *
+		 * @param value
+		 *            the number
+		 *
+		 * @return the formatted label
+		 *
+		 */
+		public synchronized String get(long value) {
+			int slot = (int) (value ^ (value >>> 32)) & (SLOTS - 1);
+
+			if (strings[slot] == null || values[slot] != value) {
+				values[slot] = value;
+				strings[slot] = String.format(format, value);
+			}
+
+			return strings[slot];
+
+		}
+
+	}
+
+	/**
+	 * Get an icon
+	 *
+	 * @param path
+	 *            the path of the image on the class path
+	 *
+	 * @return the icon, or null if there is no such image
+	 *
+	 */
+	public static synchronized ImageIcon getIcon(String path) {
+
+		if (!icons.containsKey(path)) {
+			java.net.URL imgURL = ResourceCache.class.getResource(path);
+
+			if (imgURL == null) {
+				System.err.println("Couldn't find file: " + path);
+			}
+
+			icons.put(path, (imgURL == null) ? null : new ImageIcon(imgURL));
+		}
+
+		return icons.get(path);
+
+	}
+
+	/**
+	 * Get a font
+	 *
+	 * @param name
+	 *            the font's name
+	 * @param style
+	 *            the style, a combination of {@code Font.BOLD} and
+	 *            {@code Font.ITALIC}
+	 * @param size
+	 *            the point size
+	 *
+	 * @return the font
+	 *
+	 */
+	public static synchronized Font getFont(String name, int style, int size) {
+
+		if (size < 0 || size >= MAXIMUM_SIZE || (style & ~(Font.BOLD | Font.ITALIC)) != 0) {
+			return new Font(name, style, size);
+		}
+
+		Font[] family = fonts.get(name);
+
+		if (family == null) {
+			family = new Font[MAXIMUM_SIZE * 4];
+
+			fonts.put(name, family);
+		}
+
+		int index = size * 4 + style;
+
+		if (family[index] == null) {
+			family[index] = new Font(name, style, size);
+		}
+
+		return family[index];
+
+	}
+
+	/**
+	 * Get the labels of a format
+	 *
+	 * @param format
+	 *            the format of the labels, taking one integer
+	 *
+	 * @return the labels
+	 *
+	 */
+	public static synchronized Labels getLabels(String format) {
+		Labels formatLabels = labels.get(format);
+
+		if (formatLabels == null) {
+			formatLabels = new Labels(format);
+
+			labels.put(format, formatLabels);
+		}
+
+		return formatLabels;
+
+	}
+
+}
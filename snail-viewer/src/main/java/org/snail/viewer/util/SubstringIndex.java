@@ -0,0 +1,277 @@
+package org.snail.viewer.util;
+
+import java.util.Arrays;
+
+/**
+ * A trigram index of a set of strings for substring search.
+ *
+ * Every distinct run of three characters in a string is a trigram, and the
+ * index holds, for each trigram, the sorted ids (positions) of the strings
+ * that contain it. A query of three or more characters only looks at the
+ * strings in the shortest list among its trigrams, checking each one really
+ * contains the text, rather than at every string. Shorter queries, which have
+ * no trigram to look up, fall back to a scan.
+ *
+ * Matching is case sensitive, as {@code String.contains} is. The index is
+ * read only once built and may be queried from any thread.
+ *
+ */
+public class SubstringIndex {
+	private static final long EMPTY = -1;
+
+	private final String[] strings;
+
+	private final Trigrams trigrams = new Trigrams();
+
+	private final int[] offsets;
+	private final int[] postings;
+
+	/**
+	 * An open addressing table from each trigram to the number of its list
+	 */
+	private static class Trigrams {
+		private long[] keys = new long[1024];
+		private int[] lists = new int[1024];
+		private int size = 0;
+
+		Trigrams() {
+
+			Arrays.fill(keys, EMPTY);
+
+		}
+
+		/**
+		 * Get a trigram's list, or -1 if there is none
+		 */
+		int get(long trigram) {
+			int slot = slot(keys, trigram);
+
+			return (keys[slot] == EMPTY) ? -1 : lists[slot];
+
+		}
+
+		/**
+		 * Get a trigram's list, numbering a new list for a new trigram
+		 */
+		int add(long trigram) {
+			int slot = slot(keys, trigram);
+
+			if (keys[slot] == EMPTY) {
+
+				if ((size + 1) * 2 > keys.length) {
+					grow();
+
+					slot = slot(keys, trigram);
+				}
+
+				keys[slot] = trigram;
+				lists[slot] = size++;
+
+			}
+
+			return lists[slot];
+
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			int[] oldLists = lists;
+
+			keys = new long[oldKeys.length * 2];
+			lists = new int[oldKeys.length * 2];
+
+			Arrays.fill(keys, EMPTY);
+
+			for (int iSlot = 0; iSlot < oldKeys.length; iSlot++) {
+
+				if (oldKeys[iSlot] != EMPTY) {
+					int slot = slot(keys, oldKeys[iSlot]);
+
+					keys[slot] = oldKeys[iSlot];
+					lists[slot] = oldLists[iSlot];
+				}
+
+			}
+
+		}
+
+		/**
+		 * Find the slot of a key, or the empty slot it would go in
+		 */
+		private static int slot(long[] keys, long key) {
+			int mask = keys.length - 1;
+			int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+
+			while (keys[slot] != EMPTY && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+
+			return slot;
+
+		}
+
+	}
+
+	/**
+	 * Index strings
+	 *
+	 * @param strings
+	 *            the strings, whose positions are the ids returned by queries
+	 *
+	 */
+	public SubstringIndex(String[] strings) {
+		long[] keys = new long[64];
+		int[] occurrences = new int[Math.max(16, strings.length * 8)];
+		int[] stringOffsets = new int[strings.length + 1];
+		int[] counts = new int[1024];
+		int occurrenceCount = 0;
+
+		this.strings = strings;
+
+		for (int iString = 0; iString < strings.length; iString++) {
+			String string = strings[iString];
+			int keyCount = Math.max(0, string.length() - 2);
+
+			if (keys.length < keyCount) {
+				keys = new long[keyCount * 2];
+			}
+
+			for (int iChar = 0; iChar < keyCount; iChar++) {
+				keys[iChar] = trigram(string, iChar);
+			}
+
+			Arrays.sort(keys, 0, keyCount);
+
+			for (int iKey = 0; iKey < keyCount; iKey++) {
+
+				if (iKey > 0 && keys[iKey] == keys[iKey - 1]) {
+					continue;
+				}
+
+				int list = trigrams.add(keys[iKey]);
+
+				if (list == counts.length) {
+					counts = Arrays.copyOf(counts, counts.length * 2);
+				}
+
+				if (occurrenceCount == occurrences.length) {
+					occurrences = Arrays.copyOf(occurrences, occurrences.length * 2);
+				}
+
+				occurrences[occurrenceCount++] = list;
+				counts[list] += 1;
+
+			}
+
+			stringOffsets[iString + 1] = occurrenceCount;
+
+		}
+
+		/*
+		 * Lay the lists out end to end, filling them in string order so each
+		 * list is sorted
+		 */
+		int listCount = trigrams.size;
+
+		offsets = new int[listCount + 1];
+
+		for (int iList = 0; iList < listCount; iList++) {
+			offsets[iList + 1] = offsets[iList] + counts[iList];
+		}
+
+		int[] next = Arrays.copyOf(offsets, listCount);
+
+		postings = new int[occurrenceCount];
+
+		for (int iString = 0; iString < strings.length; iString++) {
+
+			for (int iOccurrence = stringOffsets[iString]; iOccurrence < stringOffsets[iString + 1]; iOccurrence++) {
+				postings[next[occurrences[iOccurrence]]++] = iString;
+			}
+
+		}
+
+	}
+
+	/**
+	 * Get the number of strings indexed
+	 */
+	public int size() {
+
+		return strings.length;
+
+	}
+
+	/**
+	 * Get an indexed string
+	 *
+	 * @param id
+	 *            the string's id
+	 *
+	 * @return the string
+	 *
+	 */
+	public String get(int id) {
+
+		return strings[id];
+
+	}
+
+	/**
+	 * Find the strings that contain a text
+	 *
+	 * @param text
+	 *            the text
+	 *
+	 * @return the ids of the matching strings, in order
+	 *
+	 */
+	public int[] find(String text) {
+		int shortest = -1;
+
+		if (text.length() >= 3) {
+
+			for (int iChar = 0; iChar + 3 <= text.length(); iChar++) {
+				int list = trigrams.get(trigram(text, iChar));
+
+				if (list < 0) {
+					return new int[0];
+				}
+
+				if (shortest < 0 || offsets[list + 1] - offsets[list] < offsets[shortest + 1] - offsets[shortest]) {
+					shortest = list;
+				}
+
+			}
+
+		}
+
+		int from = (shortest < 0) ? 0 : offsets[shortest];
+		int to = (shortest < 0) ? strings.length : offsets[shortest + 1];
+		int[] ids = new int[to - from];
+		int count = 0;
+
+		for (int iCandidate = from; iCandidate < to; iCandidate++) {
+			int id = (shortest < 0) ? iCandidate : postings[iCandidate];
+
+			if (strings[id].contains(text)) {
+				ids[count++] = id;
+			}
+
+		}
+
+		return (count == ids.length) ? ids : Arrays.copyOf(ids, count);
+
+	}
+
+	/**
+	 * Pack three characters into a key
+	 */
+	private static long trigram(String string, int index) {
+
+		return ((long) string.charAt(index) << 32) | ((long) string.charAt(index + 1) << 16)
+				| string.charAt(index + 2);
+
+	}
+
+}
@@ -85,7 +85,7 @@ public class WidgetUtils {
 	}
 
 	/**
-	 * Get an Image Icon
+	 * Get an Image Icon, shared through the {@link ResourceCache}
 	 * 
 	 * @param path
 	 *            the Path to the Icon
@@ -93,14 +93,8 @@ public class WidgetUtils {
 	 * @return the Image Icon
 	 */
 	public static ImageIcon createImageIcon(String path) {
-		java.net.URL imgURL = WidgetUtils.class.getResource(path);
 
-		if (imgURL != null) {
-			return new ImageIcon(imgURL);
-		} else {
-			System.err.println("Couldn't find file: " + path);
-			return null;
-		}
+		return ResourceCache.getIcon(path);
 
 	}
 
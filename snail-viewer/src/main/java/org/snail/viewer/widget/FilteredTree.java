@@ -5,30 +5,51 @@ import static org.snail.viewer.util.WidgetUtils.createImageIcon;
 import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.Font;
-import java.util.Enumeration;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import javax.swing.BorderFactory;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTree;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.DefaultTreeCellRenderer;
 import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+
+import org.snail.viewer.util.ResourceCache;
 
 /**
  * Tree widget which allows the tree to be filtered on keystroke time. Only
  * nodes who's toString matches the search field will remain in the tree or its
  * parents.
  * 
+ * The filter waits until typing pauses, then matches the text on a
+ * background task against the labels of the tree flattened by a
+ * {@link TreeFilter} (flattened once, by the first filter after the tree is
+ * set), or by the {@link ModelFilter} given with a model; a newer keystroke
+ * cancels a match still in progress, and the result is shown as a view of the
+ * original nodes. Folders are expanded until about {@code EXPANDED_ROWS} rows
+ * are showing.
+ * 
  * Copyright (c) Oliver.Watkins
  */
 
 @SuppressWarnings("serial")
 public class FilteredTree extends JPanel {
+	private static final int DELAY = 200;
+	private static final int EXPANDED_ROWS = 1000;
 
 	public interface NodeListener {
 
@@ -36,13 +57,39 @@ public class FilteredTree extends JPanel {
 
 	}
 
+	/**
+	 * Filters a tree model, off the event thread
+	 */
+	public interface ModelFilter {
+
+		/**
+		 * Filter the model
+		 * 
+		 * @param text
+		 *            the text to match
+		 * 
+		 * @return a view of the model with the nodes matching the text and
+		 *         their ancestors
+		 * 
+		 * @throws InterruptedException
+		 *             the filter was cancelled
+		 */
+		TreeModel filter(String text) throws InterruptedException;
+
+	}
+
 	private String filteredText = "";
-	private DefaultTreeModel originalTreeModel;
+	private String pendingText = "";
+	private TreeModel originalTreeModel;
 	private DefaultMutableTreeNode root;
 	private JScrollPane scrollpane;
 	private JTree tree = new JTree();
 	private NodeListener listener;
 
+	private FutureTask<ModelFilter> modelFilter = null;
+	private Filter filter = null;
+	private Timer filterTimer;
+
 	public FilteredTree(DefaultMutableTreeNode root, NodeListener listener) {
 
 		this.root = root;
@@ -58,21 +105,32 @@ public class FilteredTree extends JPanel {
 
 		final SearchTextField searchField = new SearchTextField(createImageIcon("/images/filter-icon-16.png"), "Filter");
 
+		filterTimer = new Timer(DELAY, new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				filterTree(pendingText);
+			}
+
+		});
+
+		filterTimer.setRepeats(false);
+
 		searchField.getDocument().addDocumentListener(new DocumentListener() {
 
 			@Override
 			public void removeUpdate(final DocumentEvent e) {
-				filterTree(searchField.getText());
+				schedule(searchField.getText());
 			}
 
 			@Override
 			public void insertUpdate(final DocumentEvent e) {
-				filterTree(searchField.getText());
+				schedule(searchField.getText());
 			}
 
 			@Override
 			public void changedUpdate(final DocumentEvent e) {
-				filterTree(searchField.getText());
+				schedule(searchField.getText());
 			}
 
 		});
@@ -91,254 +149,254 @@ public class FilteredTree extends JPanel {
 	}
 
 	/**
+	 * Filter the tree once typing pauses
 	 * 
 	 * @param text
+	 *            the text typed so far
 	 */
+	private void schedule(String text) {
 
-	private void filterTree(String text) {
-		filteredText = text;
-		// get a copy
-		DefaultMutableTreeNode node = copyNode(root);
-
-		if (listener.keepNode(node) && text.trim().toString().equals("")) {
-
-			originalTreeModel.setRoot(root);
-
-			tree.setModel(originalTreeModel);
-			tree.updateUI();
-			scrollpane.getViewport().setView(tree);
+		pendingText = text;
 
-			for (int iRow = 0; iRow < tree.getRowCount(); iRow++) {
-				tree.expandRow(iRow);
-			}
-
-			return;
-
-		} else {
-			TreeNodeBuilder builder = new TreeNodeBuilder(text);
-			node = builder.prune(node);
-
-			originalTreeModel.setRoot(node);
-
-			tree.setModel(originalTreeModel);
-			tree.updateUI();
-			scrollpane.getViewport().setView(tree);
-
-		}
-
-		for (int iRow = 0; iRow < tree.getRowCount(); iRow++) {
-
-			tree.expandRow(iRow);
-
-		}
+		filterTimer.restart();
 
 	}
 
 	/**
-	 * Clone/Copy a tree node. TreeNodes in Swing don't support deep cloning.
+	 * Start filtering the tree, cancelling a filter still in progress
 	 * 
-	 * @param originalNode
-	 *            to be cloned
-	 * @return cloned copy
+	 * @param text
+	 *            the text to match
 	 */
-	private DefaultMutableTreeNode copyNode(DefaultMutableTreeNode originalNode) {
-		DefaultMutableTreeNode newOne = new DefaultMutableTreeNode();
+	private void filterTree(String text) {
 
-		newOne.setUserObject(originalNode.getUserObject());
+		if (filter != null) {
+			filter.cancel(true);
+			filter = null;
+		}
 
-		@SuppressWarnings("unchecked")
-		Enumeration<DefaultMutableTreeNode> node = originalNode.children();
+		if (text.trim().equals("")) {
 
-		while (node.hasMoreElements()) {
-			DefaultMutableTreeNode child = (DefaultMutableTreeNode) node.nextElement();
+			show(text, originalTreeModel);
 
-			newOne.add(copyNode(child));
+			return;
 
 		}
 
-		return newOne;
+		if (modelFilter == null) {
+			final DefaultMutableTreeNode flattened = root;
 
-	}
+			modelFilter = new FutureTask<ModelFilter>(new Callable<ModelFilter>() {
 
-	/**
-	 * Renders bold any tree nodes who's toString() value starts with the
-	 * filtered text we are filtering on.
-	 * 
-	 * @author Oliver.Watkins
-	 */
-	public class Renderer extends DefaultTreeCellRenderer {
+				@Override
+				public ModelFilter call() throws Exception {
 
-		@Override
-		public Component getTreeCellRendererComponent(JTree tree, Object value, boolean selected, boolean expanded,
-				boolean leaf, int row, boolean hasfocus) {
+					return new TreeFilter(flattened, listener);
 
-			Component component = super.getTreeCellRendererComponent(tree, value, selected, expanded, leaf, row,
-					hasfocus);
-
-			if (component instanceof JLabel) {
-
-				if (!filteredText.equals("") && value.toString().startsWith(filteredText)) {
-					Font f = component.getFont();
-					f = new Font("Dialog", Font.BOLD, f.getSize());
-					component.setFont(f);
-				} else {
-					Font f = component.getFont();
-					f = new Font("Dialog", Font.PLAIN, f.getSize());
-					component.setFont(f);
 				}
 
-			}
-
-			return component;
+			});
 
 		}
 
-	}
+		filter = new Filter(modelFilter, text);
+
+		filter.execute();
 
-	public JTree getTree() {
-		return tree;
 	}
 
-	public void setRoot(DefaultMutableTreeNode root) {
+	/**
+	 * Show a (filtered) model with its folders expanded
+	 */
+	private void show(String text, TreeModel model) {
 
-		this.root = root;
+		filteredText = text;
 
-		((DefaultTreeModel) getTree().getModel()).setRoot(root);
+		tree.setModel(model);
+
+		expand(model);
 
 	}
 
 	/**
-	 * Class that prunes off all leaves which do not match the search string.
-	 * 
-	 * @author Oliver.Watkins
+	 * Expand the folders a level at a time, skipping those that would take
+	 * the rows showing past {@code EXPANDED_ROWS} - so only the children of
+	 * the expanded folders are looked at
 	 */
+	private void expand(TreeModel model) {
+		List<TreePath> paths = new LinkedList<TreePath>();
+		int rows = 0;
 
-	public class TreeNodeBuilder {
-
-		private String textToMatch;
+		paths.add(new TreePath(model.getRoot()));
 
-		public TreeNodeBuilder(String textToMatch) {
+		while (!paths.isEmpty()) {
+			TreePath path = paths.remove(0);
+			Object node = path.getLastPathComponent();
+			int count = model.getChildCount(node);
 
-			this.textToMatch = textToMatch;
+			if (rows + count > EXPANDED_ROWS && path.getPathCount() > 1) {
+				continue;
+			}
 
-		}
+			tree.expandPath(path);
 
-		public DefaultMutableTreeNode prune(DefaultMutableTreeNode root) {
-			boolean badLeaves = true;
+			rows += count;
 
-			// keep looping through until tree contains only leaves that match
-			while (badLeaves) {
+			for (int iChild = 0; iChild < count; iChild++) {
+				Object child = model.getChild(node, iChild);
 
-				badLeaves = removeBadLeaves(root);
+				if (!model.isLeaf(child)) {
+					paths.add(path.pathByAddingChild(child));
+				}
 
 			}
 
-			boolean uncleaned = true;
-
-			loop: while (uncleaned) {
-
-				for (int iChild = 0; iChild < root.getChildCount(); iChild++) {
-					if (cleanFolders(root, (DefaultMutableTreeNode) root.getChildAt(iChild))) {
+		}
 
-						iChild = 0;
+	}
 
-						uncleaned = true;
+	/**
+	 * Matches the text against the tree, in the background
+	 */
+	private class Filter extends SwingWorker<TreeModel, Void> {
+		private final FutureTask<ModelFilter> modelFilter;
+		private final String text;
 
-						continue loop;
+		Filter(FutureTask<ModelFilter> modelFilter, String text) {
 
-					}
+			this.modelFilter = modelFilter;
+			this.text = text;
 
-				}
+		}
 
-				uncleaned = false;
+		@Override
+		protected TreeModel doInBackground() throws Exception {
 
-			}
+			/*
+			 * Only the first filter flattens the tree, the others wait for it
+			 */
+			modelFilter.run();
 
-			return root;
+			return modelFilter.get().filter(text);
 
 		}
 
-		/**
-		 * Remove Bad Leaves
-		 * 
-		 * @param root
-		 *            the Root or Parent
-		 * 
-		 * @return boolean bad leaves were returned
-		 */
+		@Override
+		protected void done() {
 
-		private boolean removeBadLeaves(DefaultMutableTreeNode root) {
-			boolean badLeaves = false;
+			if (isCancelled() || filter != this) {
+				return;
+			}
 
-			// reference first leaf
+			filter = null;
 
-			DefaultMutableTreeNode leaf = root.getFirstLeaf();
+			try {
 
-			// if leaf is root then its the only node
+				show(text, get());
 
-			if (leaf.isRoot()) {
+			} catch (InterruptedException e) {
+			} catch (ExecutionException e) {
 
-				return false;
+				e.printStackTrace();
 
 			}
 
-			DefaultMutableTreeNode nextLeaf = leaf.getNextLeaf();
+		}
 
-			while (nextLeaf != null) {
+	}
 
-				// if it does not start with the text then snip it off its
-				// parent
+	/**
+	 * Renders bold any tree nodes who's toString() value starts with the
+	 * filtered text we are filtering on. The fonts are shared, from the
+	 * {@link ResourceCache}.
+	 * 
+	 * @author Oliver.Watkins
+	 */
+	public class Renderer extends PlainTreeCellRenderer {
 
-				if (listener.keepNode(leaf) && !leaf.toString().contains(textToMatch)) {
+		@Override
+		public Component getTreeCellRendererComponent(JTree tree, Object value, boolean selected, boolean expanded,
+				boolean leaf, int row, boolean hasfocus) {
 
-					clean(leaf);
+			Component component = super.getTreeCellRendererComponent(tree, value, selected, expanded, leaf, row,
+					hasfocus);
 
-					badLeaves = true;
+			if (component instanceof JLabel) {
 
-				}
+				int size = component.getFont().getSize();
 
-				nextLeaf = leaf.getNextLeaf();
-				leaf = nextLeaf;
+				if (!filteredText.equals("") && value.toString().startsWith(filteredText)) {
+					component.setFont(ResourceCache.getFont("Dialog", Font.BOLD, size));
+				} else {
+					component.setFont(ResourceCache.getFont("Dialog", Font.PLAIN, size));
+				}
 
 			}
 
-			return badLeaves;
+			return component;
 
 		}
 
-		boolean cleanFolders(DefaultMutableTreeNode parent, DefaultMutableTreeNode child) {
-			boolean unclean = false;
-
-			if (!(listener.keepNode(child)) && child.isLeaf()) {
+	}
 
-				parent.remove(child);
+	public JTree getTree() {
+		return tree;
+	}
 
-				return true;
+	/**
+	 * Replace the tree - the original model is shown and the filter, if any,
+	 * is applied again once the caller has finished building the tree
+	 * 
+	 * @param root
+	 *            the root of the tree
+	 */
+	public void setRoot(DefaultMutableTreeNode root) {
 
-			}
+		this.root = root;
 
-			loop: for (int iChild = 0; iChild < child.getChildCount(); iChild++) {
+		replace(new DefaultTreeModel(root), null);
 
-				if (cleanFolders(child, (DefaultMutableTreeNode) child.getChildAt(iChild))) {
+	}
 
-					iChild = 0;
+	/**
+	 * Replace the tree with a model that filters itself
+	 * 
+	 * @param model
+	 *            the model
+	 * @param filter
+	 *            the filter of the model
+	 */
+	public void setModel(TreeModel model, final ModelFilter filter) {
 
-					unclean = true;
+		replace(model, new FutureTask<ModelFilter>(new Callable<ModelFilter>() {
 
-					break loop;
+			@Override
+			public ModelFilter call() throws Exception {
 
-				}
+				return filter;
 
 			}
 
-			return unclean;
+		}));
+
+	}
+
+	private void replace(TreeModel model, FutureTask<ModelFilter> modelFilter) {
 
+		if (filter != null) {
+			filter.cancel(true);
+			filter = null;
 		}
 
-		void clean(DefaultMutableTreeNode leaf) {
-			DefaultMutableTreeNode parent = (DefaultMutableTreeNode) leaf.getParent();
-			parent.remove(leaf);
+		this.modelFilter = modelFilter;
+
+		filteredText = "";
+		originalTreeModel = model;
+
+		tree.setModel(originalTreeModel);
 
+		if (!pendingText.trim().equals("")) {
+			filterTimer.restart();
 		}
 
 	}
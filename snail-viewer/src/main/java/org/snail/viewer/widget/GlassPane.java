@@ -2,18 +2,27 @@ package org.snail.viewer.widget;
 
 import java.awt.Color;
 import java.awt.Cursor;
+import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseMotionAdapter;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 
 import javax.swing.ImageIcon;
+import javax.swing.JButton;
 import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
@@ -29,6 +38,11 @@ import javax.swing.border.EmptyBorder;
 public class GlassPane extends JComponent implements KeyListener {
 	private final static Border MESSAGE_BORDER = new EmptyBorder(10, 10, 10, 10);
 	private JLabel message = new JLabel();
+	private JProgressBar progressBar = new JProgressBar();
+	private JButton cancelButton = new JButton("Cancel", createImageIcon("/images/close-icon.png"));
+
+	private SwingWorker<?, ?> worker = null;
+	private PropertyChangeListener workerListener = null;
 
 	JFrame frame;
 
@@ -50,6 +64,37 @@ public class GlassPane extends JComponent implements KeyListener {
 		message.setBorder(MESSAGE_BORDER);
 		message.setIcon(createImageIcon("/images/hourglass-icon.png"));
 
+		// Add the progress bar and the cancel button - only shown for workers
+
+		GridBagConstraints constraints = new GridBagConstraints();
+
+		constraints.gridy = 1;
+		constraints.insets = new Insets(10, 0, 10, 0);
+
+		progressBar.setPreferredSize(new Dimension(200, 16));
+		progressBar.setVisible(false);
+
+		add(progressBar, constraints);
+
+		constraints = new GridBagConstraints();
+		constraints.gridy = 2;
+
+		cancelButton.setVisible(false);
+		cancelButton.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+
+				if (worker != null) {
+					worker.cancel(false);
+				}
+
+			}
+
+		});
+
+		add(cancelButton, constraints);
+
 		// Disable Mouse, Key and Focus events for the glass pane
 
 		addMouseListener(new MouseAdapter() {
@@ -109,6 +154,55 @@ public class GlassPane extends JComponent implements KeyListener {
 	 */
 	public void activate(String text) {
 
+		release();
+
+		progressBar.setVisible(false);
+		cancelButton.setVisible(false);
+
+		display(text);
+
+	}
+
+	/*
+	 * Make the glass pane visible while a worker runs - the worker's
+	 * "progress" is shown on the progress bar, its "message" replaces the
+	 * text and the cancel button cancels the worker.
+	 */
+	public void activate(String text, SwingWorker<?, ?> worker) {
+
+		release();
+
+		this.worker = worker;
+
+		workerListener = new PropertyChangeListener() {
+
+			@Override
+			public void propertyChange(PropertyChangeEvent event) {
+
+				if ("progress".equals(event.getPropertyName())) {
+					progressBar.setIndeterminate(false);
+					progressBar.setValue((Integer) event.getNewValue());
+				} else if ("message".equals(event.getPropertyName())) {
+					message.setText((String) event.getNewValue());
+				}
+
+			}
+
+		};
+
+		worker.addPropertyChangeListener(workerListener);
+
+		progressBar.setValue(0);
+		progressBar.setIndeterminate(true);
+		progressBar.setVisible(true);
+		cancelButton.setVisible(true);
+
+		display(text);
+
+	}
+
+	private void display(String text) {
+
 		frame.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
 		message.setVisible(true);
@@ -128,11 +222,27 @@ public class GlassPane extends JComponent implements KeyListener {
 	 */
 	public void deactivate() {
 
+		release();
+
 		frame.setCursor(null);
 		setVisible(false);
 
 	}
 
+	/*
+	 * Stop listening to the current worker (if any)
+	 */
+	private void release() {
+
+		if (worker != null) {
+			worker.removePropertyChangeListener(workerListener);
+		}
+
+		worker = null;
+		workerListener = null;
+
+	}
+
 	protected static ImageIcon createImageIcon(String path) {
 		java.net.URL imgURL = GlassPane.class.getResource(path);
 
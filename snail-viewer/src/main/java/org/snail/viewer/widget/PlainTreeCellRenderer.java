@@ -0,0 +1,30 @@
+package org.snail.viewer.widget;
+
+import javax.swing.plaf.basic.BasicHTML;
+import javax.swing.tree.DefaultTreeCellRenderer;
+
+/**
+ * A {@code DefaultTreeCellRenderer} for labels that are plain text.
+ *
+ * {@code DefaultTreeCellRenderer} drops most property change events, but
+ * still fires one for every new text so the look and feel can render HTML -
+ * an event object for every cell painted. The event is only fired here when
+ * the text is HTML, or replaces HTML.
+ *
+ */
+@SuppressWarnings("serial")
+public class PlainTreeCellRenderer extends DefaultTreeCellRenderer {
+
+	@Override
+	protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+
+		if ("text".equals(propertyName) && getClientProperty(BasicHTML.propertyKey) == null
+				&& !(newValue instanceof String && BasicHTML.isHTMLString((String) newValue))) {
+			return;
+		}
+
+		super.firePropertyChange(propertyName, oldValue, newValue);
+
+	}
+
+}
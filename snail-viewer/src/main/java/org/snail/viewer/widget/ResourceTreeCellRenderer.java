@@ -0,0 +1,56 @@
+package org.snail.viewer.widget;
+
+import java.awt.Component;
+
+import javax.swing.Icon;
+import javax.swing.JTree;
+
+import org.snail.viewer.util.ResourceCache;
+
+/**
+ * Renders the nodes of a {@link ResourceTreeModel} - folders and pages with
+ * one icon, resources with another and their triple count as the tooltip.
+ *
+ * The icons and labels come from the {@link ResourceCache}, and the tooltip
+ * is only formatted when the tree asks for it, so rendering a cell allocates
+ * nothing.
+ *
+ */
+@SuppressWarnings("serial")
+public class ResourceTreeCellRenderer extends PlainTreeCellRenderer {
+	private final Icon folderIcon = ResourceCache.getIcon("/images/predicate-icon-16.png");
+	private final Icon resourceIcon = ResourceCache.getIcon("/images/brkpd_obj.gif");
+	private final ResourceCache.Labels triples = ResourceCache.getLabels("%,d triples");
+
+	private ResourceTreeModel.Node resource = null;
+
+	@Override
+	public Component getTreeCellRendererComponent(JTree tree, Object value, boolean selected, boolean expanded,
+			boolean isLeaf, int row, boolean focused) {
+		Component component = super.getTreeCellRendererComponent(tree, value, selected, expanded, isLeaf, row,
+				focused);
+
+		if (value instanceof ResourceTreeModel.Node && ((ResourceTreeModel.Node) value).isResource()) {
+			resource = (ResourceTreeModel.Node) value;
+		} else {
+			resource = null;
+		}
+
+		setIcon((resource == null) ? folderIcon : resourceIcon);
+
+		return component;
+
+	}
+
+	/**
+	 * Get the tooltip of the cell last rendered - the tree renders the cell
+	 * under the mouse before asking
+	 */
+	@Override
+	public String getToolTipText() {
+
+		return (resource == null) ? null : triples.get(resource.getCount());
+
+	}
+
+}
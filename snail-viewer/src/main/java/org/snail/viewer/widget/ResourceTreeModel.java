@@ -0,0 +1,332 @@
+package org.snail.viewer.widget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+import org.snail.viewer.model.ResourceIndex;
+import org.snail.viewer.widget.FilteredTree.ModelFilter;
+
+/**
+ * A read only tree of the resources in one or more {@link ResourceIndex}es,
+ * a folder for each index.
+ *
+ * No node is held by the model: a node is a range of positions in a folder's
+ * sorted resources, created when the tree asks for it, so the tree costs
+ * nothing for the resources that are not shown. A folder (or range) of more
+ * than {@code PAGE} resources is split into alphabetical pages, each labelled
+ * with its first and last resource, and pages of more than {@code PAGE}
+ * pages are split again.
+ *
+ * Filtering looks the text up in each index and gives a model of the same
+ * folders holding just the matching resources.
+ *
+ */
+public class ResourceTreeModel implements TreeModel, ModelFilter {
+	private static final int PAGE = 256;
+
+	private final Node root;
+	private final List<Folder> folders;
+
+	/**
+	 * The resources of one index shown in a folder - all of them, or the
+	 * positions of some of them
+	 */
+	private static class Folder {
+		final String label;
+		final ResourceIndex resources;
+		final int[] positions;
+
+		Folder(String label, ResourceIndex resources, int[] positions) {
+
+			this.label = label;
+			this.resources = resources;
+			this.positions = positions;
+
+		}
+
+		int size() {
+
+			return (positions == null) ? resources.size() : positions.length;
+
+		}
+
+		int position(int index) {
+
+			return (positions == null) ? index : positions[index];
+
+		}
+
+	}
+
+	/**
+	 * A node of the tree - the root, a folder, a page or a resource. Nodes are
+	 * created on demand and are equal if they show the same range.
+	 */
+	public static class Node {
+		private String label;
+		private final Folder folder;
+		private final int from;
+		private final int to;
+		private final boolean resource;
+
+		Node(String label, Folder folder, int from, int to, boolean resource) {
+
+			this.label = label;
+			this.folder = folder;
+			this.from = from;
+			this.to = to;
+			this.resource = resource;
+
+		}
+
+		/**
+		 * Is the node a resource (rather than a folder or page)?
+		 */
+		public boolean isResource() {
+
+			return resource;
+
+		}
+
+		/**
+		 * Get the index of the folder the node is in, null for the root
+		 */
+		public ResourceIndex getIndex() {
+
+			return (folder == null) ? null : folder.resources;
+
+		}
+
+		/**
+		 * Get the URI of a resource node
+		 */
+		public String getResource() {
+
+			return folder.resources.get(folder.position(from));
+
+		}
+
+		/**
+		 * Get the number of triples of a resource node
+		 */
+		public int getCount() {
+
+			return folder.resources.getCount(folder.position(from));
+
+		}
+
+		@Override
+		public boolean equals(Object object) {
+
+			if (!(object instanceof Node)) {
+				return false;
+			}
+
+			Node node = (Node) object;
+
+			return node.folder == folder && node.from == from && node.to == to && node.resource == resource;
+
+		}
+
+		@Override
+		public int hashCode() {
+
+			return (System.identityHashCode(folder) * 31 + from) * 31 + to;
+
+		}
+
+		@Override
+		public String toString() {
+
+			if (label != null) {
+				return label;
+			}
+
+			if (resource) {
+				return getResource();
+			}
+
+			/*
+			 * The tree keeps the nodes it shows, so a page is labelled once
+			 */
+			label = String.format("%s - %s", folder.resources.get(folder.position(from)),
+					folder.resources.get(folder.position(to - 1)));
+
+			return label;
+
+		}
+
+	}
+
+	/**
+	 * Create an empty tree
+	 *
+	 * @param label
+	 *            the label of the root
+	 *
+	 */
+	public ResourceTreeModel(String label) {
+
+		this(label, new ArrayList<Folder>());
+
+	}
+
+	private ResourceTreeModel(String label, List<Folder> folders) {
+
+		this.root = new Node(label, null, 0, 0, false);
+		this.folders = folders;
+
+	}
+
+	/**
+	 * Add a folder of resources
+	 *
+	 * @param label
+	 *            the folder's label
+	 * @param resources
+	 *            the (built) index of the resources
+	 *
+	 */
+	public void addFolder(String label, ResourceIndex resources) {
+
+		folders.add(new Folder(label, resources, null));
+
+	}
+
+	/**
+	 * Get the positions covered by each child of a range, 1 for resources
+	 */
+	private static int span(int size) {
+		int span = 1;
+
+		while (size > (long) span * PAGE) {
+			span *= PAGE;
+		}
+
+		return span;
+
+	}
+
+	@Override
+	public Object getRoot() {
+
+		return root;
+
+	}
+
+	@Override
+	public Object getChild(Object parent, int index) {
+		Node node = (Node) parent;
+
+		if (node == root) {
+			Folder folder = folders.get(index);
+
+			return new Node(folder.label, folder, 0, folder.size(), false);
+		}
+
+		int span = span(node.to - node.from);
+		int from = node.from + index * span;
+
+		return new Node(null, node.folder, from, Math.min(node.to, from + span), span == 1);
+
+	}
+
+	@Override
+	public int getChildCount(Object parent) {
+		Node node = (Node) parent;
+
+		if (node == root) {
+			return folders.size();
+		}
+
+		if (node.resource) {
+			return 0;
+		}
+
+		int span = span(node.to - node.from);
+
+		return (node.to - node.from + span - 1) / span;
+
+	}
+
+	@Override
+	public boolean isLeaf(Object node) {
+
+		return ((Node) node).resource;
+
+	}
+
+	@Override
+	public int getIndexOfChild(Object parent, Object child) {
+
+		if (!(parent instanceof Node) || !(child instanceof Node)) {
+			return -1;
+		}
+
+		Node node = (Node) parent;
+		Node childNode = (Node) child;
+
+		if (node == root) {
+
+			for (int iFolder = 0; iFolder < folders.size(); iFolder++) {
+
+				if (folders.get(iFolder) == childNode.folder) {
+					return iFolder;
+				}
+
+			}
+
+			return -1;
+
+		}
+
+		if (childNode.folder != node.folder || childNode.from < node.from || childNode.from >= node.to) {
+			return -1;
+		}
+
+		return (childNode.from - node.from) / span(node.to - node.from);
+
+	}
+
+	/**
+	 * Filter the resources - folders are kept if a resource in them matches,
+	 * or if their label does
+	 */
+	@Override
+	public TreeModel filter(String text) throws InterruptedException {
+		List<Folder> filtered = new ArrayList<Folder>();
+
+		for (Folder folder : folders) {
+			int[] positions = folder.resources.find(text);
+
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedException();
+			}
+
+			if (positions.length > 0 || folder.label.contains(text)) {
+				filtered.add(new Folder(folder.label, folder.resources, positions));
+			}
+
+		}
+
+		return new ResourceTreeModel(root.label, filtered);
+
+	}
+
+	@Override
+	public void valueForPathChanged(TreePath path, Object newValue) {
+	}
+
+	@Override
+	public void addTreeModelListener(TreeModelListener listener) {
+	}
+
+	@Override
+	public void removeTreeModelListener(TreeModelListener listener) {
+	}
+
+}
@@ -0,0 +1,272 @@
+package org.snail.viewer.widget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+
+import org.snail.viewer.util.SubstringIndex;
+import org.snail.viewer.widget.FilteredTree.ModelFilter;
+import org.snail.viewer.widget.FilteredTree.NodeListener;
+
+/**
+ * The nodes of a tree flattened into arrays for filtering.
+ *
+ * The nodes are numbered in pre-order - a parent before its children, the
+ * children in order - with each node's label and parent held in parallel
+ * arrays, and the labels in a {@link SubstringIndex}. A filter looks the text
+ * up in the index and marks the matching nodes and their ancestors, and its
+ * result is a read only {@code TreeModel} over the original nodes, so nothing
+ * is copied however large the tree.
+ *
+ * {@link #filter(String)} may be called off the event thread (the tree must
+ * not change while it runs), and gives up when the thread is interrupted.
+ *
+ */
+public class TreeFilter implements ModelFilter {
+	private static final int CHECK_INTERVAL = 4096;
+
+	private final TreeNode[] nodes;
+	private final String[] labels;
+	private final int[] parents;
+	private final boolean[] kept;
+
+	private final SubstringIndex index;
+
+	private final Map<TreeNode, Integer> ids;
+
+	/**
+	 * Flatten a tree
+	 *
+	 * @param root
+	 *            the root of the tree
+	 * @param listener
+	 *            decides which nodes are matched against the text, the others
+	 *            only remain as the parents of matching nodes
+	 *
+	 */
+	public TreeFilter(TreeNode root, NodeListener listener) {
+		List<TreeNode> order = new ArrayList<TreeNode>();
+		List<Integer> parentOrder = new ArrayList<Integer>();
+
+		flatten(root, order, parentOrder);
+
+		nodes = order.toArray(new TreeNode[order.size()]);
+		labels = new String[nodes.length];
+		parents = new int[nodes.length];
+		kept = new boolean[nodes.length];
+		ids = new IdentityHashMap<TreeNode, Integer>(nodes.length);
+
+		for (int iNode = 0; iNode < nodes.length; iNode++) {
+
+			labels[iNode] = nodes[iNode].toString();
+			parents[iNode] = parentOrder.get(iNode);
+			kept[iNode] = listener.keepNode(nodes[iNode]);
+
+			ids.put(nodes[iNode], iNode);
+
+		}
+
+		index = new SubstringIndex(labels);
+
+	}
+
+	/**
+	 * Number the nodes in pre-order, without recursing so deep trees are safe
+	 */
+	private static void flatten(TreeNode root, List<TreeNode> order, List<Integer> parentOrder) {
+		List<TreeNode> stack = new ArrayList<TreeNode>();
+		List<Integer> stackParents = new ArrayList<Integer>();
+
+		stack.add(root);
+		stackParents.add(-1);
+
+		while (!stack.isEmpty()) {
+			TreeNode node = stack.remove(stack.size() - 1);
+			int parent = stackParents.remove(stackParents.size() - 1);
+			int id = order.size();
+
+			order.add(node);
+			parentOrder.add(parent);
+
+			for (int iChild = node.getChildCount() - 1; iChild >= 0; iChild--) {
+
+				stack.add(node.getChildAt(iChild));
+				stackParents.add(id);
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Get the number of nodes, including the root
+	 */
+	public int size() {
+
+		return nodes.length;
+
+	}
+
+	/**
+	 * Filter the tree - keep the nodes whose label contains the text, and
+	 * their ancestors
+	 *
+	 * @param text
+	 *            the text to match
+	 *
+	 * @return the filtered view of the tree
+	 *
+	 * @throws InterruptedException
+	 *             the thread was interrupted - a newer filter has replaced
+	 *             this one
+	 *
+	 */
+	@Override
+	public TreeModel filter(String text) throws InterruptedException {
+		boolean[] visible = new boolean[nodes.length];
+		int[] matches = index.find(text);
+
+		visible[0] = true;
+
+		for (int iMatch = 0; iMatch < matches.length; iMatch++) {
+
+			if (iMatch % CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+				throw new InterruptedException();
+			}
+
+			if (!kept[matches[iMatch]]) {
+				continue;
+			}
+
+			/*
+			 * Mark the node and its ancestors up to the first one already
+			 * marked (the root always is)
+			 */
+			for (int id = matches[iMatch]; !visible[id]; id = parents[id]) {
+				visible[id] = true;
+			}
+
+		}
+
+		return new Model(visible);
+
+	}
+
+	/**
+	 * A read only view of the visible nodes, with each visible node's visible
+	 * children held in one array
+	 */
+	private class Model implements TreeModel {
+		private final int[] offsets;
+		private final int[] children;
+
+		Model(boolean[] visible) {
+			int count = 0;
+
+			offsets = new int[nodes.length + 1];
+
+			for (int iNode = 1; iNode < nodes.length; iNode++) {
+
+				if (visible[iNode]) {
+					offsets[parents[iNode] + 1] += 1;
+					count += 1;
+				}
+
+			}
+
+			for (int iNode = 0; iNode < nodes.length; iNode++) {
+				offsets[iNode + 1] += offsets[iNode];
+			}
+
+			int[] next = Arrays.copyOf(offsets, nodes.length);
+
+			children = new int[count];
+
+			for (int iNode = 1; iNode < nodes.length; iNode++) {
+
+				if (visible[iNode]) {
+					children[next[parents[iNode]]++] = iNode;
+				}
+
+			}
+
+		}
+
+		private int idOf(Object node) {
+			Integer id = ids.get(node);
+
+			return (id == null) ? -1 : id;
+
+		}
+
+		@Override
+		public Object getRoot() {
+
+			return nodes[0];
+
+		}
+
+		@Override
+		public Object getChild(Object parent, int index) {
+			int id = idOf(parent);
+
+			return nodes[children[offsets[id] + index]];
+
+		}
+
+		@Override
+		public int getChildCount(Object parent) {
+			int id = idOf(parent);
+
+			return (id < 0) ? 0 : offsets[id + 1] - offsets[id];
+
+		}
+
+		@Override
+		public boolean isLeaf(Object node) {
+
+			return getChildCount(node) == 0;
+
+		}
+
+		@Override
+		public int getIndexOfChild(Object parent, Object child) {
+			int parentId = idOf(parent);
+			int childId = idOf(child);
+
+			if (parentId < 0 || childId < 0) {
+				return -1;
+			}
+
+			/*
+			 * Children are numbered in order, so their ids are sorted
+			 */
+			int index = Arrays.binarySearch(children, offsets[parentId], offsets[parentId + 1], childId);
+
+			return (index < 0) ? -1 : index - offsets[parentId];
+
+		}
+
+		@Override
+		public void valueForPathChanged(TreePath path, Object newValue) {
+		}
+
+		@Override
+		public void addTreeModelListener(TreeModelListener listener) {
+		}
+
+		@Override
+		public void removeTreeModelListener(TreeModelListener listener) {
+		}
+
+	}
+
+}
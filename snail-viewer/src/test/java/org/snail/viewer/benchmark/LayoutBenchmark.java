@@ -0,0 +1,102 @@
+package org.snail.viewer.benchmark;
+
+import java.awt.Dimension;
+import java.io.File;
+
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Statement;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+import org.snail.viewer.jung.layout.MultilevelLayout;
+import org.snail.viewer.jung.layout.ParallelForceLayout;
+import org.snail.viewer.model.ModelLoader;
+
+import edu.uci.ics.jung.algorithms.layout.AbstractLayout;
+import edu.uci.ics.jung.algorithms.layout.ISOMLayout;
+import edu.uci.ics.jung.algorithms.util.IterativeContext;
+
+/**
+ * Layout Benchmark - times the parallel force layout with 1, 2, 4 and 8
+ * threads, and the multilevel layout, against JUNG's ISOM layout, each run
+ * to completion.
+ *
+ * Usage: LayoutBenchmark [rdf directory] (defaults to the test fixtures)
+ *
+ */
+public class LayoutBenchmark {
+	private static final String[] FIXTURES = { "Talks.rdf", "agenda_62.rdf", "elvisimp.rdf" };
+	private static final int[] THREADS = { 1, 2, 4, 8 };
+	private static final int REPEAT = 3;
+
+	private static final Dimension SIZE = new Dimension(960, 780);
+
+	public static void main(String[] args) throws Exception {
+		File directory = new File(args.length > 0 ? args[0] : "src/test/resources/rdf");
+
+		System.out.println(String.format("%-16s %-20s %10s %10s %12s", "Fixture", "Layout", "Iterations", "Time (ms)",
+				"ms/Iteration"));
+
+		for (String fixture : FIXTURES) {
+			ModelLoader loader = new ModelLoader(new File(directory, fixture).getPath());
+
+			loader.execute();
+			loader.get();
+
+			ModelGraphSnapshot graph = loader.getGraph();
+
+			run(fixture, "ISOM", new ISOMLayout<RDFNode, Statement>(graph));
+
+			for (int threads : THREADS) {
+				run(fixture, String.format("Force (%d threads)", threads),
+						new ParallelForceLayout<RDFNode, Statement>(graph, threads));
+			}
+
+			run(fixture, "Multilevel", new MultilevelLayout<RDFNode, Statement>(graph));
+
+		}
+
+		System.exit(0);
+
+	}
+
+	/**
+	 * Run a layout to completion, reporting the best of several runs
+	 *
+	 * @param fixture
+	 *            the fixture's name
+	 * @param name
+	 *            the layout's name
+	 * @param layout
+	 *            the layout (an iterative context)
+	 *
+	 */
+	private static void run(String fixture, String name, AbstractLayout<RDFNode, Statement> layout) {
+		IterativeContext context = (IterativeContext) layout;
+		long best = Long.MAX_VALUE;
+		int iterations = 0;
+
+		for (int iRepeat = 0; iRepeat < REPEAT; iRepeat++) {
+			long start = System.nanoTime();
+
+			layout.setSize(SIZE);
+			layout.reset();
+
+			iterations = 0;
+
+			while (!context.done()) {
+
+				context.step();
+
+				iterations += 1;
+
+			}
+
+			best = Math.min(best, System.nanoTime() - start);
+
+		}
+
+		System.out.println(String.format("%-16s %-20s %10d %10.1f %12.3f", fixture, name, iterations, best / 1e6,
+				best / 1e6 / Math.max(1, iterations)));
+
+	}
+
+}
@@ -0,0 +1,188 @@
+package org.snail.viewer.benchmark;
+
+import java.awt.Component;
+import java.awt.Font;
+import java.lang.management.ManagementFactory;
+
+import javax.swing.JTree;
+import javax.swing.SwingUtilities;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeCellRenderer;
+import javax.swing.tree.TreeCellRenderer;
+import javax.swing.tree.TreeNode;
+
+import org.snail.viewer.model.ResourceIndex;
+import org.snail.viewer.util.WidgetUtils;
+import org.snail.viewer.widget.FilteredTree;
+import org.snail.viewer.widget.ResourceTreeCellRenderer;
+import org.snail.viewer.widget.ResourceTreeModel;
+
+/**
+ * Renderer Benchmark - renders every row of a resource tree many times over
+ * and reports the time and the bytes allocated per cell, for the tree's
+ * renderers and for a renderer that loads its icons, fonts and tooltips on
+ * every call (as the tree's renderer used to).
+ *
+ * The tooltip is asked for with each cell, as it is when the mouse rests on
+ * the tree, so the cached renderers are measured at their worst.
+ *
+ * Usage: RendererBenchmark [resources] (defaults to 100,000)
+ *
+ */
+public class RendererBenchmark {
+	private static final int PASSES = 20;
+	private static final int ROWS = 1000;
+
+	/**
+	 * The tree's renderer as it was, for comparison
+	 */
+	@SuppressWarnings("serial")
+	private static class UncachedRenderer extends DefaultTreeCellRenderer {
+
+		@Override
+		public Component getTreeCellRendererComponent(JTree tree, Object value, boolean selected, boolean expanded,
+				boolean isLeaf, int row, boolean focused) {
+			Component component = super.getTreeCellRendererComponent(tree, value, selected, expanded, isLeaf, row,
+					focused);
+
+			boolean resource = value instanceof ResourceTreeModel.Node
+					&& ((ResourceTreeModel.Node) value).isResource();
+
+			if (!resource) {
+				setIcon(new javax.swing.ImageIcon(WidgetUtils.class.getResource("/images/predicate-icon-16.png")));
+			} else {
+				setIcon(new javax.swing.ImageIcon(WidgetUtils.class.getResource("/images/brkpd_obj.gif")));
+			}
+
+			setFont(new Font("Dialog", Font.PLAIN, component.getFont().getSize()));
+
+			setToolTipText(null);
+
+			if (resource) {
+				setToolTipText(String.format("%,d triples", ((ResourceTreeModel.Node) value).getCount()));
+			}
+
+			return component;
+
+		}
+
+	}
+
+	public static void main(String[] args) throws Exception {
+		final int resources = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+		SwingUtilities.invokeAndWait(new Runnable() {
+
+			@Override
+			public void run() {
+				ResourceIndex index = new ResourceIndex();
+
+				for (int iResource = 0; iResource < resources; iResource++) {
+					index.add(String.format("http://example.org/resource/%08x", iResource * 2654435761L));
+				}
+
+				ResourceTreeModel model = new ResourceTreeModel("Resources");
+
+				model.addFolder("Subjects", index.build());
+
+				JTree tree = new JTree(model);
+
+				tree.setRowHeight(22);
+				tree.setRootVisible(false);
+
+				/*
+				 * Open pages until there are enough rows
+				 */
+				for (int iRow = 0; iRow < tree.getRowCount() && tree.getRowCount() < ROWS; iRow++) {
+					tree.expandRow(iRow);
+				}
+
+				FilteredTree filteredTree = new FilteredTree(new DefaultMutableTreeNode(),
+						new FilteredTree.NodeListener() {
+
+							@Override
+							public boolean keepNode(TreeNode node) {
+
+								return true;
+
+							}
+
+						});
+
+				System.out.println(String.format("%,d resources, %,d rows, %d passes", resources, tree.getRowCount(),
+						PASSES));
+				System.out.println(String.format("%-20s %12s %14s", "Renderer", "ns/Cell", "Bytes/Cell"));
+
+				measure("Uncached", tree, new UncachedRenderer());
+				measure("Resource (cached)", tree, new ResourceTreeCellRenderer());
+				measure("Filtered (cached)", tree, filteredTree.new Renderer());
+
+			}
+
+		});
+
+		System.exit(0);
+
+	}
+
+	/**
+	 * Render every row of the tree, once to warm up and then timed
+	 *
+	 * @param name
+	 *            the renderer's name
+	 * @param tree
+	 *            the tree
+	 * @param renderer
+	 *            the renderer
+	 *
+	 */
+	private static void measure(String name, JTree tree, TreeCellRenderer renderer) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		Object[] values = new Object[tree.getRowCount()];
+		int cells = values.length * PASSES;
+
+		for (int iRow = 0; iRow < values.length; iRow++) {
+			values[iRow] = tree.getPathForRow(iRow).getLastPathComponent();
+		}
+
+		render(tree, renderer, values, PASSES);
+
+		long allocated = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+
+		render(tree, renderer, values, PASSES);
+
+		long time = System.nanoTime() - start;
+
+		allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+
+		System.out.println(String.format("%-20s %12.0f %14.1f", name, (double) time / cells,
+				(double) allocated / cells));
+
+	}
+
+	private static void render(JTree tree, TreeCellRenderer renderer, Object[] values, int passes) {
+		int length = 0;
+
+		for (int iPass = 0; iPass < passes; iPass++) {
+
+			for (int iRow = 0; iRow < values.length; iRow++) {
+				Component component = renderer.getTreeCellRendererComponent(tree, values[iRow], false, false,
+						tree.getModel().isLeaf(values[iRow]), iRow, false);
+				String toolTip = ((javax.swing.JComponent) component).getToolTipText();
+
+				length += (toolTip == null) ? 0 : toolTip.length();
+
+			}
+
+		}
+
+		if (length < 0) {
+			System.out.println(length);
+		}
+
+	}
+
+}
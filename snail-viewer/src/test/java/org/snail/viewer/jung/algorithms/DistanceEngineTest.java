@@ -0,0 +1,220 @@
+package org.snail.viewer.jung.algorithms;
+
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.collections15.Transformer;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+
+import edu.uci.ics.jung.algorithms.shortestpath.DistanceStatistics;
+import edu.uci.ics.jung.algorithms.shortestpath.UnweightedShortestPath;
+
+/**
+ * Checks the {@link DistanceEngine} measures against JUNG's
+ * {@link UnweightedShortestPath} and {@link DistanceStatistics}
+ */
+public class DistanceEngineTest extends TestCase {
+	private static final double EPSILON = 1e-9;
+
+	/*
+	 * Three components of different sizes, so the 64 source batches are full
+	 * and partial, plus literals that reach nothing
+	 */
+	private static final int[] COMPONENTS = { 0, 90, 170, 200 };
+
+	private ModelGraphSnapshot graph;
+	private UnweightedShortestPath<RDFNode, Statement> paths;
+
+	@Override
+	protected void setUp() {
+		Random random = new Random(5);
+		Model model = ModelFactory.createDefaultModel();
+		Property property = model.createProperty("http://ex.org/p");
+		Resource[] resources = new Resource[COMPONENTS[COMPONENTS.length - 1]];
+
+		for (int iResource = 0; iResource < resources.length; iResource++) {
+			resources[iResource] = model.createResource("http://ex.org/r" + iResource);
+		}
+
+		for (int iComponent = 0; iComponent + 1 < COMPONENTS.length; iComponent++) {
+			int from = COMPONENTS[iComponent];
+			int size = COMPONENTS[iComponent + 1] - from;
+
+			for (int iResource = from; iResource < from + size; iResource++) {
+
+				/*
+				 * A path through the component, and a few random edges
+				 */
+				if (iResource + 1 < from + size) {
+					model.add(resources[iResource], property, resources[iResource + 1]);
+				}
+
+				for (int iEdge = random.nextInt(3); iEdge > 0; iEdge--) {
+					model.add(resources[iResource], property, resources[from + random.nextInt(size)]);
+				}
+
+			}
+
+		}
+
+		for (int iLiteral = 0; iLiteral < 10; iLiteral++) {
+			model.add(resources[random.nextInt(resources.length)], property, "literal " + iLiteral);
+		}
+
+		graph = ModelGraphSnapshot.create(model);
+		paths = new UnweightedShortestPath<RDFNode, Statement>(graph);
+
+	}
+
+	/**
+	 * The exact eccentricity, average distance, closeness and reachable count
+	 * of every vertex, and the diameter, match the JUNG searches
+	 */
+	public void testExact() {
+		DistanceMeasures measures = new DistanceEngine(graph).compute();
+
+		/*
+		 * Despite its name, averageDistances() gives the closeness - the
+		 * reciprocal of the average distance
+		 */
+		Transformer<RDFNode, Double> closeness = DistanceStatistics.averageDistances(graph, paths);
+		int diameter = 0;
+
+		assertFalse(measures.isApproximate());
+
+		for (int iVertex = 0; iVertex < graph.getVertexCount(); iVertex++) {
+			RDFNode vertex = graph.getVertex(iVertex);
+			Map<RDFNode, Number> distances = paths.getDistanceMap(vertex);
+			int eccentricity = 0;
+			long sum = 0;
+
+			for (Number distance : distances.values()) {
+				eccentricity = Math.max(eccentricity, distance.intValue());
+				sum += distance.intValue();
+			}
+
+			int reachable = distances.size() - 1;
+
+			assertEquals(vertex.toString(), eccentricity, measures.getEccentricity(iVertex));
+			assertEquals(vertex.toString(), reachable, measures.getReachable(iVertex));
+
+			if (reachable == 0) {
+				assertTrue(Double.isNaN(measures.getAverageDistance(iVertex)));
+			} else {
+				assertEquals(vertex.toString(), (double) sum / reachable, measures.getAverageDistance(iVertex),
+						EPSILON);
+			}
+
+			if (reachable == 0) {
+				assertTrue(closeness.transform(vertex).isNaN());
+				assertTrue(Double.isNaN(measures.getCloseness(iVertex)));
+			} else {
+				assertEquals(vertex.toString(), closeness.transform(vertex), measures.getCloseness(iVertex),
+						EPSILON);
+			}
+
+			diameter = Math.max(diameter, measures.getEccentricity(iVertex));
+
+		}
+
+		assertEquals(DistanceStatistics.diameter(graph, paths, true), diameter, EPSILON);
+
+	}
+
+	/**
+	 * The results do not depend on how the batches are spread over threads,
+	 * and every vertex is reported to the listener once
+	 */
+	public void testParallelism() {
+		final int[] reported = new int[graph.getVertexCount()];
+		DistanceEngine single = new DistanceEngine(graph);
+		DistanceEngine parallel = new DistanceEngine(graph);
+
+		single.setParallelism(1);
+		parallel.setParallelism(4);
+		parallel.setListener(new DistanceEngine.Listener() {
+
+			@Override
+			public void measured(DistanceMeasures measures, int[] ids, int from, int count) {
+
+				synchronized (reported) {
+
+					for (int iId = from; iId < from + count; iId++) {
+						reported[ids[iId]] += 1;
+					}
+
+				}
+
+			}
+
+		});
+
+		DistanceMeasures expected = single.compute();
+		DistanceMeasures actual = parallel.compute();
+
+		for (int iVertex = 0; iVertex < graph.getVertexCount(); iVertex++) {
+			assertEquals(1, reported[iVertex]);
+			assertEquals(expected.getEccentricity(iVertex), actual.getEccentricity(iVertex));
+			assertEquals(expected.getReachable(iVertex), actual.getReachable(iVertex));
+			assertEquals(Double.valueOf(expected.getAverageDistance(iVertex)),
+					Double.valueOf(actual.getAverageDistance(iVertex)));
+		}
+
+	}
+
+	/**
+	 * For a fixed sample, every estimated average distance is within its
+	 * Hoeffding error bound of the exact one, and the estimated
+	 * eccentricities are lower bounds
+	 */
+	public void testEstimateWithinBound() {
+		DistanceMeasures exact = new DistanceEngine(graph).compute();
+		DistanceMeasures estimate = new DistanceEngine(graph).estimate(60, new Random(11));
+		int estimated = 0;
+
+		assertTrue(estimate.isApproximate());
+		assertEquals(60, estimate.getSamples());
+
+		for (int iVertex = 0; iVertex < graph.getVertexCount(); iVertex++) {
+			double average = estimate.getAverageDistance(iVertex);
+
+			assertTrue(estimate.getEccentricity(iVertex) <= exact.getEccentricity(iVertex));
+
+			if (Double.isNaN(average)) {
+				assertTrue(Double.isNaN(estimate.getErrorBound(iVertex)));
+				continue;
+			}
+
+			assertTrue(exact.getReachable(iVertex) > 0);
+			assertTrue(estimate.getErrorBound(iVertex) > 0);
+			assertTrue(graph.getVertex(iVertex).toString(), Math.abs(average - exact.getAverageDistance(iVertex))
+					<= estimate.getErrorBound(iVertex));
+
+			estimated += 1;
+
+		}
+
+		assertTrue(estimated > graph.getVertexCount() / 2);
+
+	}
+
+	/**
+	 * A sample that covers the graph gives the exact measures
+	 */
+	public void testFullSampleIsExact() {
+		DistanceMeasures estimate = new DistanceEngine(graph).estimate(graph.getVertexCount(), new Random(3));
+
+		assertFalse(estimate.isApproximate());
+		assertEquals(0, estimate.getErrorBound(0), 0);
+
+	}
+
+}
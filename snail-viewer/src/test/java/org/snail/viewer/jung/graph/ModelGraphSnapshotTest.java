@@ -0,0 +1,178 @@
+package org.snail.viewer.jung.graph;
+
+import java.io.StringReader;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+
+/**
+ * Checks the {@link ModelGraphSnapshot} graph queries against the Jena model
+ * it was taken of
+ */
+public class ModelGraphSnapshotTest extends TestCase {
+	private static final String TRIPLES = "<http://ex.org/a> <http://ex.org/p> <http://ex.org/b> .\n"
+			+ "<http://ex.org/a> <http://ex.org/q> <http://ex.org/b> .\n"
+			+ "<http://ex.org/a> <http://ex.org/p> <http://ex.org/b> .\n"
+			+ "<http://ex.org/b> <http://ex.org/p> <http://ex.org/c> .\n"
+			+ "<http://ex.org/c> <http://ex.org/q> <http://ex.org/a> .\n"
+			+ "<http://ex.org/a> <http://ex.org/p> <http://ex.org/a> .\n"
+			+ "<http://ex.org/a> <http://ex.org/p> <http://ex.org/a> .\n"
+			+ "<http://ex.org/c> <http://ex.org/label> \"c\" .\n"
+			+ "_:x <http://ex.org/p> <http://ex.org/c> .\n";
+
+	private Model model;
+	private ModelGraphSnapshot graph;
+
+	@Override
+	protected void setUp() {
+
+		model = ModelFactory.createDefaultModel();
+		model.read(new StringReader(TRIPLES), null, "N-TRIPLES");
+
+		graph = ModelGraphSnapshot.create(model);
+
+	}
+
+	/**
+	 * Duplicate triples are one edge, and every node is one vertex
+	 */
+	public void testVerticesAndEdges() {
+		Set<RDFNode> vertices = new HashSet<RDFNode>();
+
+		for (Statement statement : statements(model.listStatements())) {
+			vertices.add(statement.getSubject());
+			vertices.add(statement.getObject());
+		}
+
+		assertEquals(7, model.size());
+		assertEquals(model.size(), graph.getEdgeCount());
+		assertEquals(statements(model.listStatements()), new HashSet<Statement>(graph.getEdges()));
+		assertEquals(vertices, new HashSet<RDFNode>(graph.getVertices()));
+		assertEquals(vertices.size(), graph.getVertexCount());
+
+		for (int iVertex = 0; iVertex < graph.getVertexCount(); iVertex++) {
+			assertEquals(iVertex, graph.getId(graph.getVertex(iVertex)));
+		}
+
+		for (Statement statement : statements(model.listStatements())) {
+			assertTrue(graph.containsEdge(statement));
+			assertEquals(statement.getSubject(), graph.getSource(statement));
+			assertEquals(statement.getObject(), graph.getDest(statement));
+		}
+
+		assertEquals(statements(model.listStatements(null, model.createProperty("http://ex.org/p"), (RDFNode) null)),
+				new HashSet<Statement>(graph.getEdges("http://ex.org/p")));
+		assertTrue(graph.getEdges("http://ex.org/none").isEmpty());
+
+	}
+
+	/**
+	 * The edges, successors, predecessors, neighbours and degrees of each
+	 * vertex - a loop is one incident edge and makes the vertex its own
+	 * neighbour
+	 */
+	public void testAdjacency() {
+
+		for (RDFNode vertex : graph.getVertices()) {
+			Set<Statement> out = vertex.isResource()
+					? statements(model.listStatements((Resource) vertex, null, (RDFNode) null))
+					: new HashSet<Statement>();
+			Set<Statement> in = statements(model.listStatements(null, null, vertex));
+			Set<RDFNode> successors = new HashSet<RDFNode>();
+			Set<RDFNode> predecessors = new HashSet<RDFNode>();
+			Set<Statement> incident = new HashSet<Statement>(out);
+
+			for (Statement statement : out) {
+				successors.add(statement.getObject());
+			}
+
+			for (Statement statement : in) {
+				predecessors.add(statement.getSubject());
+			}
+
+			incident.addAll(in);
+
+			Set<RDFNode> neighbors = new HashSet<RDFNode>(successors);
+
+			neighbors.addAll(predecessors);
+
+			assertEquals(out, new HashSet<Statement>(graph.getOutEdges(vertex)));
+			assertEquals(in, new HashSet<Statement>(graph.getInEdges(vertex)));
+			assertEquals(out.size(), graph.outDegree(vertex));
+			assertEquals(in.size(), graph.inDegree(vertex));
+
+			assertSameElements(successors, graph.getSuccessors(vertex));
+			assertSameElements(predecessors, graph.getPredecessors(vertex));
+			assertSameElements(neighbors, graph.getNeighbors(vertex));
+			assertSameElements(incident, graph.getIncidentEdges(vertex));
+
+			assertEquals(successors.size(), graph.getSuccessorCount(vertex));
+			assertEquals(predecessors.size(), graph.getPredecessorCount(vertex));
+			assertEquals(neighbors.size(), graph.getNeighborCount(vertex));
+			assertEquals(incident.size(), graph.degree(vertex));
+
+			for (RDFNode successor : successors) {
+				assertTrue(graph.isPredecessor(vertex, successor));
+				assertTrue(graph.isSuccessor(successor, vertex));
+				assertTrue(graph.isNeighbor(vertex, successor));
+			}
+
+		}
+
+	}
+
+	/**
+	 * The loop on a is one of its four incident edges, however often the
+	 * triple is repeated
+	 */
+	public void testLoop() {
+		Resource a = model.createResource("http://ex.org/a");
+
+		assertTrue(graph.isNeighbor(a, a));
+		assertTrue(graph.getSuccessors(a).contains(a));
+		assertEquals(4, graph.degree(a));
+		assertEquals(graph.getIncidentEdges(a).size(), graph.degree(a));
+		assertEquals(1, graph.findEdgeSet(a, a).size());
+		assertEquals(2, graph.findEdgeSet(a, model.createResource("http://ex.org/b")).size());
+
+	}
+
+	private static Set<Statement> statements(StmtIterator iterator) {
+		Set<Statement> statements = new HashSet<Statement>();
+
+		try {
+
+			while (iterator.hasNext()) {
+				statements.add(iterator.nextStatement());
+			}
+
+		} finally {
+
+			iterator.close();
+
+		}
+
+		return statements;
+
+	}
+
+	/**
+	 * The collection holds each of the expected elements once
+	 */
+	private static <T> void assertSameElements(Set<T> expected, Collection<T> actual) {
+
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected, new HashSet<T>(actual));
+
+	}
+
+}
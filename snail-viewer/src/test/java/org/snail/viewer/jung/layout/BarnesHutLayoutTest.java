@@ -0,0 +1,259 @@
+package org.snail.viewer.jung.layout;
+
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+
+/**
+ * Checks the {@link QuadTree} repulsion against a sum over every pair of
+ * points, and the vertex numbering and neighbour rows of
+ * {@link BarnesHutLayout}
+ */
+public class BarnesHutLayoutTest extends TestCase {
+	private static final int POINTS = 500;
+	private static final double STRENGTH = 400;
+
+	private final Random random = new Random(23);
+
+	private ModelGraphSnapshot graph;
+
+	@Override
+	protected void setUp() {
+		Model model = ModelFactory.createDefaultModel();
+		Property property = model.createProperty("http://ex.org/p");
+		Resource[] resources = new Resource[120];
+
+		for (int iResource = 0; iResource < resources.length; iResource++) {
+			resources[iResource] = model.createResource("http://ex.org/r" + iResource);
+		}
+
+		for (int iEdge = 0; iEdge < 300; iEdge++) {
+			model.add(resources[random.nextInt(resources.length)], property,
+					resources[random.nextInt(resources.length)]);
+		}
+
+		model.add(resources[0], property, resources[0]);
+		model.add(resources[1], property, "literal");
+
+		graph = ModelGraphSnapshot.create(model);
+
+	}
+
+	/**
+	 * The repulsive force on a point summed over every other point
+	 */
+	private static void bruteForce(double[] x, double[] y, int point, double[] forceX, double[] forceY) {
+
+		for (int iOther = 0; iOther < x.length; iOther++) {
+
+			if (iOther == point) {
+				continue;
+			}
+
+			double deltaX = x[point] - x[iOther];
+			double deltaY = y[point] - y[iOther];
+			double distance2 = deltaX * deltaX + deltaY * deltaY;
+
+			if (distance2 < 0.01) {
+				deltaX = 0.1 * Math.cos(point);
+				deltaY = 0.1 * Math.sin(point);
+				distance2 = 0.01;
+			}
+
+			forceX[point] += deltaX * STRENGTH / distance2;
+			forceY[point] += deltaY * STRENGTH / distance2;
+
+		}
+
+	}
+
+	private double[][] points() {
+		double[] x = new double[POINTS];
+		double[] y = new double[POINTS];
+
+		for (int iPoint = 0; iPoint < POINTS; iPoint++) {
+
+			/*
+			 * Clusters and coincident points as well as scattered ones
+			 */
+			if (iPoint % 50 == 49) {
+				x[iPoint] = x[iPoint - 1];
+				y[iPoint] = y[iPoint - 1];
+			} else if (iPoint % 5 == 0) {
+				x[iPoint] = 300 + random.nextDouble();
+				y[iPoint] = 300 + random.nextDouble();
+			} else {
+				x[iPoint] = random.nextDouble() * 1000;
+				y[iPoint] = random.nextDouble() * 1000;
+			}
+
+		}
+
+		return new double[][] { x, y };
+
+	}
+
+	/**
+	 * With an opening angle of 0 no cell stands in for its points, so the
+	 * force is the exact O(n&sup2;) sum
+	 */
+	public void testExactRepulsion() {
+		double[][] points = points();
+		double[] x = points[0];
+		double[] y = points[1];
+		QuadTree tree = new QuadTree();
+
+		tree.build(x, y, POINTS);
+
+		for (int iPoint = 0; iPoint < POINTS; iPoint++) {
+			double[] treeX = new double[POINTS];
+			double[] treeY = new double[POINTS];
+			double[] exactX = new double[POINTS];
+			double[] exactY = new double[POINTS];
+
+			tree.repulse(iPoint, 0, STRENGTH, treeX, treeY);
+			bruteForce(x, y, iPoint, exactX, exactY);
+
+			double tolerance = 1e-9 * Math.max(1, Math.abs(exactX[iPoint]) + Math.abs(exactY[iPoint]));
+
+			assertEquals(exactX[iPoint], treeX[iPoint], tolerance);
+			assertEquals(exactY[iPoint], treeY[iPoint], tolerance);
+
+		}
+
+	}
+
+	/**
+	 * The approximated force stays close to the exact one
+	 */
+	public void testApproximateRepulsion() {
+		double[][] points = points();
+		double[] x = points[0];
+		double[] y = points[1];
+		QuadTree tree = new QuadTree();
+		double error = 0;
+		double total = 0;
+
+		tree.build(x, y, POINTS);
+
+		for (int iPoint = 0; iPoint < POINTS; iPoint++) {
+			double[] treeX = new double[POINTS];
+			double[] treeY = new double[POINTS];
+			double[] exactX = new double[POINTS];
+			double[] exactY = new double[POINTS];
+
+			tree.repulse(iPoint, 0.5, STRENGTH, treeX, treeY);
+			bruteForce(x, y, iPoint, exactX, exactY);
+
+			error += Math.hypot(treeX[iPoint] - exactX[iPoint], treeY[iPoint] - exactY[iPoint]);
+			total += Math.hypot(exactX[iPoint], exactY[iPoint]);
+
+		}
+
+		assertTrue(error < 0.05 * total);
+
+	}
+
+	/**
+	 * A graph snapshot's own ids are used, and the neighbour rows hold each
+	 * undirected neighbour once, without self loops - the same rows a graph
+	 * numbered by the layout gets
+	 */
+	public void testIndexedGraph() {
+		BarnesHutLayout<RDFNode, Statement> layout = new BarnesHutLayout<RDFNode, Statement>(graph);
+		DirectedSparseGraph<RDFNode, Statement> copy = new DirectedSparseGraph<RDFNode, Statement>();
+
+		for (RDFNode vertex : graph.getVertices()) {
+			copy.addVertex(vertex);
+		}
+
+		for (Statement edge : graph.getEdges()) {
+			copy.addEdge(edge, graph.getSource(edge), graph.getDest(edge));
+		}
+
+		BarnesHutLayout<RDFNode, Statement> numbered = new BarnesHutLayout<RDFNode, Statement>(copy);
+		RDFNode[] copyVertices = copy.getVertices().toArray(new RDFNode[0]);
+
+		for (RDFNode vertex : graph.getVertices()) {
+			int id = layout.getId(vertex);
+			Set<Integer> expected = new HashSet<Integer>();
+			Set<Integer> actual = new HashSet<Integer>();
+			Set<Integer> other = new HashSet<Integer>();
+
+			assertEquals(graph.getId(vertex), id);
+
+			for (RDFNode neighbour : graph.getNeighbors(vertex)) {
+
+				if (!neighbour.equals(vertex)) {
+					expected.add(graph.getId(neighbour));
+				}
+
+			}
+
+			for (int iRow = layout.offsets[id]; iRow < layout.offsets[id + 1]; iRow++) {
+				actual.add(layout.neighbours[iRow]);
+			}
+
+			int otherId = numbered.getId(vertex);
+
+			for (int iRow = numbered.offsets[otherId]; iRow < numbered.offsets[otherId + 1]; iRow++) {
+				other.add(graph.getId(copyVertices[numbered.neighbours[iRow]]));
+			}
+
+			assertEquals(expected, actual);
+			assertEquals(layout.offsets[id + 1] - layout.offsets[id], actual.size());
+			assertEquals(expected, other);
+
+		}
+
+		assertEquals(-1, layout.getId(ModelFactory.createDefaultModel().createResource("http://ex.org/none")));
+
+	}
+
+	/**
+	 * Vertices are placed within the layout area, and a moved or locked
+	 * vertex keeps its position
+	 */
+	public void testLayout() {
+		BarnesHutLayout<RDFNode, Statement> layout = new BarnesHutLayout<RDFNode, Statement>(graph);
+		RDFNode moved = graph.getVertex(3);
+
+		layout.setSeed(1);
+		layout.setSize(new Dimension(800, 600));
+
+		layout.setLocation(moved, 10, 20);
+		layout.lock(moved, true);
+
+		for (int iStep = 0; iStep < 50 && !layout.done(); iStep++) {
+			layout.step();
+		}
+
+		layout.publish();
+
+		for (RDFNode vertex : graph.getVertices()) {
+			Point2D location = layout.transform(vertex);
+
+			assertTrue(location.getX() >= 0 && location.getX() <= 800);
+			assertTrue(location.getY() >= 0 && location.getY() <= 600);
+
+		}
+
+		assertEquals(new Point2D.Double(10, 20), layout.transform(moved));
+
+	}
+
+}
@@ -0,0 +1,251 @@
+package org.snail.viewer.jung.layout;
+
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.snail.viewer.jung.layout.MultilevelLayout.Level;
+
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Checks the coarsening of {@link MultilevelLayout} and the positions it
+ * projects onto the finer levels
+ */
+public class MultilevelLayoutTest extends TestCase {
+
+	/**
+	 * Build a level from undirected edges
+	 */
+	private static Level level(int vertexCount, int[][] edges) {
+		Set<Long> pairs = new HashSet<Long>();
+		int[] offsets = new int[vertexCount + 1];
+
+		for (int[] edge : edges) {
+
+			if (edge[0] != edge[1] && pairs.add((long) edge[0] << 32 | edge[1])
+					&& pairs.add((long) edge[1] << 32 | edge[0])) {
+				offsets[edge[0] + 1] += 1;
+				offsets[edge[1] + 1] += 1;
+			}
+
+		}
+
+		for (int iVertex = 0; iVertex < vertexCount; iVertex++) {
+			offsets[iVertex + 1] += offsets[iVertex];
+		}
+
+		int[] neighbours = new int[offsets[vertexCount]];
+		int[] fill = offsets.clone();
+
+		for (long pair : pairs) {
+			neighbours[fill[(int) (pair >>> 32)]++] = (int) pair;
+		}
+
+		return new Level(vertexCount, offsets, neighbours);
+
+	}
+
+	/**
+	 * A star of 20 leaves (0 - 20), a path (21 - 30), a triangle (31 - 33) and
+	 * two isolated vertices (34, 35)
+	 */
+	private static Level known() {
+		int[][] edges = new int[20 + 9 + 3][];
+		int size = 0;
+
+		for (int iLeaf = 1; iLeaf <= 20; iLeaf++) {
+			edges[size++] = new int[] { 0, iLeaf };
+		}
+
+		for (int iVertex = 21; iVertex < 30; iVertex++) {
+			edges[size++] = new int[] { iVertex, iVertex + 1 };
+		}
+
+		edges[size++] = new int[] { 31, 32 };
+		edges[size++] = new int[] { 32, 33 };
+		edges[size++] = new int[] { 33, 31 };
+
+		return level(36, edges);
+
+	}
+
+	/**
+	 * Every fine vertex maps onto exactly one coarse vertex, every coarse
+	 * vertex has a fine vertex, and the coarse rows hold exactly the edges
+	 * between different groups
+	 */
+	private static void assertCoarsening(Level fine, Level coarse) {
+		int[] members = new int[coarse.vertexCount];
+
+		assertNotNull(fine.coarse);
+		assertEquals(fine.vertexCount, fine.coarse.length);
+
+		for (int vertex = 0; vertex < fine.vertexCount; vertex++) {
+			assertTrue(fine.coarse[vertex] >= 0 && fine.coarse[vertex] < coarse.vertexCount);
+
+			members[fine.coarse[vertex]] += 1;
+
+		}
+
+		for (int iGroup = 0; iGroup < coarse.vertexCount; iGroup++) {
+			assertTrue(members[iGroup] > 0);
+		}
+
+		Set<Long> expected = new HashSet<Long>();
+		Set<Long> actual = new HashSet<Long>();
+
+		for (int vertex = 0; vertex < fine.vertexCount; vertex++) {
+
+			for (int iRow = fine.offsets[vertex]; iRow < fine.offsets[vertex + 1]; iRow++) {
+				int group = fine.coarse[vertex];
+				int neighbour = fine.coarse[fine.neighbours[iRow]];
+
+				if (group != neighbour) {
+					expected.add((long) group << 32 | neighbour);
+				}
+
+			}
+
+		}
+
+		for (int group = 0; group < coarse.vertexCount; group++) {
+
+			for (int iRow = coarse.offsets[group]; iRow < coarse.offsets[group + 1]; iRow++) {
+				assertTrue(actual.add((long) group << 32 | coarse.neighbours[iRow]));
+			}
+
+		}
+
+		assertEquals(expected, actual);
+
+	}
+
+	/**
+	 * The known graph's star folds onto its hub, paths pair up and isolated
+	 * vertices stay on their own
+	 */
+	public void testCoarsenKnownGraph() {
+
+		for (int seed = 0; seed < 20; seed++) {
+			Level fine = known();
+			Level coarse = MultilevelLayout.coarsen(fine, new Random(seed));
+
+			assertCoarsening(fine, coarse);
+
+			/*
+			 * Each leaf is either matched with the hub or folded into the
+			 * hub's group
+			 */
+			for (int iLeaf = 1; iLeaf <= 20; iLeaf++) {
+				assertEquals(fine.coarse[0], fine.coarse[iLeaf]);
+			}
+
+			assertTrue(fine.coarse[34] != fine.coarse[35]);
+			assertEquals(0, coarse.degree(fine.coarse[34]));
+			assertTrue(coarse.vertexCount < fine.vertexCount / 2);
+
+		}
+
+	}
+
+	/**
+	 * Coarsening a random graph repeatedly keeps a valid mapping at every
+	 * level, until it stops shrinking (isolated vertices never merge)
+	 */
+	public void testCoarsenRandomGraph() {
+		Random random = new Random(9);
+		int[][] edges = new int[3000][];
+
+		for (int iEdge = 0; iEdge < edges.length; iEdge++) {
+			edges[iEdge] = new int[] { random.nextInt(2000), random.nextInt(2000) };
+		}
+
+		Level fine = level(2000, edges);
+		int levels = 0;
+
+		while (fine.vertexCount > 64) {
+			Level coarse = MultilevelLayout.coarsen(fine, random);
+
+			assertCoarsening(fine, coarse);
+			assertTrue(coarse.vertexCount <= fine.vertexCount);
+
+			if (coarse.vertexCount > fine.vertexCount * 0.9) {
+				break;
+			}
+
+			fine = coarse;
+			levels += 1;
+
+		}
+
+		assertTrue(levels > 2);
+
+	}
+
+	/**
+	 * The positions projected from the coarse levels, and refined from them,
+	 * are finite and inside the layout area - and projection places the
+	 * vertices of a group together
+	 */
+	public void testProjectedPositions() {
+		Random random = new Random(4);
+		Graph<Integer, Integer> graph = new DirectedSparseGraph<Integer, Integer>();
+
+		for (int iVertex = 0; iVertex < 1500; iVertex++) {
+			graph.addVertex(iVertex);
+		}
+
+		for (int iEdge = 0; iEdge < 2000; iEdge++) {
+			graph.addEdge(iEdge, random.nextInt(1500), random.nextInt(1500));
+		}
+
+		MultilevelLayout<Integer, Integer> layout = new MultilevelLayout<Integer, Integer>(graph, 1);
+
+		layout.setSize(new Dimension(900, 700));
+
+		assertTrue(layout.getLevelCount() > 1);
+		assertEquals(layout.getLevelCount() - 1, layout.getLevel());
+
+		Set<Point2D> distinct = new HashSet<Point2D>();
+
+		for (Integer vertex : graph.getVertices()) {
+			distinct.add(layout.transform(vertex));
+		}
+
+		assertTrue(distinct.size() < graph.getVertexCount() / 4);
+
+		int level = layout.getLevel();
+
+		for (int iStep = 0; iStep < 5000 && !layout.done(); iStep++) {
+			layout.step();
+
+			if (layout.getLevel() != level || layout.done()) {
+				level = layout.getLevel();
+
+				for (Integer vertex : graph.getVertices()) {
+					Point2D location = layout.transform(vertex);
+
+					assertFalse(Double.isNaN(location.getX()) || Double.isInfinite(location.getX()));
+					assertFalse(Double.isNaN(location.getY()) || Double.isInfinite(location.getY()));
+					assertTrue(location.getX() >= 0 && location.getX() <= 900);
+					assertTrue(location.getY() >= 0 && location.getY() <= 700);
+
+				}
+
+			}
+
+		}
+
+		assertEquals(0, layout.getLevel());
+
+		layout.release();
+
+	}
+
+}
@@ -0,0 +1,148 @@
+package org.snail.viewer.jung.layout;
+
+import java.awt.Dimension;
+import java.util.Random;
+
+import javax.swing.JPanel;
+
+import junit.framework.TestCase;
+
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Checks that the parallel layouts stop their worker threads when they are
+ * re-initialized and when their scheduler stops
+ */
+public class ParallelForceLayoutTest extends TestCase {
+	private static final int VERTICES = 2000;
+
+	private Graph<Integer, Integer> graph;
+	private int baseline;
+
+	@Override
+	protected void setUp() throws InterruptedException {
+		Random random = new Random(3);
+
+		graph = new DirectedSparseGraph<Integer, Integer>();
+
+		for (int iVertex = 0; iVertex < VERTICES; iVertex++) {
+			graph.addVertex(iVertex);
+		}
+
+		for (int iEdge = 0; iEdge < VERTICES * 2; iEdge++) {
+			graph.addEdge(iEdge, random.nextInt(VERTICES), random.nextInt(VERTICES));
+		}
+
+		baseline = awaitWorkers(Integer.MAX_VALUE);
+
+	}
+
+	/**
+	 * Count the fork-join worker threads (outside the common pool)
+	 */
+	private static int countWorkers() {
+		int count = 0;
+
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+
+			if (thread.isAlive() && thread.getName().startsWith("ForkJoinPool-")) {
+				count += 1;
+			}
+
+		}
+
+		return count;
+
+	}
+
+	/**
+	 * Wait (a few seconds at most) for the worker threads to drop to a count
+	 *
+	 * @return the number of workers left
+	 */
+	private static int awaitWorkers(int count) throws InterruptedException {
+		int workers = countWorkers();
+
+		for (int iWait = 0; iWait < 100 && workers > count; iWait++) {
+			Thread.sleep(50);
+
+			workers = countWorkers();
+
+		}
+
+		return workers;
+
+	}
+
+	private static void run(ScheduledContext layout, int steps) {
+
+		for (int iStep = 0; iStep < steps && !layout.done(); iStep++) {
+			layout.step();
+		}
+
+	}
+
+	/**
+	 * Initializing again stops the previous simulation's threads, and
+	 * releasing the layout stops the current one's
+	 */
+	public void testReinitialize() throws InterruptedException {
+		ParallelForceLayout<Integer, Integer> layout = new ParallelForceLayout<Integer, Integer>(graph, 2);
+
+		layout.setSize(new Dimension(1000, 1000));
+
+		run(layout, 3);
+
+		assertTrue(countWorkers() > baseline);
+
+		layout.reset();
+		run(layout, 3);
+		layout.initialize();
+		run(layout, 3);
+
+		layout.release();
+
+		assertEquals(baseline, awaitWorkers(baseline));
+
+		/*
+		 * A released layout can still be stepped
+		 */
+		run(layout, 3);
+
+		assertTrue(countWorkers() > baseline);
+
+		layout.release();
+
+		assertEquals(baseline, awaitWorkers(baseline));
+
+	}
+
+	/**
+	 * A scheduler stopped part way through a multilevel layout releases the
+	 * threads of every level
+	 */
+	public void testSchedulerStopReleases() throws InterruptedException {
+		MultilevelLayout<Integer, Integer> layout = new MultilevelLayout<Integer, Integer>(graph, 2);
+
+		layout.setSize(new Dimension(1000, 1000));
+
+		assertTrue(layout.getLevelCount() > 2);
+
+		while (layout.getLevel() > 0 && countWorkers() == baseline) {
+			layout.step();
+		}
+
+		assertTrue(countWorkers() > baseline);
+
+		LayoutScheduler scheduler = new LayoutScheduler(layout, new JPanel());
+
+		scheduler.stop();
+		scheduler.run();
+
+		assertEquals(LayoutScheduler.STATE.STOPPED, scheduler.getState());
+		assertEquals(baseline, awaitWorkers(baseline));
+
+	}
+
+}
@@ -0,0 +1,157 @@
+package org.snail.viewer.jung.picking;
+
+import java.awt.event.ItemEvent;
+import java.awt.event.ItemListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the state and the events of {@link BatchPickedState} batches
+ */
+public class BatchPickedStateTest extends TestCase {
+	private static final int LARGE = 500000;
+
+	private final BatchPickedState<Integer> state = new BatchPickedState<Integer>();
+	private final List<ItemEvent> events = new ArrayList<ItemEvent>();
+
+	@Override
+	protected void setUp() {
+
+		state.addItemListener(new ItemListener() {
+
+			@Override
+			public void itemStateChanged(ItemEvent event) {
+				events.add(event);
+			}
+
+		});
+
+	}
+
+	private static List<Integer> range(int from, int to) {
+		List<Integer> items = new ArrayList<Integer>(to - from);
+
+		for (int item = from; item < to; item++) {
+			items.add(item);
+		}
+
+		return items;
+
+	}
+
+	/**
+	 * Clearing a large pick set is one linear pass and one event - done with
+	 * removeAll() on a list it does not finish in this time
+	 */
+	public void testClearLarge() {
+
+		state.pick(range(0, LARGE), true);
+		events.clear();
+
+		long start = System.nanoTime();
+
+		state.clear();
+
+		assertTrue(System.nanoTime() - start < 10000000000L);
+		assertTrue(state.getPicked().isEmpty());
+		assertEquals(1, events.size());
+		assertEquals(ItemEvent.DESELECTED, events.get(0).getStateChange());
+		assertEquals(LARGE, BatchPickedState.getItems(events.get(0)).size());
+
+	}
+
+	/**
+	 * Replacing a large pick set with a small one
+	 */
+	public void testReplaceLarge() {
+
+		state.pick(range(0, LARGE), true);
+		events.clear();
+
+		state.setPicked(range(LARGE - 10, LARGE + 10));
+
+		assertEquals(new HashSet<Integer>(range(LARGE - 10, LARGE + 10)), state.getPicked());
+		assertEquals(2, events.size());
+		assertEquals(ItemEvent.DESELECTED, events.get(0).getStateChange());
+		assertEquals(LARGE - 10, BatchPickedState.getItems(events.get(0)).size());
+		assertEquals(ItemEvent.SELECTED, events.get(1).getStateChange());
+		assertEquals(range(LARGE, LARGE + 10), BatchPickedState.getItems(events.get(1)));
+
+	}
+
+	/**
+	 * Only the elements whose state changes are reported, and nothing is
+	 * reported when nothing changes
+	 */
+	public void testOnlyChangesReported() {
+
+		state.pick(Arrays.asList(1, 2, 3), true);
+		events.clear();
+
+		assertFalse(state.pick(Arrays.asList(2, 3), true));
+		assertTrue(events.isEmpty());
+
+		state.setPicked(Arrays.asList(3, 4));
+
+		assertEquals(Arrays.asList(1, 2), BatchPickedState.getItems(events.get(0)));
+		assertEquals(Arrays.asList(4), BatchPickedState.getItems(events.get(1)));
+		assertTrue(state.isPicked(3));
+		assertFalse(state.isPicked(1));
+
+		events.clear();
+		state.pick(Integer.valueOf(5), true);
+
+		assertEquals(Arrays.asList(5), BatchPickedState.getItems(events.get(0)));
+
+	}
+
+	/**
+	 * Batches made in one pass of the Event Dispatch Thread are one change
+	 * event
+	 */
+	public void testChangesCoalesced() throws Exception {
+		final int[] changes = new int[1];
+
+		state.addChangeListener(new ChangeListener() {
+
+			@Override
+			public void stateChanged(ChangeEvent event) {
+				changes[0] += 1;
+			}
+
+		});
+
+		SwingUtilities.invokeAndWait(new Runnable() {
+
+			@Override
+			public void run() {
+
+				state.pick(range(0, 100), true);
+				state.setPicked(range(50, 150));
+				state.clear();
+
+			}
+
+		});
+
+		SwingUtilities.invokeAndWait(new Runnable() {
+
+			@Override
+			public void run() {
+			}
+
+		});
+
+		assertEquals(1, changes[0]);
+
+	}
+
+}
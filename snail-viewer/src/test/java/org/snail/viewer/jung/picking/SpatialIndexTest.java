@@ -0,0 +1,160 @@
+package org.snail.viewer.jung.picking;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the {@link SpatialIndex} queries against a scan of every item
+ */
+public class SpatialIndexTest extends TestCase {
+	private static final int POINTS = 2000;
+	private static final double SIZE = 1000;
+	private static final double CELL = 25;
+
+	private final Random random = new Random(17);
+
+	private double[] x;
+	private double[] y;
+	private SpatialIndex index;
+
+	@Override
+	protected void setUp() {
+
+		x = new double[POINTS];
+		y = new double[POINTS];
+		index = new SpatialIndex(0, 0, SIZE, SIZE, CELL, POINTS);
+
+		for (int iPoint = 0; iPoint < POINTS; iPoint++) {
+			x[iPoint] = random.nextDouble() * SIZE;
+			y[iPoint] = random.nextDouble() * SIZE;
+
+			index.insert(iPoint, x[iPoint], y[iPoint], x[iPoint], y[iPoint]);
+
+		}
+
+	}
+
+	/**
+	 * Every point inside a rectangle is a candidate, each candidate is
+	 * returned once and lies in a cell the rectangle overlaps
+	 */
+	public void testQueryFindsEveryPoint() {
+
+		for (int iQuery = 0; iQuery < 200; iQuery++) {
+			double minimumX = random.nextDouble() * SIZE;
+			double minimumY = random.nextDouble() * SIZE;
+			double maximumX = minimumX + random.nextDouble() * 200;
+			double maximumY = minimumY + random.nextDouble() * 200;
+
+			int[] candidates = index.query(minimumX, minimumY, maximumX, maximumY);
+			boolean[] found = new boolean[POINTS];
+
+			for (int id : candidates) {
+				assertFalse("Returned twice: " + id, found[id]);
+
+				found[id] = true;
+
+				assertTrue(x[id] >= minimumX - CELL && x[id] <= maximumX + CELL);
+				assertTrue(y[id] >= minimumY - CELL && y[id] <= maximumY + CELL);
+
+			}
+
+			for (int iPoint = 0; iPoint < POINTS; iPoint++) {
+
+				if (x[iPoint] >= minimumX && x[iPoint] <= maximumX && y[iPoint] >= minimumY
+						&& y[iPoint] <= maximumY) {
+					assertTrue("Missed: " + iPoint, found[iPoint]);
+				}
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * A moved point is found at its new location and no longer at its old one
+	 */
+	public void testMove() {
+
+		for (int iPoint = 0; iPoint < POINTS; iPoint += 7) {
+			index.remove(iPoint, x[iPoint], y[iPoint], x[iPoint], y[iPoint]);
+
+			x[iPoint] = random.nextDouble() * SIZE;
+			y[iPoint] = random.nextDouble() * SIZE;
+
+			index.insert(iPoint, x[iPoint], y[iPoint], x[iPoint], y[iPoint]);
+
+		}
+
+		for (int iPoint = 0; iPoint < POINTS; iPoint++) {
+			int[] candidates = index.query(x[iPoint], y[iPoint], x[iPoint], y[iPoint]);
+
+			assertTrue(contains(candidates, iPoint));
+
+		}
+
+		int[] all = index.query(0, 0, SIZE, SIZE);
+
+		assertEquals(POINTS, all.length);
+
+		index.remove(0, x[0], y[0], x[0], y[0]);
+		index.insert(0, 1, 1, 1, 1);
+
+		assertTrue(contains(index.query(0, 0, 2, 2), 0));
+		assertFalse(contains(index.query(CELL * 2, CELL * 2, SIZE, SIZE), 0));
+
+	}
+
+	/**
+	 * A segment is found in every cell it crosses, even when neither end is
+	 * in the rectangle
+	 */
+	public void testSegments() {
+		SpatialIndex segments = new SpatialIndex(0, 0, SIZE, SIZE, CELL, 2);
+
+		segments.insert(0, 10, 10, 990, 990);
+		segments.insert(1, 990, 10, 10, 990);
+
+		for (double position = 20; position < SIZE - 20; position += 37) {
+			int[] candidates = segments.query(position - 1, position - 1, position + 1, position + 1);
+
+			assertTrue(contains(candidates, 0));
+
+		}
+
+		assertTrue(contains(segments.query(495, 495, 505, 505), 1));
+		assertEquals(0, segments.query(10, 600, 100, 700).length);
+
+		segments.remove(0, 10, 10, 990, 990);
+
+		assertFalse(contains(segments.query(0, 0, SIZE, SIZE), 0));
+
+	}
+
+	/**
+	 * Items outside the extent are kept in the border cells
+	 */
+	public void testOutsideExtent() {
+		SpatialIndex outside = new SpatialIndex(0, 0, SIZE, SIZE, CELL, 2);
+
+		outside.insert(0, -500, -500, -500, -500);
+		outside.insert(1, SIZE + 500, SIZE / 2, SIZE + 500, SIZE / 2);
+
+		assertTrue(contains(outside.query(-600, -600, -400, -400), 0));
+		assertTrue(contains(outside.query(SIZE - 1, SIZE / 2, SIZE + 600, SIZE / 2), 1));
+
+	}
+
+	private static boolean contains(int[] ids, int id) {
+		int[] sorted = ids.clone();
+
+		Arrays.sort(sorted);
+
+		return Arrays.binarySearch(sorted, id) >= 0;
+
+	}
+
+}
@@ -0,0 +1,56 @@
+package org.snail.viewer.model;
+
+import java.util.concurrent.ExecutionException;
+
+import junit.framework.TestCase;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.shared.NotFoundException;
+
+/**
+ * Checks the locations a {@link ModelLoader} opens besides local files
+ */
+public class ModelLoaderTest extends TestCase {
+
+	/**
+	 * A class path location (neither a file nor a URL) is opened through the
+	 * FileManager
+	 */
+	public void testClassPathLocation() throws Exception {
+		ModelLoader loader = new ModelLoader("rdf/Talks.rdf");
+		Model expected = ModelFactory.createDefaultModel();
+
+		expected.read(getClass().getResourceAsStream("/rdf/Talks.rdf"), "rdf/Talks.rdf");
+
+		loader.run();
+
+		assertTrue(expected.isIsomorphicWith(loader.get()));
+		assertEquals(expected.size(), loader.getGraph().getEdgeCount());
+		assertNotNull(loader.getDigest());
+
+	}
+
+	/**
+	 * A location that cannot be found fails the load
+	 */
+	public void testMissingLocation() throws Exception {
+		ModelLoader loader = new ModelLoader("rdf/missing.rdf");
+
+		loader.run();
+
+		try {
+
+			loader.get();
+
+			fail();
+
+		} catch (ExecutionException e) {
+
+			assertTrue(e.getCause() instanceof NotFoundException);
+
+		}
+
+	}
+
+}
@@ -0,0 +1,256 @@
+package org.snail.viewer.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.snail.viewer.jung.graph.ModelGraphSnapshot;
+
+/**
+ * Checks that a {@link ModelSnapshot} (and the {@link ModelGraphSnapshot} and
+ * {@link ResourceIndex}es in it) reads back what was loaded, and that out of
+ * date or damaged snapshots are not used
+ */
+public class ModelSnapshotTest extends TestCase {
+	private static final String[] FIXTURES = { "Talks.rdf", "agenda_62.rdf", "elvisimp.rdf" };
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws IOException {
+
+		directory = File.createTempFile("snail", "");
+		directory.delete();
+		directory.mkdirs();
+
+		for (String fixture : FIXTURES) {
+			InputStream input = getClass().getResourceAsStream("/rdf/" + fixture);
+			OutputStream output = new FileOutputStream(new File(directory, fixture));
+
+			try {
+
+				IOUtils.copy(input, output);
+
+			} finally {
+
+				input.close();
+				output.close();
+
+			}
+
+		}
+
+	}
+
+	@Override
+	protected void tearDown() {
+
+		/*
+		 * Quietly - a snapshot stays mapped (and on Windows undeletable) until
+		 * it is collected
+		 */
+		FileUtils.deleteQuietly(directory);
+
+	}
+
+	private static ModelLoader load(File file) throws Exception {
+		ModelLoader loader = new ModelLoader(file.getPath());
+
+		loader.run();
+		loader.get();
+
+		return loader;
+
+	}
+
+	/**
+	 * The snapshot written by the first load reads back the same model, graph
+	 * and indexes
+	 */
+	public void testRoundTrip() throws Exception {
+
+		for (String fixture : FIXTURES) {
+			File file = new File(directory, fixture);
+			ModelLoader loader = load(file);
+
+			assertTrue(ModelSnapshot.getFile(file).isFile());
+
+			ModelSnapshot snapshot = ModelSnapshot.read(file);
+
+			assertNotNull(fixture, snapshot);
+			assertEquals(loader.getDigest(), snapshot.getDigest());
+			assertEquals(loader.getModel().size(), snapshot.getModel().size());
+			assertTrue(loader.getModel().isIsomorphicWith(snapshot.getModel()));
+			assertEquals(loader.getModel().getNsPrefixMap(), snapshot.getModel().getNsPrefixMap());
+
+			assertGraphsEqual(loader.getGraph(), snapshot.getGraph());
+			assertIndexesEqual(loader.getPredicates(), snapshot.getPredicates());
+			assertIndexesEqual(loader.getSubjects(), snapshot.getSubjects());
+
+		}
+
+	}
+
+	/**
+	 * A second load reads the snapshot rather than the file - shown by
+	 * replacing the file's content with bytes that do not parse, keeping its
+	 * size and modification time
+	 */
+	public void testSecondLoadUsesSnapshot() throws Exception {
+		File file = new File(directory, "agenda_62.rdf");
+		ModelLoader first = load(file);
+		long modified = file.lastModified();
+		byte[] garbage = new byte[(int) file.length()];
+
+		Arrays.fill(garbage, (byte) '#');
+		FileUtils.writeByteArrayToFile(file, garbage);
+
+		assertTrue(file.setLastModified(modified));
+
+		ModelLoader second = load(file);
+
+		assertEquals(first.getDigest(), second.getDigest());
+		assertEquals(first.getSize(), second.getSize());
+		assertTrue(first.getModel().isIsomorphicWith(second.getModel()));
+		assertGraphsEqual(first.getGraph(), second.getGraph());
+
+	}
+
+	/**
+	 * A snapshot of a file that has changed since is ignored, and replaced by
+	 * the next load
+	 */
+	public void testStaleSnapshot() throws Exception {
+		File file = new File(directory, "elvisimp.rdf");
+
+		load(file);
+
+		assertTrue(file.setLastModified(file.lastModified() + 5000));
+		assertNull(ModelSnapshot.read(file));
+
+		load(file);
+
+		assertNotNull(ModelSnapshot.read(file));
+
+	}
+
+	/**
+	 * A truncated snapshot is ignored and the file is parsed
+	 */
+	public void testTruncatedSnapshot() throws Exception {
+		File file = new File(directory, "Talks.rdf");
+		ModelLoader first = load(file);
+		RandomAccessFile snapshot = new RandomAccessFile(ModelSnapshot.getFile(file), "rw");
+
+		try {
+
+			snapshot.setLength(snapshot.length() / 2);
+
+		} finally {
+
+			snapshot.close();
+
+		}
+
+		assertNull(ModelSnapshot.read(file));
+
+		ModelLoader second = load(file);
+
+		assertTrue(first.getModel().isIsomorphicWith(second.getModel()));
+
+	}
+
+	/**
+	 * A snapshot that cannot be written (here its path is taken by a
+	 * directory) does not fail the load, and is not tried again until the
+	 * file changes
+	 */
+	public void testFailedWriteNotRetried() throws Exception {
+		File file = new File(directory, "agenda_62.rdf");
+		File blocker = ModelSnapshot.getFile(file);
+
+		assertTrue(blocker.mkdir());
+		assertTrue(new File(blocker, "content").createNewFile());
+		assertTrue(ModelLoader.isSnapshotWritable(file, file.lastModified()));
+
+		ModelLoader first = load(file);
+
+		assertTrue(first.getModel().size() > 0);
+		assertTrue(blocker.isDirectory());
+		assertFalse(new File(blocker.getPath() + ".tmp").exists());
+		assertFalse(ModelLoader.isSnapshotWritable(file, file.lastModified()));
+
+		ModelLoader second = load(file);
+
+		assertTrue(first.getModel().isIsomorphicWith(second.getModel()));
+
+		assertTrue(file.setLastModified(file.lastModified() + 5000));
+		assertTrue(ModelLoader.isSnapshotWritable(file, file.lastModified()));
+
+		FileUtils.deleteDirectory(blocker);
+
+		load(file);
+
+		assertNotNull(ModelSnapshot.read(file));
+
+	}
+
+	private static void assertGraphsEqual(ModelGraphSnapshot expected, ModelGraphSnapshot actual) {
+
+		assertEquals(expected.getVertexCount(), actual.getVertexCount());
+		assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+		assertEquals(expected.getPropertyCount(), actual.getPropertyCount());
+
+		for (int iVertex = 0; iVertex < expected.getVertexCount(); iVertex++) {
+			assertEquals(expected.getVertex(iVertex), actual.getVertex(iVertex));
+			assertEquals(iVertex, actual.getId(expected.getVertex(iVertex)));
+		}
+
+		for (int iEdge = 0; iEdge < expected.getEdgeCount(); iEdge++) {
+			assertEquals(expected.getEdge(iEdge), actual.getEdge(iEdge));
+			assertEquals(expected.getSourceId(iEdge), actual.getSourceId(iEdge));
+			assertEquals(expected.getDestId(iEdge), actual.getDestId(iEdge));
+		}
+
+		for (int iProperty = 0; iProperty < expected.getPropertyCount(); iProperty++) {
+			String property = expected.getProperty(iProperty).toString();
+
+			assertEquals(property, actual.getProperty(iProperty).toString());
+			assertEquals(iProperty, actual.getPropertyId(property));
+		}
+
+		assertTrue(Arrays.equals(expected.getOutEdgeOffsets(), actual.getOutEdgeOffsets()));
+		assertTrue(Arrays.equals(expected.getOutEdgeIds(), actual.getOutEdgeIds()));
+		assertTrue(Arrays.equals(expected.getInEdgeOffsets(), actual.getInEdgeOffsets()));
+		assertTrue(Arrays.equals(expected.getInEdgeIds(), actual.getInEdgeIds()));
+		assertTrue(Arrays.equals(expected.getSuccessorOffsets(), actual.getSuccessorOffsets()));
+		assertTrue(Arrays.equals(expected.getSuccessorIds(), actual.getSuccessorIds()));
+		assertTrue(Arrays.equals(expected.getPredecessorOffsets(), actual.getPredecessorOffsets()));
+		assertTrue(Arrays.equals(expected.getPredecessorIds(), actual.getPredecessorIds()));
+		assertTrue(Arrays.equals(expected.getPropertyEdgeOffsets(), actual.getPropertyEdgeOffsets()));
+		assertTrue(Arrays.equals(expected.getPropertyEdgeIds(), actual.getPropertyEdgeIds()));
+
+	}
+
+	private static void assertIndexesEqual(ResourceIndex expected, ResourceIndex actual) {
+
+		assertEquals(expected.size(), actual.size());
+
+		for (int iResource = 0; iResource < expected.size(); iResource++) {
+			assertEquals(expected.get(iResource), actual.get(iResource));
+			assertEquals(expected.getCount(iResource), actual.getCount(iResource));
+		}
+
+		assertTrue(Arrays.equals(expected.find("http"), actual.find("http")));
+
+	}
+
+}
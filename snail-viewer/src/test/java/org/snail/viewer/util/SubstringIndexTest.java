@@ -0,0 +1,108 @@
+package org.snail.viewer.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the {@link SubstringIndex} results against {@code String.contains}
+ */
+public class SubstringIndexTest extends TestCase {
+	private static final String ALPHABET = "abcd/:#\u00e9\u4e2d";
+
+	private final Random random = new Random(42);
+
+	private String[] strings;
+	private SubstringIndex index;
+
+	@Override
+	protected void setUp() {
+
+		strings = new String[3000];
+
+		for (int iString = 0; iString < strings.length; iString++) {
+			strings[iString] = text(random.nextInt(24));
+		}
+
+		strings[7] = "http://example.org/resource/Talk";
+		strings[8] = "http://example.org/resource/talk";
+
+		index = new SubstringIndex(strings);
+
+	}
+
+	/**
+	 * Queries of every length, including ones shorter than a trigram and
+	 * repeated characters, find exactly the strings that contain them
+	 */
+	public void testFindMatchesContains() {
+
+		for (int iQuery = 0; iQuery < 2000; iQuery++) {
+			String text;
+
+			if (iQuery % 3 == 0) {
+				String source = strings[random.nextInt(strings.length)];
+				int start = random.nextInt(source.length() + 1);
+
+				text = source.substring(start, start + random.nextInt(source.length() - start + 1));
+			} else {
+				text = text(random.nextInt(7));
+			}
+
+			assertEquals(text, Arrays.toString(scan(text)), Arrays.toString(index.find(text)));
+
+		}
+
+	}
+
+	/**
+	 * Matching is case sensitive
+	 */
+	public void testCase() {
+
+		assertTrue(Arrays.binarySearch(index.find("Talk"), 7) >= 0);
+		assertTrue(Arrays.binarySearch(index.find("Talk"), 8) < 0);
+		assertTrue(Arrays.binarySearch(index.find("talk"), 8) >= 0);
+
+	}
+
+	public void testEmpty() {
+		SubstringIndex empty = new SubstringIndex(new String[0]);
+
+		assertEquals(0, empty.size());
+		assertEquals(0, empty.find("abc").length);
+		assertEquals(strings.length, index.find("").length);
+		assertEquals(strings.length, index.size());
+		assertEquals(strings[7], index.get(7));
+
+	}
+
+	private String text(int length) {
+		StringBuilder builder = new StringBuilder(length);
+
+		for (int iCharacter = 0; iCharacter < length; iCharacter++) {
+			builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+		}
+
+		return builder.toString();
+
+	}
+
+	private int[] scan(String text) {
+		int[] ids = new int[strings.length];
+		int size = 0;
+
+		for (int iString = 0; iString < strings.length; iString++) {
+
+			if (strings[iString].contains(text)) {
+				ids[size++] = iString;
+			}
+
+		}
+
+		return Arrays.copyOf(ids, size);
+
+	}
+
+}